@@ -0,0 +1,69 @@
+package com.yourpackage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Room#broadcastMessage} fanned out to in-memory connections that discard their bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BroadcastBenchmark {
+    @Param({"4", "16", "64"})
+    public int connections;
+
+    @Param({"string", "binary"})
+    public String protocol;
+
+    private TimerWheel scheduler;
+    private Room room;
+    private int sequence;
+
+    @Setup
+    public void setUpScheduler() {
+        scheduler = new TimerWheel(10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    // A fresh room per iteration, so object streams' back-reference tables do not keep growing
+    @Setup(Level.Iteration)
+    public void setUpRoom() throws IOException {
+        room = new Room(1, "bench", connections, 7, scheduler, 0, null, Runnable::run, GameLog.NONE,
+                new SpectatorFeed(scheduler, Runnable::run, 0));
+        for (int i = 0; i < connections; i++) {
+            OutputStream sink = OutputStream.nullOutputStream();
+            room.addConnection(protocol.equals("string")
+                    ? new SerializedConnection(new ObjectOutputStream(sink), sink)
+                    : new BinaryConnection(sink));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.stop();
+    }
+
+    @Benchmark
+    public void broadcastMessage() {
+        room.broadcastMessage("player: message " + (sequence++ & 1023));
+    }
+}
@@ -0,0 +1,52 @@
+package com.yourpackage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DeckBenchmark {
+    private final Random random = new Random(42);
+    private final Hand[] hands = {new Hand(), new Hand(), new Hand(), new Hand()};
+
+    @Benchmark
+    public Deck newDeck() {
+        return new Deck();
+    }
+
+    @Benchmark
+    public Deck shuffle() {
+        Deck deck = new Deck();
+        deck.shuffle(random);
+        return deck;
+    }
+
+    // Initial five cards each, then the rest, as a round is dealt
+    @Benchmark
+    public void dealRound(Blackhole blackhole) {
+        Deck deck = new Deck();
+        for (Hand hand : hands) {
+            hand.clear();
+            deck.deal(hand, 5);
+        }
+        for (Hand hand : hands) {
+            deck.deal(hand, 13 - hand.size());
+            blackhole.consume(hand.getMask());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Command;
+import com.yourpackage.protocol.FrameCodec;
+import com.yourpackage.protocol.FrameDecoder;
+import com.yourpackage.protocol.TextCommandParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request parsing as {@link ClientSession} does it, for the string and binary protocols.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseBenchmark {
+    private final TextCommandParser parser = new TextCommandParser();
+    private final FrameDecoder decoder = new FrameDecoder();
+    private ByteBuffer playCardFrame;
+
+    @Setup
+    public void setUp() {
+        playCardFrame = ByteBuffer.allocate(64);
+        FrameCodec.encodeCommand(Command.playCard("alice", "bob", 38), playCardFrame);
+        playCardFrame.flip();
+    }
+
+    @Benchmark
+    public Command parsePlayCard() throws ProtocolException {
+        return parser.parse("PLAY_CARD:alice:bob:HEARTS-ACE");
+    }
+
+    @Benchmark
+    public Command parseChat() throws ProtocolException {
+        return parser.parse("CHAT:alice:bob:good game everyone");
+    }
+
+    @Benchmark
+    public Command parseStartGame() throws ProtocolException {
+        return parser.parse("START_GAME:alice:alice:alice,carol:bob,dave");
+    }
+
+    @Benchmark
+    public Command decodePlayCard() throws IOException {
+        playCardFrame.rewind();
+        return decoder.decode(playCardFrame);
+    }
+
+    // The pre-parser cost for comparison: split plus substring per field
+    @Benchmark
+    public List<String> splitPlayCard() {
+        return List.of("PLAY_CARD:alice:bob:HEARTS-ACE".split(":"));
+    }
+}
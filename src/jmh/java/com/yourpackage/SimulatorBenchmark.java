@@ -0,0 +1,48 @@
+package com.yourpackage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One bot search iteration: deal the unseen cards of a fresh four-seat hand, then play it out.
+ * Should allocate nothing per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulatorBenchmark {
+    private final HokmSimulator simulator = new HokmSimulator(42);
+    private final HokmState position = new HokmState();
+    private final HokmState deal = new HokmState();
+
+    @Setup
+    public void setUp() {
+        Hand hand = new Hand();
+        new Deck(42).deal(hand, HokmState.HAND_SIZE);
+        for (int seat = 0; seat < 4; seat++) {
+            position.setTeam(seat, seat % 2);
+        }
+        position.newDeal(4, 0, 0);
+        position.setHokm(0);
+        position.setHand(hand.getMask());
+    }
+
+    @Benchmark
+    public int determinizeAndPlayOut() {
+        simulator.determinize(position, deal);
+        return simulator.playOut(deal, 0);
+    }
+}
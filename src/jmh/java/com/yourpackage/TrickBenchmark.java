@@ -0,0 +1,71 @@
+package com.yourpackage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trick resolution, play validation and card lookup over a fixed set of random four-card tricks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TrickBenchmark {
+    private static final int TRICKS = 1024;
+
+    private int[][] tricks;
+    private long[] hands;
+    private String[] cardTexts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        tricks = new int[TRICKS][];
+        hands = new long[TRICKS];
+        cardTexts = new String[TRICKS];
+        for (int i = 0; i < TRICKS; i++) {
+            Deck deck = new Deck();
+            deck.shuffle(random);
+            tricks[i] = new int[]{deck.drawCard().getCode(), deck.drawCard().getCode(), deck.drawCard().getCode(),
+                    deck.drawCard().getCode()};
+            Hand hand = new Hand();
+            deck.deal(hand, HokmState.HAND_SIZE);
+            hands[i] = hand.getMask();
+            cardTexts[i] = Card.of(tricks[i][0]).toString();
+        }
+    }
+
+    // As Room.determineTurnWinner resolves a full trick
+    @Benchmark
+    public int resolveTrick() {
+        int[] trick = tricks[next++ & (TRICKS - 1)];
+        return TrickRules.winner(next & 3, trick, trick.length);
+    }
+
+    // As Room.playCard checks a card against the led suit
+    @Benchmark
+    public boolean validatePlay() {
+        int i = next++ & (TRICKS - 1);
+        int[] trick = tricks[i];
+        return TrickRules.isLegal(hands[i], TrickRules.suitOf(trick[0]), trick[1]);
+    }
+
+    @Benchmark
+    public Card parseCard() {
+        return Card.parse(cardTexts[next++ & (TRICKS - 1)]);
+    }
+}
@@ -0,0 +1,164 @@
+package com.yourpackage;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Hands log records to a background writer through a bounded ring, so a logging thread never
+ * waits for a lock or for the console. Each slot carries a sequence number that says whether it is
+ * free or filled, so producers claim slots with one compare-and-set and the writer drains them in
+ * order. When the ring is full the record is dropped and counted rather than blocking the caller.
+ * The writer passes records on to the handlers the root logger had before, and flushes them
+ * whenever it runs out of work.
+ */
+public final class AsyncLogHandler extends Handler {
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000;
+
+    private final Handler[] targets;
+    private final AtomicReferenceArray<LogRecord> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only touched by the writer
+    private long head;
+    private final Thread writer;
+    private volatile boolean parked;
+    private volatile boolean closed;
+
+    public AsyncLogHandler(Handler[] targets, int capacity) {
+        this.targets = targets.clone();
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.writer = new Thread(this::drain, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Puts the root logger's handlers behind an asynchronous handler of {@code capacity} records.
+     * Records still in the ring are written on exit.
+     */
+    public static void install(int capacity) {
+        Logger root = LogManager.getLogManager().getLogger("");
+        Handler[] targets = root.getHandlers();
+        for (Handler target : targets) {
+            root.removeHandler(target);
+        }
+        AsyncLogHandler handler = new AsyncLogHandler(targets, capacity);
+        root.addHandler(handler);
+        Runtime.getRuntime().addShutdownHook(new Thread(handler::close, "log-close"));
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        long position;
+        while (true) {
+            position = tail.get();
+            long sequence = sequences.get((int) position & mask);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (sequence < position) {
+                // The writer has not freed this slot since the last lap: full
+                Metrics.logRecordDropped();
+                return;
+            }
+        }
+        int index = (int) position & mask;
+        slots.set(index, record);
+        sequences.set(index, position + 1);
+        if (parked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    // Records are flushed once the ring runs dry, not per record
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Writes what is left in the ring, then closes the handlers behind it.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Handler target : targets) {
+            target.close();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            LogRecord record = poll();
+            if (record != null) {
+                write(record);
+                continue;
+            }
+            for (Handler target : targets) {
+                target.flush();
+            }
+            if (closed) {
+                return;
+            }
+            parked = true;
+            // Re-check after publishing the flag so a concurrent publish() cannot be missed
+            if (!hasNext()) {
+                LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+            }
+            parked = false;
+        }
+    }
+
+    private LogRecord poll() {
+        if (!hasNext()) {
+            return null;
+        }
+        int index = (int) head & mask;
+        LogRecord record = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, head + mask + 1);
+        head++;
+        return record;
+    }
+
+    private boolean hasNext() {
+        return sequences.get((int) head & mask) == head + 1;
+    }
+
+    private void write(LogRecord record) {
+        for (Handler target : targets) {
+            try {
+                target.publish(record);
+            } catch (RuntimeException e) {
+                reportError("Failed to write a log record", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+}
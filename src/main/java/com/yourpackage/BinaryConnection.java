@@ -0,0 +1,97 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.FrameCodec;
+import com.yourpackage.protocol.RoomSummary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A client on the binary protocol. Events are written as frames, encoded once per event however
+ * many clients it goes to.
+ */
+public class BinaryConnection implements ClientConnection {
+    private static final Logger LOGGER = Logger.getLogger(BinaryConnection.class.getName());
+    private final OutputStream out;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBuffer buffer = ByteBuffer.allocate(16);
+    private byte[] scratch = new byte[256];
+
+    public BinaryConnection(OutputStream out) {
+        this.out = out;
+    }
+
+    public void sendHello(int version) throws IOException {
+        lock.lock();
+        try {
+            buffer.clear();
+            FrameCodec.encodeHello(buffer, version);
+            writeBuffer();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void send(Event event) throws IOException {
+        send(SharedEvent.of(event));
+    }
+
+    @Override
+    public void send(SharedEvent event) throws IOException {
+        lock.lock();
+        try {
+            scratch = event.writeTo(out, event.binaryFrame(), scratch);
+            out.flush();
+        } finally {
+            lock.unlock();
+            event.release();
+        }
+    }
+
+    @Override
+    public void sendBatch(List<SharedEvent> events) throws IOException {
+        lock.lock();
+        try {
+            for (SharedEvent event : events) {
+                scratch = event.writeTo(out, event.binaryFrame(), scratch);
+            }
+            out.flush();
+        } finally {
+            lock.unlock();
+            for (SharedEvent event : events) {
+                event.release();
+            }
+        }
+    }
+
+    @Override
+    public void sendRooms(List<Room> rooms) throws IOException {
+        List<RoomSummary> summaries = new ArrayList<>(rooms.size());
+        for (Room room : rooms) {
+            summaries.add(room.getSummary());
+        }
+        send(Event.roomList(summaries));
+    }
+
+    private void writeBuffer() throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error closing client stream", e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.yourpackage;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fills empty seats with {@link RoomBot}s and runs their searches. Searching is CPU-bound, so it
+ * runs on a fixed set of platform threads, each with its own {@link HokmSimulator}. Every move
+ * gets {@code hokm.bot.moveMillis} from the moment it is asked for, time spent queued included,
+ * so a bot never holds up its table for longer than that.
+ */
+public class BotPool {
+    private static final Logger LOGGER = Logger.getLogger(BotPool.class.getName());
+    private static final EventLog EVENTS = EventLog.of("bot");
+
+    private final ExecutorService threads;
+    private final ThreadLocal<HokmSimulator> simulators =
+            ThreadLocal.withInitial(() -> new HokmSimulator(ThreadLocalRandom.current().nextLong()));
+    private final long moveNanos;
+    private final AtomicLong nextBot = new AtomicLong();
+
+    public BotPool(int threadCount, long moveMillis) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.threads = Executors.newFixedThreadPool(threadCount, task -> {
+            Thread thread = new Thread(task, "bot-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.moveNanos = TimeUnit.MILLISECONDS.toNanos(moveMillis);
+    }
+
+    /**
+     * Seats a bot in every empty seat of {@code room}. Runs as a room task.
+     */
+    public void fill(Server server, Room room) {
+        int attempts = room.getMaxPlayers() * 2;
+        while (!room.isFull() && !room.isClosed() && attempts-- > 0) {
+            // A client may already be using the name, in which case the next one is tried
+            RoomBot bot = new RoomBot(this, room, "bot-" + nextBot.incrementAndGet());
+            if (server.joinRoom(room, bot.getPlayer())) {
+                EVENTS.log(Level.INFO, "seated", "bot", bot.getPlayer().getName(), "room", room.getCreator());
+            }
+        }
+    }
+
+    long deadline() {
+        return System.nanoTime() + moveNanos;
+    }
+
+    void execute(Consumer<HokmSimulator> search) {
+        threads.execute(() -> {
+            HokmSimulator simulator = simulators.get();
+            long playouts = simulator.getPlayouts();
+            try {
+                search.accept(simulator);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Bot search failed", e);
+            } finally {
+                Metrics.botPlayouts(simulator.getPlayouts() - playouts);
+            }
+        });
+    }
+}
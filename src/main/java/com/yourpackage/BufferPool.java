@@ -0,0 +1,70 @@
+package com.yourpackage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Direct buffers recycled in power-of-two size classes from 64 bytes to 64 KB, so encoding an
+ * event stops allocating once the pool is warm. Larger requests get a heap buffer that is left
+ * to the garbage collector.
+ */
+public final class BufferPool {
+    private static final int MIN_SHIFT = 6;
+    private static final int MAX_SHIFT = 16;
+    private static final int SIZE_CLASSES = MAX_SHIFT - MIN_SHIFT + 1;
+    private static final int MAX_FREE_PER_CLASS = 1024;
+
+    private static final List<Queue<ByteBuffer>> FREE = new ArrayList<>(SIZE_CLASSES);
+    private static final AtomicIntegerArray FREE_COUNTS = new AtomicIntegerArray(SIZE_CLASSES);
+
+    static {
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            FREE.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    private BufferPool() {
+    }
+
+    /**
+     * A cleared buffer of at least {@code size} bytes, limited to exactly {@code size}.
+     */
+    public static ByteBuffer acquire(int size) {
+        int sizeClass = sizeClass(size);
+        if (sizeClass >= SIZE_CLASSES) {
+            return ByteBuffer.allocate(size);
+        }
+        ByteBuffer buffer = FREE.get(sizeClass).poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(1 << (sizeClass + MIN_SHIFT));
+        } else {
+            FREE_COUNTS.decrementAndGet(sizeClass);
+        }
+        buffer.clear().limit(size);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer from {@link #acquire}. It must not be used afterwards.
+     */
+    public static void release(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            return;
+        }
+        int sizeClass = sizeClass(buffer.capacity());
+        if (FREE_COUNTS.incrementAndGet(sizeClass) <= MAX_FREE_PER_CLASS) {
+            FREE.get(sizeClass).add(buffer);
+        } else {
+            FREE_COUNTS.decrementAndGet(sizeClass);
+        }
+    }
+
+    private static int sizeClass(int size) {
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1 << MIN_SHIFT) - 1);
+        return shift - MIN_SHIFT;
+    }
+}
@@ -1,17 +1,57 @@
 package com.yourpackage;
 
+import com.yourpackage.protocol.CardCodes;
+
 import java.io.Serializable;
 
-public class Card implements Serializable {
+/**
+ * One of the 52 cards. There is exactly one instance per card, addressed by its
+ * {@link CardCodes} byte, so cards compare by identity and are never allocated during play.
+ */
+public final class Card implements Serializable {
     private static final long serialVersionUID = 1L;
+    public static final int DECK_SIZE = CardCodes.SUITS.length * CardCodes.RANKS.length;
+    private static final Card[] CARDS = new Card[DECK_SIZE];
+
+    static {
+        for (int code = 0; code < DECK_SIZE; code++) {
+            CARDS[code] = new Card(code);
+        }
+    }
+
+    private final int code;
     private final String suit;
     private final String rank;
     private final int power;
 
-    public Card(String suit, String rank, int power) {
-        this.suit = suit;
-        this.rank = rank;
-        this.power = power;
+    private Card(int code) {
+        this.code = code;
+        this.suit = CardCodes.suitOf(code);
+        this.rank = CardCodes.rankOf(code);
+        this.power = code % CardCodes.RANKS.length + 2;
+    }
+
+    /**
+     * The card for a valid {@link CardCodes} value.
+     */
+    public static Card of(int code) {
+        return CARDS[code];
+    }
+
+    /**
+     * Parses the {@code SUIT-RANK} text form, returning null if it is not a card.
+     */
+    public static Card parse(String text) {
+        int code = CardCodes.parse(text);
+        return code == CardCodes.INVALID ? null : CARDS[code];
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public int getSuitIndex() {
+        return code / CardCodes.RANKS.length;
     }
 
     public String getSuit() {
@@ -26,6 +66,20 @@ public class Card implements Serializable {
         return power;
     }
 
+    private Object readResolve() {
+        return CARDS[code];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Card card && card.code == code;
+    }
+
+    @Override
+    public int hashCode() {
+        return code;
+    }
+
     @Override
     public String toString() {
         return suit + "-" + rank;
@@ -0,0 +1,52 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Event;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The outbound side of a client, whatever protocol it speaks. Rooms and players only ever
+ * hold one of these, never a raw stream.
+ */
+public interface ClientConnection {
+    void send(Event event) throws IOException;
+
+    /**
+     * Sends an event encoded once for many recipients. Takes over one reference to {@code event}
+     * and releases it in every case, including when this throws.
+     */
+    default void send(SharedEvent event) throws IOException {
+        try {
+            send(event.getEvent());
+        } finally {
+            event.release();
+        }
+    }
+
+    /**
+     * Sends several events with a single flush. Takes over one reference to each event and
+     * releases all of them in every case, including when this throws.
+     */
+    default void sendBatch(List<SharedEvent> events) throws IOException {
+        IOException failure = null;
+        for (SharedEvent event : events) {
+            if (failure != null) {
+                event.release();
+                continue;
+            }
+            try {
+                send(event);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    void sendRooms(List<Room> rooms) throws IOException;
+
+    void close();
+}
@@ -0,0 +1,428 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.CardCodes;
+import com.yourpackage.protocol.Command;
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.FrameDecoder;
+import com.yourpackage.protocol.MessageTooLargeException;
+import com.yourpackage.protocol.Opcode;
+import com.yourpackage.protocol.TextCommandParser;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Per-connection command handling, independent of how the connection's bytes are read.
+ * String requests and decoded binary commands end up in the same operations.
+ */
+public class ClientSession implements RequestHandler {
+    private static final Logger LOGGER = Logger.getLogger(ClientSession.class.getName());
+    private static final EventLog EVENTS = EventLog.of("session");
+    private final Server server;
+    private final ClientConnection connection;
+    private final TextCommandParser textParser = new TextCommandParser();
+    private final RequestLimits limits;
+    // Rooms this connection created, sat in or watched, to clean up when it goes away
+    private final Set<Room> rooms = ConcurrentHashMap.newKeySet();
+    private Heartbeat heartbeat;
+    private volatile String quickPlayName;
+    private volatile boolean closed;
+
+    public ClientSession(Server server, ClientConnection connection) {
+        this(server, connection, RequestLimits.of(server.getConfig()));
+    }
+
+    public ClientSession(Server server, ClientConnection connection, RequestLimits limits) {
+        this.server = server;
+        this.connection = connection;
+        this.limits = limits;
+    }
+
+    @Override
+    public void startHeartbeat(Runnable close, boolean enforced) {
+        heartbeat = server.newHeartbeat(connection, close);
+        if (heartbeat != null) {
+            heartbeat.start(enforced);
+        }
+    }
+
+    /**
+     * Cleans up after the connection has closed: it leaves the lobby feed and any spectator
+     * feeds, and a player seated on it leaves their room, or only vacates the seat if the game
+     * has started. A room that dropping out leaves to bots is kept for the resume grace period.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        String queuedName = quickPlayName;
+        if (queuedName != null) {
+            server.getMatchmaker().cancel(queuedName);
+        }
+        if (heartbeat != null) {
+            heartbeat.stop();
+        }
+        server.getLobby().unsubscribe(connection);
+        for (Room room : rooms) {
+            room.getSpectators().unwatch(connection);
+            room.execute(() -> {
+                Player player = room.disconnect(connection);
+                long grace = server.getConfig().getResumeGraceMillis();
+                if (player != null && !room.isGameStarted()) {
+                    leave(room, player.getName());
+                } else if (player != null && player.getReplay() != null && grace > 0) {
+                    server.schedule(() -> room.execute(() -> closeIfAbandoned(room)), grace);
+                } else {
+                    closeIfAbandoned(room);
+                }
+            });
+        }
+        rooms.clear();
+    }
+
+    @Override
+    public void rejectOversized(MessageTooLargeException e) {
+        LOGGER.info("Closing connection: " + e.getMessage());
+        Metrics.messageTooLarge();
+        try {
+            connection.send(Event.error(e.getMessage()));
+        } catch (IOException ignored) {
+            // Closing anyway
+        }
+        connection.close();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Records a room this connection was seated in by the matchmaker, for cleanup on close.
+     */
+    public void roomJoined(Room room) {
+        quickPlayName = null;
+        rooms.add(room);
+    }
+
+    @Override
+    public void handleRequest(String request) throws IOException {
+        touch();
+        Command command;
+        try {
+            command = textParser.parse(request);
+        } catch (ProtocolException e) {
+            reject(e);
+            return;
+        }
+        handle(command);
+    }
+
+    /**
+     * Runs every complete frame in {@code buffer}. Frames are length-prefixed, so a malformed one
+     * is answered with an error and skipped without losing the stream.
+     */
+    @Override
+    public void handleFrames(FrameDecoder decoder, ByteBuffer buffer) throws IOException {
+        touch();
+        while (true) {
+            Command command;
+            try {
+                command = decoder.decode(buffer);
+            } catch (ProtocolException e) {
+                reject(e);
+                continue;
+            }
+            if (command == null) {
+                return;
+            }
+            handle(command);
+        }
+    }
+
+    /**
+     * Runs one command. Its time is recorded per opcode; with room workers that covers the lookup
+     * and hand-off only, as the room's part runs later on its worker.
+     */
+    public void handle(Command command) throws IOException {
+        int opcode = command.getOpcode();
+        long start = System.nanoTime();
+        if (!limits.admit(opcode, start)) {
+            Metrics.requestThrottled(opcode);
+            connection.send(Event.error("Too many requests"));
+            return;
+        }
+        try {
+            execute(command);
+        } catch (ProtocolException e) {
+            reject(e);
+        } finally {
+            Metrics.commandHandled(opcode, System.nanoTime() - start);
+        }
+    }
+
+    private void touch() {
+        if (heartbeat != null) {
+            heartbeat.touch();
+        }
+    }
+
+    private void reject(ProtocolException e) throws IOException {
+        EVENTS.log(Level.FINE, "rejected", "reason", e.getMessage());
+        Metrics.requestRejected();
+        connection.send(Event.error(e.getMessage()));
+    }
+
+    // A tableswitch on the opcode, whichever protocol the command arrived on
+    private void execute(Command command) throws IOException {
+        switch (command.getOpcode()) {
+            case Opcode.CREATE_ROOM -> createRoom(command.getRoom(), command.getValue());
+            case Opcode.JOIN_ROOM -> joinRoom(command.getRoom(), command.getUser());
+            case Opcode.GAME_STARTED -> gameStarted(command.getRoom(), command.getUser());
+            case Opcode.GET_ROOMS -> connection.sendRooms(server.getRooms());
+            case Opcode.SUBSCRIBE_LOBBY -> server.getLobby().subscribe(connection);
+            case Opcode.UNSUBSCRIBE_LOBBY -> server.getLobby().unsubscribe(connection);
+            case Opcode.QUICK_PLAY -> quickPlay(command.getUser(), command.getValue(), command.getRating());
+            case Opcode.CANCEL_QUICK_PLAY -> cancelQuickPlay(command.getUser());
+            case Opcode.WATCH_ROOM -> watchRoom(command.getRoom());
+            case Opcode.UNWATCH_ROOM -> unwatchRoom(command.getRoom());
+            case Opcode.PONG -> {
+                // Any input counts as a sign of life; a PONG also shows the client answers pings
+                if (heartbeat != null) {
+                    heartbeat.enforce();
+                }
+            }
+            case Opcode.SET_HOKM -> {
+                if (command.getValue() < 0 || command.getValue() >= CardCodes.SUITS.length) {
+                    throw new ProtocolException("Invalid suit " + command.getValue());
+                }
+                setHokm(command.getRoom(), CardCodes.SUITS[command.getValue()]);
+            }
+            case Opcode.PLAY_CARD -> {
+                if (!CardCodes.isValid(command.getValue())) {
+                    throw new ProtocolException("Invalid card");
+                }
+                playCard(command.getRoom(), command.getUser(), Card.of(command.getValue()));
+            }
+            case Opcode.START_GAME -> startGame(command.getRoom(), command.getTeamA(), command.getTeamB());
+            case Opcode.PLAYER_LIST -> playerList(command.getRoom());
+            case Opcode.CHAT -> chat(command.getRoom(), command.getUser(), command.getText());
+            case Opcode.KICK_USER -> kickUser(command.getRoom(), command.getUser());
+            case Opcode.LEAVE_ROOM -> leaveRoom(command.getRoom(), command.getUser());
+            case Opcode.RESUME -> {
+                if (command.getValue() < 0) {
+                    throw new ProtocolException("Invalid sequence " + command.getValue());
+                }
+                resume(command.getRoom(), command.getUser(), command.getText(), command.getValue());
+            }
+            default -> throw new ProtocolException("Unexpected opcode " + command.getOpcode());
+        }
+    }
+
+    private void createRoom(String creator, int maxPlayers) throws IOException {
+        if (!Matchmaker.isValidTableSize(maxPlayers)) {
+            throw new ProtocolException("Invalid table size " + maxPlayers);
+        }
+        Room room = server.createRoom(creator, maxPlayers, 7);
+        if (room != null) {
+            rooms.add(room);
+            room.execute(() -> {
+                room.addConnection(connection);
+                send(Event.roomCreated(room.getCreator()));
+            });
+        } else {
+            connection.send(Event.roomCreationFailed());
+        }
+    }
+
+    private void joinRoom(String roomCreator, String username) throws IOException {
+        Room room = server.getRoomByCreator(roomCreator);
+        if (room == null) {
+            connection.send(Event.roomFull());
+            return;
+        }
+        room.execute(() -> {
+            if (server.joinRoom(room, new Player(username, connection))) {
+                rooms.add(room);
+                room.broadcastUserList();
+            } else if (room.reclaimSeat(username, connection)) {
+                rooms.add(room);
+            } else {
+                send(Event.roomFull());
+            }
+        });
+    }
+
+    private void resume(String roomCreator, String username, String token, int seen) throws IOException {
+        Room room = server.getRoomByCreator(roomCreator);
+        if (room == null) {
+            connection.send(Event.error("Cannot resume"));
+            return;
+        }
+        room.execute(() -> {
+            if (room.resumeSeat(username, token, seen, connection)) {
+                rooms.add(room);
+                EVENTS.log(Level.FINE, "resumed", "room", roomCreator, "player", username);
+            } else {
+                send(Event.error("Cannot resume"));
+            }
+        });
+    }
+
+    private void quickPlay(String username, int tableSize, int rating) throws ProtocolException {
+        if (!Matchmaker.isValidTableSize(tableSize)) {
+            throw new ProtocolException("Invalid table size " + tableSize);
+        }
+        if (rating < 0) {
+            throw new ProtocolException("Invalid rating " + rating);
+        }
+        if (server.getRoomByPlayer(username) != null) {
+            throw new ProtocolException(username + " is already seated");
+        }
+        quickPlayName = username;
+        server.getMatchmaker().enqueue(username, connection, this, tableSize, rating);
+    }
+
+    private void cancelQuickPlay(String username) {
+        if (username.equals(quickPlayName)) {
+            quickPlayName = null;
+        }
+        server.getMatchmaker().cancel(username);
+    }
+
+    // Spectators never touch the room itself, so watching does not queue behind its commands
+    private void watchRoom(String roomCreator) throws IOException {
+        Room room = server.getRoomByCreator(roomCreator);
+        if (room == null || !room.getSpectators().watch(connection)) {
+            throw new ProtocolException("No room created by " + roomCreator);
+        }
+        rooms.add(room);
+    }
+
+    private void unwatchRoom(String roomCreator) {
+        Room room = server.getRoomByCreator(roomCreator);
+        if (room != null) {
+            room.getSpectators().unwatch(connection);
+        }
+    }
+
+    private void gameStarted(String roomCreator, String username) {
+        Room room = server.getRoomByCreator(roomCreator);
+        if (room == null) {
+            LOGGER.warning("Start game command issued for a missing room.");
+            return;
+        }
+        room.execute(() -> {
+            if (room.getCreator().equals(username) && !room.isGameStarted()) {
+                server.fillWithBots(room);
+                room.startGame();
+                EVENTS.log(Level.FINE, "game.start", "room", room.getCreator(), "by", username);
+            } else {
+                EVENTS.log(Level.FINE, "game.start.refused", "room", room.getCreator(), "by", username);
+            }
+        });
+    }
+
+    private void setHokm(String roomCreator, String suit) {
+        Room room = server.getRoomByCreator(roomCreator);
+        if (room != null) {
+            room.execute(() -> {
+                Player player = room.getPlayerByConnection(connection);
+                if (player != null) {
+                    room.setHokmSuit(player, suit);
+                }
+            });
+        }
+    }
+
+    private void playCard(String roomCreator, String playerName, Card card) {
+        Room room = server.getRoomByCreator(roomCreator);
+        if (room != null) {
+            room.execute(() -> {
+                Player player = room.getPlayerByName(playerName);
+                // Only the connection sitting in a seat may play from its hand
+                if (player != null && player.getConnection() == connection) {
+                    room.playCard(player, card);
+                } else {
+                    send(Event.error("Not your seat"));
+                }
+            });
+        }
+    }
+
+    private void playerList(String roomCreator) {
+        Room room = server.getRoomByCreator(roomCreator);
+        if (room != null) {
+            room.execute(() -> {
+                room.broadcast(Event.playerList(room.getTeamA(), room.getTeamB()));
+            });
+        }
+    }
+
+    private void chat(String roomCreator, String username, String message) {
+        Room room = server.getRoomByCreator(roomCreator);
+        if (room != null) {
+            room.execute(() -> room.broadcastMessage(username + ": " + message));
+        }
+    }
+
+    private void kickUser(String roomCreator, String userToKick) {
+        Room room = server.getRoomByCreator(roomCreator);
+        if (room != null) {
+            room.execute(() -> {
+                boolean kicked = server.leaveRoom(room, userToKick);
+                if (kicked) {
+                    room.broadcastMessage(userToKick + " has been kicked from the room.");
+                    room.broadcastUserList();
+                }
+            });
+        }
+    }
+
+    private void leaveRoom(String roomCreator, String username) {
+        Room room = server.getRoomByCreator(roomCreator);
+        if (room != null) {
+            room.execute(() -> leave(room, username));
+        }
+    }
+
+    // Runs as a room task; the creator leaving closes the room
+    private void leave(Room room, String username) {
+        if (room.getCreator().equals(username)) {
+            room.broadcast(Event.roomClosed());
+            server.closeRoom(room);
+        } else {
+            server.leaveRoom(room, username);
+            closeIfAbandoned(room);
+        }
+    }
+
+    // Runs as a room task; bots left to themselves would only play each other
+    private void closeIfAbandoned(Room room) {
+        List<ClientConnection> connections = room.getConnections();
+        boolean botsOnly = !connections.isEmpty() && connections.stream().allMatch(RoomBot.class::isInstance);
+        if (!room.isClosed() && (botsOnly || connections.isEmpty() && server.getMatchmaker().isMatchRoom(room))) {
+            server.closeRoom(room);
+        }
+    }
+
+    private void startGame(String roomCreator, List<String> teamA, List<String> teamB) {
+        Room room = server.getRoomByCreator(roomCreator);
+        if (room != null) {
+            room.execute(() -> room.broadcast(Event.gameTeams(teamA, teamB)));
+        }
+    }
+
+    // For replies sent from a room task, which cannot throw
+    private void send(Event event) {
+        try {
+            connection.send(event);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to send " + event, e);
+        }
+    }
+}
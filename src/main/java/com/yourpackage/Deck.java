@@ -1,58 +1,72 @@
 package com.yourpackage;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Deck implements Serializable {
     private static final long serialVersionUID = 1L;
-    private List<Card> cards;
+    // Card codes; cards[next..] are still to be dealt
+    private final byte[] cards = new byte[Card.DECK_SIZE];
+    private int next;
 
     public Deck() {
-        cards = new ArrayList<>();
         initializeDeck();
         shuffle();
     }
 
+    /**
+     * A deck shuffled from {@code seed}. {@link Random}'s algorithm is fixed by its specification,
+     * so a seed deals the same cards on any JVM, which lets the game log store seeds, not decks.
+     */
+    public Deck(long seed) {
+        initializeDeck();
+        shuffle(new Random(seed));
+    }
+
     private void initializeDeck() {
-        String[] suits = {"CLUBS", "DIAMONDS", "HEARTS", "SPADES"};
-        String[] ranks = {"TWO", "THREE", "FOUR", "FIVE", "SIX", "SEVEN", "EIGHT", "NINE", "TEN", "JACK", "QUEEN", "KING", "ACE"};
-        int power = 2;
-        for (String suit : suits) {
-            for (String rank : ranks) {
-                cards.add(new Card(suit, rank, power));
-                power++;
-            }
-            power = 2;
+        for (int code = 0; code < cards.length; code++) {
+            cards[code] = (byte) code;
         }
     }
 
-    public void shuffle() {
-        Collections.shuffle(cards);
+    public final void shuffle() {
+        shuffle(ThreadLocalRandom.current());
+    }
+
+    public final void shuffle(Random random) {
+        for (int i = cards.length - 1; i > next; i--) {
+            int j = next + random.nextInt(i - next + 1);
+            byte card = cards[i];
+            cards[i] = cards[j];
+            cards[j] = card;
+        }
     }
 
     public Card drawCard() {
-        if (cards.isEmpty()) {
+        if (isEmpty()) {
             return null;
         }
-        return cards.remove(0);
-    }
-
-    public List<Card> drawCards(int count) {
-        List<Card> drawnCards = new ArrayList<>();
-        for (int i = 0; i < count; i++) {
-            Card card = drawCard();
-            if (card != null) {
-                drawnCards.add(card);
-            } else {
-                break;
-            }
+        return Card.of(cards[next++]);
+    }
+
+    /**
+     * Moves up to {@code count} cards into {@code hand} and returns how many were dealt.
+     */
+    public int deal(Hand hand, int count) {
+        int dealt = 0;
+        while (dealt < count && !isEmpty()) {
+            hand.add(Card.of(cards[next++]));
+            dealt++;
         }
-        return drawnCards;
+        return dealt;
+    }
+
+    public int remaining() {
+        return cards.length - next;
     }
 
     public boolean isEmpty() {
-        return cards.isEmpty();
+        return next == cards.length;
     }
 }
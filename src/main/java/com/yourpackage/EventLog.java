@@ -0,0 +1,191 @@
+package com.yourpackage;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Structured game events in one category, such as {@code room} or {@code session}. An event is a
+ * name and up to three key-value fields, written out as one {@code key=value} line. Each category is
+ * the {@code java.util.logging} logger {@code hokm.<category>}, so its level can be changed like any
+ * other; below {@code WARNING} it can also be sampled, keeping one event in {@code n}.
+ * <p>
+ * Unless logging is synchronous, nothing is formatted on the calling thread: the fields travel in
+ * the record as given and are rendered by the {@link AsyncLogHandler}'s writer, so they should be
+ * immutable. A hot path guards its call with {@link #isLoggable} so a disabled event does not
+ * even box its fields.
+ */
+public final class EventLog {
+    private static final Map<String, EventLog> CATEGORIES = new ConcurrentHashMap<>();
+
+    private final String category;
+    private final Logger logger;
+    private volatile int sampleEvery = 1;
+
+    private EventLog(String category) {
+        this.category = category;
+        this.logger = Logger.getLogger("hokm." + category);
+    }
+
+    public static EventLog of(String category) {
+        return CATEGORIES.computeIfAbsent(category, EventLog::new);
+    }
+
+    /**
+     * Formats the root logger's handlers with {@link StructuredFormatter}, applies the configured
+     * levels and sampling, moves writing to a background thread unless the buffer size is 0, and
+     * registers {@link LogControl} for changes at runtime.
+     */
+    public static void configure(ServerConfig config) {
+        for (Handler handler : LogManager.getLogManager().getLogger("").getHandlers()) {
+            handler.setFormatter(new StructuredFormatter());
+            // Levels are decided by the loggers; a console handler would otherwise stop at INFO
+            handler.setLevel(Level.ALL);
+        }
+        if (config.getLogBufferSize() > 0) {
+            AsyncLogHandler.install(config.getLogBufferSize());
+        }
+        config.getLogLevels().forEach((category, level) -> of(category).setLevel(level));
+        config.getLogSampleRates().forEach((category, every) -> of(category).setSampleEvery(every));
+        new LogControl().register();
+    }
+
+    /**
+     * The current sampling of every category that has been used, as one-in-n.
+     */
+    public static Map<String, Integer> getSampleRates() {
+        Map<String, Integer> rates = new TreeMap<>();
+        for (EventLog log : CATEGORIES.values()) {
+            rates.put(log.category, log.sampleEvery);
+        }
+        return rates;
+    }
+
+    /**
+     * The level of every category that has been used, or the inherited level if none was set.
+     */
+    public static Map<String, String> getLevels() {
+        Map<String, String> levels = new TreeMap<>();
+        for (EventLog log : CATEGORIES.values()) {
+            Level level = log.getLevel();
+            levels.put(log.category, level == null ? "" : level.getName());
+        }
+        return levels;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Level getLevel() {
+        for (Logger current = logger; current != null; current = current.getParent()) {
+            if (current.getLevel() != null) {
+                return current.getLevel();
+            }
+        }
+        return null;
+    }
+
+    public void setLevel(Level level) {
+        logger.setLevel(level);
+    }
+
+    /**
+     * Keeps one in {@code every} events below {@code WARNING}; 1 keeps them all.
+     */
+    public void setSampleEvery(int every) {
+        sampleEvery = Math.max(1, every);
+    }
+
+    /**
+     * Whether events at {@code level} are on at all. Sampling is left to the log call.
+     */
+    public boolean isLoggable(Level level) {
+        return logger.isLoggable(level);
+    }
+
+    public void log(Level level, String event) {
+        if (sampled(level)) {
+            publish(new Event(level, event, null, null, null, null, null, null));
+        }
+    }
+
+    public void log(Level level, String event, String key, Object value) {
+        if (sampled(level)) {
+            publish(new Event(level, event, key, value, null, null, null, null));
+        }
+    }
+
+    public void log(Level level, String event, String key1, Object value1, String key2, Object value2) {
+        if (sampled(level)) {
+            publish(new Event(level, event, key1, value1, key2, value2, null, null));
+        }
+    }
+
+    public void log(Level level, String event, String key1, Object value1, String key2, Object value2,
+                    String key3, Object value3) {
+        if (sampled(level)) {
+            publish(new Event(level, event, key1, value1, key2, value2, key3, value3));
+        }
+    }
+
+    // One random draw rather than a shared counter, so sampling adds no contention between threads
+    private boolean sampled(Level level) {
+        if (!logger.isLoggable(level)) {
+            return false;
+        }
+        int every = sampleEvery;
+        return every == 1 || level.intValue() >= Level.WARNING.intValue()
+                || ThreadLocalRandom.current().nextInt(every) == 0;
+    }
+
+    private void publish(Event event) {
+        event.setLoggerName(logger.getName());
+        logger.log(event);
+    }
+
+    /**
+     * A structured event on its way to the writer, rendered by {@link StructuredFormatter}.
+     */
+    static final class Event extends LogRecord {
+        private static final long serialVersionUID = 1L;
+
+        private final String key1;
+        private final transient Object value1;
+        private final String key2;
+        private final transient Object value2;
+        private final String key3;
+        private final transient Object value3;
+
+        Event(Level level, String event, String key1, Object value1, String key2, Object value2,
+              String key3, Object value3) {
+            super(level, event);
+            this.key1 = key1;
+            this.value1 = value1;
+            this.key2 = key2;
+            this.value2 = value2;
+            this.key3 = key3;
+            this.value3 = value3;
+        }
+
+        void appendFields(StringBuilder out) {
+            appendField(out, key1, value1);
+            appendField(out, key2, value2);
+            appendField(out, key3, value3);
+        }
+
+        private static void appendField(StringBuilder out, String key, Object value) {
+            if (key == null) {
+                return;
+            }
+            out.append(' ').append(key).append('=');
+            StructuredFormatter.appendValue(out, String.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.yourpackage;
+
+/**
+ * What the client transports serve: a game {@link Server}, or a {@link Gateway} in front of
+ * several. Either way each connection gets an outbound queue for its events and a
+ * {@link RequestHandler} for its requests.
+ */
+public interface Frontend {
+    ServerConfig getConfig();
+
+    /**
+     * Wraps a blocking-stream connection in the per-client outbound queue.
+     *
+     * @param abort closes the underlying socket without writing, used when the client is dropped
+     */
+    OutboundQueue newOutboundQueue(ClientConnection connection, Runnable abort);
+
+    RequestHandler newSession(ClientConnection connection);
+}
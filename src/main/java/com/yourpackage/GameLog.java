@@ -0,0 +1,44 @@
+package com.yourpackage;
+
+/**
+ * Receives every state transition of every room, in the order the room applied them. Rooms call
+ * it under their lock, so implementations must not block. Seats are indexes into the room's
+ * player list at the time of the record.
+ */
+public interface GameLog {
+    GameLog NONE = new GameLog() {
+    };
+
+    default void roomCreated(long roomId, String creator, int maxPlayers, int totalRounds) {
+    }
+
+    default void playerJoined(long roomId, String player) {
+    }
+
+    default void playerLeft(long roomId, String player) {
+    }
+
+    /**
+     * A fresh deck shuffled from {@code seed}, with the master picked; starts a game or a round.
+     */
+    default void cardsDealt(long roomId, long seed, int masterSeat) {
+    }
+
+    default void hokmSelected(long roomId, int suit) {
+    }
+
+    default void cardPlayed(long roomId, int seat, int card) {
+    }
+
+    default void trickWon(long roomId, int seat) {
+    }
+
+    default void roundWon(long roomId, int team) {
+    }
+
+    default void gameOver(long roomId) {
+    }
+
+    default void roomClosed(long roomId) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.yourpackage;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Runs in front of several game nodes, each a {@link Server} accepting links on
+ * {@code hokm.node.linkPort}, so rooms are spread over several processes. Clients connect to the
+ * gateway exactly as they would to a single server. Each node has one persistent link carrying all
+ * of the gateway's clients that use it.
+ * <p>
+ * A room lives on the node its creator's name hashes to, which is where {@code CREATE_ROOM} is
+ * sent. Other room commands go wherever the merged lobby says the room is, falling back to the
+ * same hash. {@code QUICK_PLAY} always goes to the first node, so a single matchmaker sees every
+ * waiting player.
+ */
+public final class Gateway implements Frontend {
+    private static final Logger LOGGER = Logger.getLogger(Gateway.class.getName());
+
+    private final ServerConfig config;
+    // Drains client outbound queues, as on a server; a slow client only blocks its own virtual thread
+    private final ExecutorService outboundWriters = Executors.newVirtualThreadPerTaskExecutor();
+    // Only runs client heartbeats here
+    private final TimerWheel scheduler = new TimerWheel(10, TimeUnit.MILLISECONDS, 512);
+    private final List<NodeClient> nodes = new ArrayList<>();
+    private final GatewayLobby lobby;
+    private final Map<Integer, GatewaySession> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSession = new AtomicInteger();
+
+    public Gateway(ServerConfig config) {
+        this.config = config;
+        for (InetSocketAddress address : config.getGatewayNodes()) {
+            nodes.add(new NodeClient(this, nodes.size(), address));
+        }
+        this.lobby = new GatewayLobby(nodes.size());
+    }
+
+    public void start() {
+        for (NodeClient node : nodes) {
+            node.start();
+        }
+        LOGGER.info("Gateway in front of " + nodes.size() + " game node(s)");
+        Server.listen(this);
+    }
+
+    @Override
+    public ServerConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public OutboundQueue newOutboundQueue(ClientConnection connection, Runnable abort) {
+        return new OutboundQueue(connection, outboundWriters, () -> true, abort,
+                config.getOverflowPolicy(), config.getOutboundQueueCapacity());
+    }
+
+    @Override
+    public RequestHandler newSession(ClientConnection connection) {
+        int id;
+        do {
+            id = nextSession.incrementAndGet();
+        } while (id == 0 || sessions.containsKey(id));
+        GatewaySession session = new GatewaySession(this, id, connection);
+        sessions.put(id, session);
+        return session;
+    }
+
+    /**
+     * Idle tracking for a new client on the gateway's timer, or null when heartbeats are off.
+     */
+    public Heartbeat newHeartbeat(ClientConnection connection, Runnable close) {
+        if (config.getHeartbeatIntervalMillis() == 0) {
+            return null;
+        }
+        return new Heartbeat(scheduler, config.getHeartbeatIntervalMillis(), config.getHeartbeatTimeoutMillis(),
+                connection, close);
+    }
+
+    public GatewayLobby getLobby() {
+        return lobby;
+    }
+
+    public GatewaySession getSession(int id) {
+        return sessions.get(id);
+    }
+
+    public void sessionClosed(GatewaySession session) {
+        sessions.remove(session.getId(), session);
+    }
+
+    /**
+     * The node a room goes to when nothing else is known about it.
+     */
+    public NodeClient shard(String room) {
+        return nodes.get(Math.floorMod(room.hashCode(), nodes.size()));
+    }
+
+    public NodeClient getMatchmakingNode() {
+        return nodes.get(0);
+    }
+
+    public List<NodeClient> getConnectedNodes() {
+        List<NodeClient> connected = new ArrayList<>(nodes.size());
+        for (NodeClient node : nodes) {
+            if (node.isConnected()) {
+                connected.add(node);
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * Disconnects the clients that had a session on {@code node}, whose rooms went with it.
+     */
+    public void nodeLost(NodeClient node) {
+        lobby.nodeLost(node);
+        for (GatewaySession session : sessions.values()) {
+            session.nodeLost(node);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.FrameDecoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A game node's end of a link from a {@link Gateway}. Every client the gateway forwards gets its
+ * own {@link ClientSession} here, opened by its first frame and closed when the gateway says the
+ * client has gone, so rooms cannot tell these clients from direct ones. The gateway enforces
+ * rate limits and the message size at the edge, so these sessions are not limited again.
+ */
+public class GatewayLink implements Runnable {
+    private static final Logger LOGGER = Logger.getLogger(GatewayLink.class.getName());
+
+    private final Socket socket;
+    private final Server server;
+    // Only touched by the thread reading the link
+    private final Map<Integer, ClientSession> sessions = new HashMap<>();
+    private final FrameDecoder decoder = new FrameDecoder();
+    private NodeLink link;
+
+    public GatewayLink(Socket socket, Server server) {
+        this.socket = socket;
+        this.server = server;
+    }
+
+    @Override
+    public void run() {
+        LOGGER.info("Gateway linked from " + socket.getRemoteSocketAddress());
+        try {
+            link = new NodeLink(socket);
+            while (link.read()) {
+                int id = link.getSession();
+                if (link.getKind() == NodeLink.DATA) {
+                    sessions.computeIfAbsent(id, this::openSession).handleFrames(decoder, link.getBody());
+                } else if (link.getKind() == NodeLink.CLOSE) {
+                    ClientSession session = sessions.remove(id);
+                    if (session != null) {
+                        session.close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Gateway link failed", e);
+        } finally {
+            LOGGER.info("Gateway link from " + socket.getRemoteSocketAddress() + " closed with "
+                    + sessions.size() + " client(s)");
+            // Every client behind the gateway is gone as far as this node can tell
+            for (ClientSession session : sessions.values()) {
+                session.close();
+            }
+            sessions.clear();
+            if (link != null) {
+                link.close();
+            } else {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // Already gone
+                }
+            }
+        }
+    }
+
+    private ClientSession openSession(int id) {
+        return new ClientSession(server, new LinkedConnection(link, id), RequestLimits.NONE);
+    }
+
+    /**
+     * A client as seen from the node: its events go back over the link, tagged with its session.
+     * The gateway reads the link without ever blocking on a client, so there is no outbound queue
+     * here; each client's own queue is at the gateway.
+     */
+    static final class LinkedConnection implements ClientConnection {
+        private final NodeLink link;
+        private final int session;
+        private volatile boolean closed;
+
+        LinkedConnection(NodeLink link, int session) {
+            this.link = link;
+            this.session = session;
+        }
+
+        @Override
+        public void send(Event event) throws IOException {
+            send(SharedEvent.of(event));
+        }
+
+        @Override
+        public void send(SharedEvent event) throws IOException {
+            List<SharedEvent> events = new ArrayList<>(1);
+            events.add(event);
+            sendBatch(events);
+        }
+
+        @Override
+        public void sendBatch(List<SharedEvent> events) throws IOException {
+            if (closed) {
+                for (SharedEvent event : events) {
+                    event.release();
+                }
+                throw new IOException("Client session closed");
+            }
+            link.sendEvents(session, events);
+        }
+
+        @Override
+        public void sendRooms(List<Room> rooms) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(rooms);
+            }
+            link.send(NodeLink.ROOMS, session, ByteBuffer.wrap(bytes.toByteArray()));
+        }
+
+        // The session itself closes once the gateway has dropped the client and says so
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                link.sendClose(session);
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close session " + session, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.FrameCodec;
+import com.yourpackage.protocol.Opcode;
+import com.yourpackage.protocol.RoomSummary;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * The lobbies of every game node as one. The gateway subscribes to each node's lobby feed and
+ * keeps the merged room list, which answers binary {@code GET_ROOMS} without asking the nodes,
+ * tells the gateway which node holds a room, and feeds the gateway's own lobby subscribers.
+ * <p>
+ * Room ids are only unique per node, so they are renumbered as {@code id * nodes + node}.
+ * The nodes already batch their deltas per interval; they are passed on as they arrive.
+ */
+public class GatewayLobby {
+    private static final Logger LOGGER = Logger.getLogger(GatewayLobby.class.getName());
+
+    private final int nodeCount;
+    private final Set<ClientConnection> subscribers = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock lock = new ReentrantLock();
+    // Gateway-wide room id to its summary, and room creator to the node holding it
+    private final Map<Long, RoomSummary> rooms = new HashMap<>();
+    private final Map<String, NodeClient> nodesByCreator = new ConcurrentHashMap<>();
+
+    public GatewayLobby(int nodeCount) {
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * Sends the merged lobby and adds {@code connection} to the feed.
+     */
+    public void subscribe(ClientConnection connection) throws IOException {
+        lock.lock();
+        try {
+            if (subscribers.contains(connection)) {
+                return;
+            }
+            connection.send(Event.roomList(new ArrayList<>(rooms.values())));
+            subscribers.add(connection);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void unsubscribe(ClientConnection connection) {
+        subscribers.remove(connection);
+    }
+
+    public List<RoomSummary> summaries() {
+        lock.lock();
+        try {
+            return new ArrayList<>(rooms.values());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The node holding the room created by {@code creator}, as of the last lobby update, or null.
+     */
+    public NodeClient nodeOf(String creator) {
+        return nodesByCreator.get(creator);
+    }
+
+    /**
+     * Applies the lobby events in a frame from {@code node}'s feed: its opening {@code ROOM_LIST},
+     * then deltas.
+     */
+    public void update(NodeClient node, ByteBuffer frames) throws ProtocolException {
+        lock.lock();
+        try {
+            List<SharedEvent> changes = new ArrayList<>();
+            Event event;
+            while ((event = FrameCodec.decodeEvent(frames)) != null) {
+                switch (event.getOpcode()) {
+                    case Opcode.ROOM_LIST -> {
+                        for (RoomSummary room : event.getRooms()) {
+                            changes.add(SharedEvent.of(Event.lobbyRoom(put(node, room))));
+                        }
+                    }
+                    case Opcode.LOBBY_ROOM -> changes.add(SharedEvent.of(Event.lobbyRoom(put(node, event.getRoom()))));
+                    case Opcode.LOBBY_ROOM_REMOVED -> {
+                        long id = globalId(node, event.getRoomId());
+                        remove(node, id);
+                        changes.add(SharedEvent.of(Event.lobbyRoomRemoved(id)));
+                    }
+                    default -> LOGGER.fine("Ignoring lobby event " + event);
+                }
+            }
+            publish(changes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the rooms of a node whose link went down; they come back with its next snapshot.
+     */
+    public void nodeLost(NodeClient node) {
+        lock.lock();
+        try {
+            List<SharedEvent> changes = new ArrayList<>();
+            Iterator<RoomSummary> iterator = rooms.values().iterator();
+            while (iterator.hasNext()) {
+                RoomSummary room = iterator.next();
+                if (room.id() % nodeCount == node.getIndex()) {
+                    iterator.remove();
+                    nodesByCreator.remove(room.creator(), node);
+                    changes.add(SharedEvent.of(Event.lobbyRoomRemoved(room.id())));
+                }
+            }
+            publish(changes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private RoomSummary put(NodeClient node, RoomSummary room) {
+        RoomSummary renumbered = new RoomSummary(globalId(node, room.id()), room.creator(), room.players(),
+                room.maxPlayers(), room.started());
+        rooms.put(renumbered.id(), renumbered);
+        nodesByCreator.put(room.creator(), node);
+        return renumbered;
+    }
+
+    private void remove(NodeClient node, long id) {
+        RoomSummary room = rooms.remove(id);
+        if (room != null) {
+            nodesByCreator.remove(room.creator(), node);
+        }
+    }
+
+    private long globalId(NodeClient node, long id) {
+        return id * nodeCount + node.getIndex();
+    }
+
+    // Called with the lock held, so subscribers see every node's changes in the order applied
+    private void publish(List<SharedEvent> changes) {
+        for (ClientConnection subscriber : subscribers) {
+            try {
+                for (SharedEvent event : changes) {
+                    subscriber.send(event.retain());
+                }
+            } catch (IOException e) {
+                LOGGER.fine("Dropping lobby subscriber: " + e.getMessage());
+                subscribers.remove(subscriber);
+            }
+        }
+        for (SharedEvent event : changes) {
+            event.release();
+        }
+    }
+}
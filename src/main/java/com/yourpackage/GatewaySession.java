@@ -0,0 +1,322 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Command;
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.FrameCodec;
+import com.yourpackage.protocol.FrameDecoder;
+import com.yourpackage.protocol.MessageTooLargeException;
+import com.yourpackage.protocol.Opcode;
+import com.yourpackage.protocol.TextCommandParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.net.ProtocolException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A client of the {@link Gateway}. Heartbeats, rate limits and lobby requests are handled here;
+ * every other command is re-encoded as a binary frame and forwarded to the node holding its room,
+ * where it runs in a {@link ClientSession} of its own. Events come back the same way and are
+ * queued for the client in whichever protocol it speaks.
+ */
+public class GatewaySession implements RequestHandler {
+    private static final Logger LOGGER = Logger.getLogger(GatewaySession.class.getName());
+    private static final int INITIAL_FRAME_SIZE = 256;
+    private static final ObjectInputFilter ROOM_LIST_FILTER = ObjectInputFilter.Config.createFilter(
+            "com.yourpackage.Room;com.yourpackage.Player;java.util.*;java.lang.*;!*");
+
+    private final Gateway gateway;
+    private final int id;
+    private final ClientConnection connection;
+    private final TextCommandParser textParser = new TextCommandParser();
+    private final RequestLimits limits;
+    // Nodes holding a session for this client, to be told when it goes away
+    private final Set<NodeClient> nodes = ConcurrentHashMap.newKeySet();
+    // Tables the matchmaker seated this client at, which may be on a node the name does not lead to
+    private final Map<String, NodeClient> matchedRooms = new ConcurrentHashMap<>();
+    // A string client's GET_ROOMS is answered from every node's rooms, merged
+    private final ReentrantLock roomsLock = new ReentrantLock();
+    private List<Room> gatheredRooms;
+    private int awaitedRoomLists;
+    private int roomListRequests;
+    // Only used by the thread reading the client
+    private ByteBuffer frame = ByteBuffer.allocate(INITIAL_FRAME_SIZE);
+    private Heartbeat heartbeat;
+    private volatile boolean closed;
+
+    public GatewaySession(Gateway gateway, int id, ClientConnection connection) {
+        this.gateway = gateway;
+        this.id = id;
+        this.connection = connection;
+        this.limits = RequestLimits.of(gateway.getConfig());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public void startHeartbeat(Runnable close, boolean enforced) {
+        heartbeat = gateway.newHeartbeat(connection, close);
+        if (heartbeat != null) {
+            heartbeat.start(enforced);
+        }
+    }
+
+    @Override
+    public void handleRequest(String request) throws IOException {
+        touch();
+        Command command;
+        try {
+            command = textParser.parse(request);
+        } catch (ProtocolException e) {
+            reject(e);
+            return;
+        }
+        handle(command, true);
+    }
+
+    @Override
+    public void handleFrames(FrameDecoder decoder, ByteBuffer buffer) throws IOException {
+        touch();
+        while (true) {
+            Command command;
+            try {
+                command = decoder.decode(buffer);
+            } catch (ProtocolException e) {
+                reject(e);
+                continue;
+            }
+            if (command == null) {
+                return;
+            }
+            handle(command, false);
+        }
+    }
+
+    @Override
+    public void rejectOversized(MessageTooLargeException e) {
+        LOGGER.info("Closing connection: " + e.getMessage());
+        Metrics.messageTooLarge();
+        try {
+            connection.send(Event.error(e.getMessage()));
+        } catch (IOException ignored) {
+            // Closing anyway
+        }
+        connection.close();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (heartbeat != null) {
+            heartbeat.stop();
+        }
+        gateway.getLobby().unsubscribe(connection);
+        for (NodeClient node : nodes) {
+            node.closeSession(id);
+        }
+        gateway.sessionClosed(this);
+    }
+
+    /**
+     * Queues the events a node sent this client. Called on the node's link thread.
+     */
+    public void deliver(NodeClient node, ByteBuffer frames) {
+        List<SharedEvent> events = new ArrayList<>();
+        try {
+            Event event;
+            while ((event = FrameCodec.decodeEvent(frames)) != null) {
+                if (event.getOpcode() == Opcode.MATCH_FOUND) {
+                    matchedRooms.put(event.getName(), node);
+                }
+                events.add(SharedEvent.of(event));
+            }
+        } catch (ProtocolException e) {
+            LOGGER.log(Level.WARNING, "Dropping malformed events from node " + node.getIndex(), e);
+        }
+        try {
+            connection.sendBatch(events);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to deliver events to session " + id, e);
+        }
+    }
+
+    /**
+     * One node's share of a string client's {@code GET_ROOMS}, as a serialized room list.
+     */
+    @SuppressWarnings("unchecked")
+    public void roomsReceived(ByteBuffer serialized) {
+        List<Room> rooms;
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(serialized.array(), serialized.position(), serialized.remaining()))) {
+            in.setObjectInputFilter(ROOM_LIST_FILTER);
+            rooms = (List<Room>) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            LOGGER.log(Level.WARNING, "Dropping malformed room list", e);
+            rooms = List.of();
+        }
+        roomListReceived(rooms);
+    }
+
+    /**
+     * The node closed this client, as a room does when it closes; the client is disconnected just
+     * as it would be from a single server.
+     */
+    public void closedByNode() {
+        connection.close();
+    }
+
+    /**
+     * A node this client has a session on went down, taking the session with it.
+     */
+    public void nodeLost(NodeClient node) {
+        if (nodes.contains(node)) {
+            connection.close();
+        }
+    }
+
+    private void touch() {
+        if (heartbeat != null) {
+            heartbeat.touch();
+        }
+    }
+
+    private void reject(ProtocolException e) throws IOException {
+        LOGGER.fine("Rejected request: " + e.getMessage());
+        Metrics.requestRejected();
+        connection.send(Event.error(e.getMessage()));
+    }
+
+    private void handle(Command command, boolean strings) throws IOException {
+        int opcode = command.getOpcode();
+        if (!limits.admit(opcode, System.nanoTime())) {
+            Metrics.requestThrottled(opcode);
+            connection.send(Event.error("Too many requests"));
+            return;
+        }
+        switch (opcode) {
+            case Opcode.PONG -> {
+                if (heartbeat != null) {
+                    heartbeat.enforce();
+                }
+            }
+            case Opcode.GET_ROOMS -> {
+                if (strings) {
+                    gatherRooms(command);
+                } else {
+                    connection.send(Event.roomList(gateway.getLobby().summaries()));
+                }
+            }
+            case Opcode.SUBSCRIBE_LOBBY -> gateway.getLobby().subscribe(connection);
+            case Opcode.UNSUBSCRIBE_LOBBY -> gateway.getLobby().unsubscribe(connection);
+            case Opcode.QUICK_PLAY, Opcode.CANCEL_QUICK_PLAY -> forward(gateway.getMatchmakingNode(), command);
+            default -> {
+                if (command.getRoom() == null) {
+                    reject(new ProtocolException("Unexpected opcode " + opcode));
+                    return;
+                }
+                forward(nodeFor(command.getRoom()), command);
+            }
+        }
+    }
+
+    private NodeClient nodeFor(String room) {
+        NodeClient node = matchedRooms.get(room);
+        if (node == null) {
+            node = gateway.getLobby().nodeOf(room);
+        }
+        return node != null ? node : gateway.shard(room);
+    }
+
+    private void forward(NodeClient node, Command command) throws IOException {
+        if (!send(node, command)) {
+            connection.send(Event.error("Game server unavailable"));
+        }
+    }
+
+    private boolean send(NodeClient node, Command command) {
+        if (closed || !node.isConnected()) {
+            return false;
+        }
+        while (true) {
+            try {
+                frame.clear();
+                FrameCodec.encodeCommand(command, frame);
+                break;
+            } catch (BufferOverflowException e) {
+                frame = ByteBuffer.allocate(frame.capacity() * 2);
+            }
+        }
+        nodes.add(node);
+        try {
+            node.send(id, frame.flip());
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to forward to node " + node.getIndex(), e);
+            return false;
+        }
+    }
+
+    // Requests arriving while a gather is out are answered with its result, which is just as fresh
+    private void gatherRooms(Command command) {
+        List<NodeClient> connected = gateway.getConnectedNodes();
+        roomsLock.lock();
+        try {
+            roomListRequests++;
+            if (gatheredRooms != null) {
+                return;
+            }
+            gatheredRooms = new ArrayList<>();
+            awaitedRoomLists = connected.size() + 1;
+        } finally {
+            roomsLock.unlock();
+        }
+        for (NodeClient node : connected) {
+            if (!send(node, command)) {
+                roomListReceived(List.of());
+            }
+        }
+        // Held back until every request is out, so a quick reply cannot finish the gather early
+        roomListReceived(List.of());
+    }
+
+    private void roomListReceived(List<Room> rooms) {
+        List<Room> merged;
+        int requests;
+        roomsLock.lock();
+        try {
+            if (gatheredRooms == null) {
+                return;
+            }
+            gatheredRooms.addAll(rooms);
+            if (--awaitedRoomLists > 0) {
+                return;
+            }
+            merged = gatheredRooms;
+            requests = roomListRequests;
+            gatheredRooms = null;
+            roomListRequests = 0;
+        } finally {
+            roomsLock.unlock();
+        }
+        try {
+            for (int i = 0; i < requests; i++) {
+                connection.sendRooms(merged);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to send rooms to session " + id, e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.CardCodes;
+
+/**
+ * A set of cards as a bit mask over the card codes. Since codes are {@code suit * 13 + rank},
+ * each suit occupies its own 13 bits and can be tested or extracted with a shift.
+ */
+public final class Hand {
+    private static final long SUIT_MASK = (1L << CardCodes.RANKS.length) - 1;
+
+    private long mask;
+
+    public void add(Card card) {
+        mask |= 1L << card.getCode();
+    }
+
+    /**
+     * Removes {@code card}, returning false if it was not in the hand.
+     */
+    public boolean remove(Card card) {
+        long bit = 1L << card.getCode();
+        boolean present = (mask & bit) != 0;
+        mask &= ~bit;
+        return present;
+    }
+
+    public boolean contains(Card card) {
+        return (mask & (1L << card.getCode())) != 0;
+    }
+
+    public int size() {
+        return Long.bitCount(mask);
+    }
+
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    public void clear() {
+        mask = 0;
+    }
+
+    public long getMask() {
+        return mask;
+    }
+
+    /**
+     * The ranks held in {@code suit}, one bit per rank index.
+     */
+    public int suitMask(int suit) {
+        return (int) ((mask >>> (suit * CardCodes.RANKS.length)) & SUIT_MASK);
+    }
+
+    public boolean hasSuit(int suit) {
+        return suitMask(suit) != 0;
+    }
+
+    /**
+     * Card codes in suit then rank order, as sent in {@code DEAL_CARDS}.
+     */
+    public byte[] toCodes() {
+        byte[] codes = new byte[size()];
+        long remaining = mask;
+        for (int i = 0; remaining != 0; i++) {
+            codes[i] = (byte) Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+        }
+        return codes;
+    }
+}
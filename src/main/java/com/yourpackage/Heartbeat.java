@@ -0,0 +1,96 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Event;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Read-idle tracking for one connection, checked on the server's timer wheel instead of a thread
+ * or socket timeout per connection. A connection quiet for an interval is sent a {@code PING};
+ * one quiet for the timeout is closed, which runs the transport's usual disconnect cleanup.
+ * <p>
+ * String clients that predate heartbeats never answer, so for them the timeout only applies once
+ * they have sent a {@code PONG}; until then a dead peer is only noticed when a write fails.
+ */
+public class Heartbeat {
+    private static final Logger LOGGER = Logger.getLogger(Heartbeat.class.getName());
+
+    private final TimerWheel scheduler;
+    private final long intervalNanos;
+    private final long timeoutNanos;
+    private final ClientConnection connection;
+    private final Runnable close;
+    private volatile long lastReadNanos = System.nanoTime();
+    private volatile boolean enforced;
+    private volatile boolean stopped;
+
+    /**
+     * @param close tears the connection down when the peer is considered dead
+     */
+    public Heartbeat(TimerWheel scheduler, long intervalMillis, long timeoutMillis, ClientConnection connection,
+                     Runnable close) {
+        this.scheduler = scheduler;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.connection = connection;
+        this.close = close;
+    }
+
+    /**
+     * Starts checking. With {@code enforced} false, nothing happens until {@link #enforce}.
+     */
+    public void start(boolean enforced) {
+        this.enforced = enforced;
+        schedule();
+    }
+
+    /**
+     * Applies pings and the idle timeout from now on, for clients that have shown they answer.
+     */
+    public void enforce() {
+        enforced = true;
+    }
+
+    /**
+     * Records that the peer sent something.
+     */
+    public void touch() {
+        lastReadNanos = System.nanoTime();
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    private void schedule() {
+        scheduler.schedule(this::check, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Runs on the timer thread; sending only queues the ping and closing never blocks
+    private void check() {
+        if (stopped) {
+            return;
+        }
+        if (enforced) {
+            long idle = System.nanoTime() - lastReadNanos;
+            if (idle >= timeoutNanos) {
+                LOGGER.info("Closing connection idle for " + TimeUnit.NANOSECONDS.toMillis(idle) + " ms");
+                Metrics.heartbeatTimedOut();
+                close.run();
+                return;
+            }
+            if (idle >= intervalNanos) {
+                try {
+                    connection.send(Event.ping());
+                } catch (IOException e) {
+                    LOGGER.fine("Closing connection after failed ping: " + e.getMessage());
+                    close.run();
+                    return;
+                }
+            }
+        }
+        schedule();
+    }
+}
@@ -0,0 +1,177 @@
+package com.yourpackage;
+
+/**
+ * Picks a bot's hokm and cards by determinized Monte Carlo search. Each iteration deals the cards
+ * the bot cannot see at random among the other seats, respecting the hand sizes and the suits they
+ * have shown they lack, then plays every candidate move out to the end of the hand with random
+ * legal cards. All candidates share the same deal, and the one with the best total wins once the
+ * deadline passes.
+ * <p>
+ * Nothing is allocated per playout, so one instance per thread sustains hundreds of thousands of
+ * playouts per second. Instances are not thread-safe.
+ */
+public final class HokmSimulator {
+    // A won hand outweighs any trick margin
+    private static final int WIN_SCORE = 2 * HokmState.HAND_SIZE;
+
+    private final HokmState root = new HokmState();
+    private final HokmState deal = new HokmState();
+    private final HokmState playout = new HokmState();
+    private final int[] unseen = new int[Card.DECK_SIZE];
+    private final long[] totals = new long[Card.DECK_SIZE];
+    private long seed;
+    private long playouts;
+
+    public HokmSimulator(long seed) {
+        this.seed = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+    }
+
+    /**
+     * The card the seat to move in {@code position} should play, searched until
+     * {@code deadlineNanos} on the {@link System#nanoTime} clock. At least one deal is always
+     * searched, and a forced card is returned at once.
+     */
+    public int chooseCard(HokmState position, long deadlineNanos) {
+        int me = position.me;
+        long legal = position.legalMoves(position.hands[me]);
+        if (Long.bitCount(legal) <= 1) {
+            return Long.numberOfTrailingZeros(legal);
+        }
+        for (long moves = legal; moves != 0; moves &= moves - 1) {
+            totals[Long.numberOfTrailingZeros(moves)] = 0;
+        }
+        int team = position.teams[me];
+        do {
+            determinize(position, deal);
+            for (long moves = legal; moves != 0; moves &= moves - 1) {
+                int card = Long.numberOfTrailingZeros(moves);
+                playout.copyFrom(deal);
+                playout.play(me, card);
+                totals[card] += playOut(playout, team);
+            }
+        } while (System.nanoTime() < deadlineNanos);
+        return best(legal);
+    }
+
+    /**
+     * The hokm for the master in {@code position}, a new deal in which it holds its first five
+     * cards. Each suit is played out from the same full deals, with the master leading.
+     */
+    public int chooseHokm(HokmState position, long deadlineNanos) {
+        root.copyFrom(position);
+        root.setHokm(0);
+        int me = root.me;
+        int team = root.teams[me];
+        for (int suit = 0; suit < 4; suit++) {
+            totals[suit] = 0;
+        }
+        do {
+            determinize(root, deal);
+            for (int suit = 0; suit < 4; suit++) {
+                playout.copyFrom(deal);
+                playout.hokm = suit;
+                totals[suit] += playOut(playout, team);
+            }
+        } while (System.nanoTime() < deadlineNanos);
+        return best(0xFL);
+    }
+
+    /**
+     * Playouts run since this simulator was created.
+     */
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    /**
+     * Copies {@code position} into {@code into} with every hand filled up to its size from the
+     * cards its own seat cannot see, dealt at random. A seat only gets cards of a suit it has shown
+     * it lacks when nothing else is left.
+     */
+    public void determinize(HokmState position, HokmState into) {
+        into.copyFrom(position);
+        long hidden = HokmState.DECK & ~(position.hands[position.me] | position.played);
+        for (int seat = 0; seat < position.seats; seat++) {
+            hidden &= ~position.hands[seat];
+        }
+        int count = 0;
+        for (long cards = hidden; cards != 0; cards &= cards - 1) {
+            unseen[count++] = Long.numberOfTrailingZeros(cards);
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            int card = unseen[i];
+            unseen[i] = unseen[j];
+            unseen[j] = card;
+        }
+        for (int seat = 0; seat < position.seats; seat++) {
+            int needed = position.handSizes[seat] - Long.bitCount(position.hands[seat]);
+            if (needed <= 0) {
+                continue;
+            }
+            int voids = position.voids[seat];
+            // Taken cards are swapped out of unseen[0..count)
+            for (int i = 0; i < count && needed > 0; ) {
+                int card = unseen[i];
+                if ((voids & (1 << TrickRules.suitOf(card))) == 0) {
+                    into.hands[seat] |= 1L << card;
+                    unseen[i] = unseen[--count];
+                    needed--;
+                } else {
+                    i++;
+                }
+            }
+            while (needed > 0 && count > 0) {
+                into.hands[seat] |= 1L << unseen[--count];
+                needed--;
+            }
+        }
+    }
+
+    /**
+     * Plays {@code state} out with random legal cards and scores the result for {@code team}:
+     * its trick margin, plus a bonus if it took the hand.
+     */
+    public int playOut(HokmState state, int team) {
+        while (!state.isOver()) {
+            int seat = state.turn;
+            long legal = state.legalMoves(state.hands[seat]);
+            if (legal == 0) {
+                // Only if the position was inconsistent, such as a seat having left mid-hand
+                break;
+            }
+            state.play(seat, randomCard(legal));
+        }
+        playouts++;
+        int own = state.teamTricks[team];
+        int margin = own - state.teamTricks[1 - team];
+        return own >= HokmState.TRICKS_TO_WIN ? WIN_SCORE + margin : margin;
+    }
+
+    private int best(long candidates) {
+        int best = Long.numberOfTrailingZeros(candidates);
+        for (long moves = candidates & (candidates - 1); moves != 0; moves &= moves - 1) {
+            int move = Long.numberOfTrailingZeros(moves);
+            if (totals[move] > totals[best]) {
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    private int randomCard(long cards) {
+        for (int skip = nextInt(Long.bitCount(cards)); skip > 0; skip--) {
+            cards &= cards - 1;
+        }
+        return Long.numberOfTrailingZeros(cards);
+    }
+
+    // xorshift64*, inlined so the playout loop never touches a shared generator
+    private int nextInt(int bound) {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        long random = (seed * 0x2545F4914F6CDD1DL) >>> 32;
+        return (int) ((random * bound) >>> 32);
+    }
+}
@@ -0,0 +1,152 @@
+package com.yourpackage;
+
+/**
+ * A hand in play as one seat can know it: its own cards, every card played so far, the trick on
+ * the table, each team's tricks, and the suits each seat has shown it is out of. Seats are numbered
+ * in turn order. Cards are {@link Hand}-style bit masks over card codes and everything is updated
+ * in place, so a search can copy a state and play it forward without allocating.
+ */
+public final class HokmState {
+    public static final int MAX_SEATS = 4;
+    public static final int HAND_SIZE = 13;
+    public static final int TRICKS_TO_WIN = 7;
+    public static final int NO_HOKM = -1;
+    static final long DECK = (1L << Card.DECK_SIZE) - 1;
+
+    int seats;
+    int me;
+    int hokm = NO_HOKM;
+    int leader;
+    int turn;
+    int trickSize;
+    long played;
+    final int[] teams = new int[MAX_SEATS];
+    // Only the cards this seat can see; a search fills in the others' with a guess
+    final long[] hands = new long[MAX_SEATS];
+    final int[] handSizes = new int[MAX_SEATS];
+    // One bit per suit the seat failed to follow
+    final int[] voids = new int[MAX_SEATS];
+    // Cards of the current trick, in the order they were played from the leader
+    final int[] trick = new int[MAX_SEATS];
+    final int[] teamTricks = new int[2];
+
+    /**
+     * Starts a new deal at a table of {@code seats}, seen from seat {@code me}. Teams are kept.
+     */
+    public void newDeal(int seats, int me, int leader) {
+        this.seats = seats;
+        this.me = me;
+        this.leader = leader;
+        this.turn = leader;
+        hokm = NO_HOKM;
+        trickSize = 0;
+        played = 0;
+        for (int seat = 0; seat < MAX_SEATS; seat++) {
+            hands[seat] = 0;
+            handSizes[seat] = seat < seats ? 5 : 0;
+            voids[seat] = 0;
+        }
+        teamTricks[0] = 0;
+        teamTricks[1] = 0;
+    }
+
+    public void setTeam(int seat, int team) {
+        teams[seat] = team;
+    }
+
+    /**
+     * Records the hokm; the rest of the cards are dealt with it, so every hand is full from here.
+     */
+    public void setHokm(int suit) {
+        hokm = suit;
+        for (int seat = 0; seat < seats; seat++) {
+            handSizes[seat] = HAND_SIZE;
+        }
+    }
+
+    public void setHand(long hand) {
+        hands[me] = hand;
+    }
+
+    /**
+     * Whose turn the room says it is; the first turn of a trick makes that seat the leader.
+     */
+    public void setTurn(int seat) {
+        turn = seat;
+        if (trickSize == 0) {
+            leader = seat;
+        }
+    }
+
+    public void setTricks(int teamA, int teamB) {
+        teamTricks[0] = teamA;
+        teamTricks[1] = teamB;
+    }
+
+    /**
+     * Plays {@code card} from {@code seat}, which must be the seat to move. Returns the seat that
+     * won the trick if this card completed it, which then leads the next one, or -1.
+     */
+    public int play(int seat, int card) {
+        long bit = 1L << card;
+        hands[seat] &= ~bit;
+        handSizes[seat]--;
+        played |= bit;
+        if (trickSize > 0 && TrickRules.suitOf(card) != TrickRules.suitOf(trick[0])) {
+            voids[seat] |= 1 << TrickRules.suitOf(trick[0]);
+        }
+        trick[trickSize++] = card;
+        if (trickSize < seats) {
+            turn = seat + 1 == seats ? 0 : seat + 1;
+            return -1;
+        }
+        int winner = leader + TrickRules.winner(hokm, trick, trickSize);
+        if (winner >= seats) {
+            winner -= seats;
+        }
+        teamTricks[teams[winner]]++;
+        trickSize = 0;
+        leader = winner;
+        turn = winner;
+        return winner;
+    }
+
+    /**
+     * The cards of {@code hand} that may be played now: the led suit if it holds any, else all.
+     */
+    public long legalMoves(long hand) {
+        return TrickRules.legalMoves(hand, trickSize == 0 ? TrickRules.NO_SUIT : TrickRules.suitOf(trick[0]));
+    }
+
+    /**
+     * Whether the hand is decided: one team has its seven tricks, or the cards have run out.
+     */
+    public boolean isOver() {
+        return teamTricks[0] >= TRICKS_TO_WIN || teamTricks[1] >= TRICKS_TO_WIN || handSizes[turn] == 0;
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    public int getTeamTricks(int team) {
+        return teamTricks[team];
+    }
+
+    public void copyFrom(HokmState other) {
+        seats = other.seats;
+        me = other.me;
+        hokm = other.hokm;
+        leader = other.leader;
+        turn = other.turn;
+        trickSize = other.trickSize;
+        played = other.played;
+        System.arraycopy(other.teams, 0, teams, 0, MAX_SEATS);
+        System.arraycopy(other.hands, 0, hands, 0, MAX_SEATS);
+        System.arraycopy(other.handSizes, 0, handSizes, 0, MAX_SEATS);
+        System.arraycopy(other.voids, 0, voids, 0, MAX_SEATS);
+        System.arraycopy(other.trick, 0, trick, 0, MAX_SEATS);
+        teamTricks[0] = other.teamTricks[0];
+        teamTricks[1] = other.teamTricks[1];
+    }
+}
@@ -0,0 +1,99 @@
+package com.yourpackage;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free log-linear histogram in the style of HdrHistogram. Each power of two is split into
+ * 16 linear buckets, so any recorded value is reported within about 6% of its true value while
+ * the whole range of a {@code long} fits in under a thousand counters.
+ * Recording only updates atomics and never allocates.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 2) << (SUB_BITS - 1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getTotalCount() {
+        return total.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public double getMean() {
+        long count = total.sum();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * The highest value in the bucket holding the given percentile, 0 to 100.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = total.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Calls {@code consumer} with the upper bound and count of every non-empty bucket, in order.
+     */
+    public void forEachBucket(BucketConsumer consumer) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = counts.get(i);
+            if (count != 0) {
+                consumer.accept(highestValueOf(i), count);
+            }
+        }
+    }
+
+    public interface BucketConsumer {
+        void accept(long upperBound, long count);
+    }
+
+    // Values below SUB_BUCKETS map to themselves; above, the top SUB_BITS bits pick the bucket
+    static int indexOf(long value) {
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return (shift << (SUB_BITS - 1)) + (int) (value >>> shift);
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >> (SUB_BITS - 1)) - 1;
+        long subBucket = index - ((long) shift << (SUB_BITS - 1));
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
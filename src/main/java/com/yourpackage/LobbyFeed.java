@@ -0,0 +1,126 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.RoomSummary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Pushes lobby changes to subscribed clients. A subscriber gets one {@code ROOM_LIST} snapshot,
+ * then {@code LOBBY_ROOM}/{@code LOBBY_ROOM_REMOVED} deltas. Changes are collected per room and
+ * flushed at most once per interval, so a room that changes many times in between costs one
+ * event per subscriber.
+ */
+public class LobbyFeed {
+    private static final Logger LOGGER = Logger.getLogger(LobbyFeed.class.getName());
+
+    private final RoomRegistry registry;
+    private final TimerWheel scheduler;
+    private final long intervalMillis;
+    private final Set<ClientConnection> subscribers = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock lock = new ReentrantLock();
+    // Room id to the changed room, or to null once it is removed
+    private Map<Long, Room> changed = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    public LobbyFeed(RoomRegistry registry, TimerWheel scheduler, long intervalMillis) {
+        this.registry = registry;
+        this.scheduler = scheduler;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Sends the current lobby and adds {@code connection} to the feed. Deltas queued before the
+     * snapshot may be delivered again after it; they are idempotent.
+     */
+    public void subscribe(ClientConnection connection) throws IOException {
+        lock.lock();
+        try {
+            if (subscribers.contains(connection)) {
+                return;
+            }
+            connection.send(Event.roomList(registry.summaries()));
+            subscribers.add(connection);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void unsubscribe(ClientConnection connection) {
+        subscribers.remove(connection);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public void roomChanged(Room room) {
+        if (room.isClosed()) {
+            return;
+        }
+        record(room.getId(), room);
+    }
+
+    public void roomRemoved(Room room) {
+        record(room.getId(), null);
+    }
+
+    private void record(long id, Room room) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            changed.put(id, room);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                scheduler.schedule(this::flush, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flush() {
+        lock.lock();
+        try {
+            flushScheduled = false;
+            if (changed.isEmpty()) {
+                return;
+            }
+            List<SharedEvent> events = new ArrayList<>(changed.size());
+            for (Map.Entry<Long, Room> entry : changed.entrySet()) {
+                Room room = entry.getValue();
+                events.add(SharedEvent.of(room == null
+                        ? Event.lobbyRoomRemoved(entry.getKey()) : Event.lobbyRoom(room.getSummary())));
+            }
+            changed = new LinkedHashMap<>();
+
+            for (ClientConnection subscriber : subscribers) {
+                try {
+                    for (SharedEvent event : events) {
+                        subscriber.send(event.retain());
+                    }
+                } catch (IOException e) {
+                    // Disconnected clients fall out of the feed on the first failed push
+                    LOGGER.fine("Dropping lobby subscriber: " + e.getMessage());
+                    subscribers.remove(subscriber);
+                }
+            }
+            for (SharedEvent event : events) {
+                event.release();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
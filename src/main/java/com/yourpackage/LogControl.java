@@ -0,0 +1,46 @@
+package com.yourpackage;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class LogControl implements LogControlMXBean {
+    private static final Logger LOGGER = Logger.getLogger(LogControl.class.getName());
+    private static final String OBJECT_NAME = "com.yourpackage:type=LogControl";
+
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to register " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public Map<String, String> getLevels() {
+        return EventLog.getLevels();
+    }
+
+    @Override
+    public void setLevel(String category, String level) {
+        EventLog.of(category).setLevel(Level.parse(level.trim().toUpperCase()));
+    }
+
+    @Override
+    public Map<String, Integer> getSampleRates() {
+        return EventLog.getSampleRates();
+    }
+
+    @Override
+    public void setSampleRate(String category, int every) {
+        EventLog.of(category).setSampleEvery(every);
+    }
+
+    @Override
+    public long getDroppedRecords() {
+        return Metrics.getLogRecordsDropped();
+    }
+}
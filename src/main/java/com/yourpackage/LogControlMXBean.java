@@ -0,0 +1,19 @@
+package com.yourpackage;
+
+import java.util.Map;
+
+/**
+ * Runtime control of {@link EventLog} categories, registered as {@code com.yourpackage:type=LogControl}.
+ * Levels are {@code java.util.logging} level names; sample rates keep one event in n.
+ */
+public interface LogControlMXBean {
+    Map<String, String> getLevels();
+
+    void setLevel(String category, String level);
+
+    Map<String, Integer> getSampleRates();
+
+    void setSampleRate(String category, int every);
+
+    long getDroppedRecords();
+}
@@ -2,7 +2,13 @@ package com.yourpackage;
 
 public class Main {
     public static void main(String[] args) {
-        Server server = new Server();
+        ServerConfig config = ServerConfig.fromSystemProperties();
+        EventLog.configure(config);
+        if (!config.getGatewayNodes().isEmpty()) {
+            new Gateway(config).start();
+            return;
+        }
+        Server server = new Server(config);
         server.start();
     }
-}
\ No newline at end of file
+}
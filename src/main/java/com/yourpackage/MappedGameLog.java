@@ -0,0 +1,472 @@
+package com.yourpackage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * A write-ahead {@link GameLog} in fixed-size memory-mapped segment files. Appending copies the
+ * record into the mapping and returns; a background thread forces the written range to disk every
+ * few milliseconds, so many records share one fsync and no game command waits for the disk.
+ * <p>
+ * Each record is {@code length:u32 crc32c:u32} followed by {@code type:u8 roomId:u64} and the
+ * payload. Segments are zero-filled, so a zero length marks the end; replay stops at the first
+ * record whose length or checksum is wrong, which is where a crash cut the log. That segment is
+ * truncated there, and any segments after it are renamed aside rather than replayed, so the next
+ * recovery reads past the cut again. A segment is deleted once every room with records in it has
+ * been closed.
+ */
+public class MappedGameLog implements GameLog, AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(MappedGameLog.class.getName());
+    private static final String SUFFIX = ".wal";
+    private static final String SKIPPED_SUFFIX = ".skipped";
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 128 * 1024;
+
+    private static final int ROOM_CREATED = 1;
+    private static final int PLAYER_JOINED = 2;
+    private static final int PLAYER_LEFT = 3;
+    private static final int CARDS_DEALT = 4;
+    private static final int HOKM_SELECTED = 5;
+    private static final int CARD_PLAYED = 6;
+    private static final int TRICK_WON = 7;
+    private static final int ROUND_WON = 8;
+    private static final int GAME_OVER = 9;
+    private static final int ROOM_CLOSED = 10;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_SIZE);
+    private final CRC32C checksum = new CRC32C();
+    private final List<Segment> sealed = new ArrayList<>();
+    // Sealed segments the syncer has not forced to disk yet
+    private final List<Segment> unsynced = new ArrayList<>();
+    private final Thread syncer;
+    private final long highestRoomId;
+    private Segment current;
+    private long nextSegmentIndex;
+    private volatile boolean closed;
+
+    private MappedGameLog(Path directory, int segmentSize, long syncMillis, long nextSegmentIndex,
+                          List<Segment> retained, long highestRoomId) throws IOException {
+        this.directory = directory;
+        this.highestRoomId = highestRoomId;
+        this.segmentSize = segmentSize;
+        this.nextSegmentIndex = nextSegmentIndex;
+        this.sealed.addAll(retained);
+        this.current = openSegment();
+        this.syncer = new Thread(() -> syncLoop(syncMillis), "game-log-sync");
+        this.syncer.setDaemon(true);
+        this.syncer.start();
+    }
+
+    /**
+     * Replays every intact record under {@code directory} into {@code recovery}, then opens a new
+     * segment for appending. Segments whose rooms are all closed are deleted on the way; a torn
+     * record is cut off, and the segments after it are kept aside under a {@code .skipped} name.
+     */
+    public static MappedGameLog open(Path directory, int segmentSize, long syncMillis, GameLog recovery)
+            throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        Set<Long> closedRooms = new HashSet<>();
+        long nextIndex = 0;
+        boolean intact = true;
+        for (Path file : files) {
+            Segment segment = new Segment(file);
+            nextIndex = Math.max(nextIndex, segment.index + 1);
+            if (!intact) {
+                // Written after the cut, so its records may depend on ones that were lost
+                LOGGER.warning("Game log " + file + " follows a torn record; keeping it as " + SKIPPED_SUFFIX);
+                Files.move(file, file.resolveSibling(file.getFileName() + SKIPPED_SUFFIX));
+                continue;
+            }
+            long tornAt = replay(segment, recovery, closedRooms);
+            if (tornAt >= 0) {
+                intact = false;
+                truncate(file, tornAt);
+            }
+            segments.add(segment);
+        }
+
+        long highestRoomId = 0;
+        List<Segment> retained = new ArrayList<>();
+        for (Segment segment : segments) {
+            for (long roomId : segment.rooms) {
+                highestRoomId = Math.max(highestRoomId, roomId);
+            }
+            segment.rooms.removeAll(closedRooms);
+            if (segment.rooms.isEmpty()) {
+                segment.delete();
+            } else {
+                retained.add(segment);
+            }
+        }
+        LOGGER.info("Game log replayed " + files.size() + " segment(s), kept " + retained.size());
+        return new MappedGameLog(directory, segmentSize, syncMillis, nextIndex, retained, highestRoomId);
+    }
+
+    /**
+     * The highest room id found in the retained log. New rooms must be numbered above it, or
+     * their records would be mistaken for a closed room's leftovers on the next replay.
+     */
+    public long getHighestRoomId() {
+        return highestRoomId;
+    }
+
+    // Returns the offset of the first torn record, after which nothing can be trusted, or -1
+    private static long replay(Segment segment, GameLog target, Set<Long> closedRooms) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int length = buffer.getInt();
+            int expected = buffer.getInt();
+            if (length == 0) {
+                return -1;
+            }
+            if (length < 9 || length > buffer.remaining()) {
+                LOGGER.warning("Game log " + segment.path + " ends in a torn record");
+                return buffer.position() - RECORD_HEADER_SIZE;
+            }
+            ByteBuffer body = buffer.slice(buffer.position(), length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != expected) {
+                LOGGER.warning("Game log " + segment.path + " has a bad checksum at " + (buffer.position() - 8));
+                return buffer.position() - RECORD_HEADER_SIZE;
+            }
+            buffer.position(buffer.position() + length);
+
+            int type = body.get();
+            long roomId = body.getLong();
+            segment.rooms.add(roomId);
+            if (type == ROOM_CLOSED) {
+                closedRooms.add(roomId);
+            }
+            try {
+                dispatch(type, roomId, body, target);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Skipping game log record " + type + " of room " + roomId, e);
+            }
+        }
+        return -1;
+    }
+
+    // A shorter file reads as ending there, so the next replay goes on to the following segments
+    private static void truncate(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            channel.force(true);
+        }
+    }
+
+    private static void dispatch(int type, long roomId, ByteBuffer body, GameLog target) {
+        switch (type) {
+            case ROOM_CREATED -> target.roomCreated(roomId, getString(body), body.getInt(), body.getInt());
+            case PLAYER_JOINED -> target.playerJoined(roomId, getString(body));
+            case PLAYER_LEFT -> target.playerLeft(roomId, getString(body));
+            case CARDS_DEALT -> target.cardsDealt(roomId, body.getLong(), body.getShort() & 0xFFFF);
+            case HOKM_SELECTED -> target.hokmSelected(roomId, body.get() & 0xFF);
+            case CARD_PLAYED -> target.cardPlayed(roomId, body.getShort() & 0xFFFF, body.get() & 0xFF);
+            case TRICK_WON -> target.trickWon(roomId, body.getShort() & 0xFFFF);
+            case ROUND_WON -> target.roundWon(roomId, body.get() & 0xFF);
+            case GAME_OVER -> target.gameOver(roomId);
+            case ROOM_CLOSED -> target.roomClosed(roomId);
+            default -> LOGGER.warning("Unknown game log record " + type);
+        }
+    }
+
+    @Override
+    public void roomCreated(long roomId, String creator, int maxPlayers, int totalRounds) {
+        lock.lock();
+        try {
+            begin(ROOM_CREATED, roomId);
+            putString(creator);
+            record.putInt(maxPlayers).putInt(totalRounds);
+            append(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void playerJoined(long roomId, String player) {
+        lock.lock();
+        try {
+            begin(PLAYER_JOINED, roomId);
+            putString(player);
+            append(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void playerLeft(long roomId, String player) {
+        lock.lock();
+        try {
+            begin(PLAYER_LEFT, roomId);
+            putString(player);
+            append(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void cardsDealt(long roomId, long seed, int masterSeat) {
+        lock.lock();
+        try {
+            begin(CARDS_DEALT, roomId);
+            record.putLong(seed).putShort((short) masterSeat);
+            append(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void hokmSelected(long roomId, int suit) {
+        lock.lock();
+        try {
+            begin(HOKM_SELECTED, roomId);
+            record.put((byte) suit);
+            append(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void cardPlayed(long roomId, int seat, int card) {
+        lock.lock();
+        try {
+            begin(CARD_PLAYED, roomId);
+            record.putShort((short) seat).put((byte) card);
+            append(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void trickWon(long roomId, int seat) {
+        lock.lock();
+        try {
+            begin(TRICK_WON, roomId);
+            record.putShort((short) seat);
+            append(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void roundWon(long roomId, int team) {
+        lock.lock();
+        try {
+            begin(ROUND_WON, roomId);
+            record.put((byte) team);
+            append(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void gameOver(long roomId) {
+        lock.lock();
+        try {
+            begin(GAME_OVER, roomId);
+            append(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void roomClosed(long roomId) {
+        lock.lock();
+        try {
+            begin(ROOM_CLOSED, roomId);
+            append(roomId);
+            current.rooms.remove(roomId);
+            for (int i = sealed.size() - 1; i >= 0; i--) {
+                Segment segment = sealed.get(i);
+                if (segment.rooms.remove(roomId) && segment.rooms.isEmpty()) {
+                    segment.delete();
+                    sealed.remove(i);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void begin(int type, long roomId) {
+        record.clear();
+        record.position(RECORD_HEADER_SIZE);
+        record.put((byte) type).putLong(roomId);
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Name too long for the game log");
+        }
+        record.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer body) {
+        byte[] bytes = new byte[body.getShort() & 0xFFFF];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void append(long roomId) {
+        if (closed) {
+            return;
+        }
+        int length = record.position() - RECORD_HEADER_SIZE;
+        checksum.reset();
+        checksum.update(record.array(), RECORD_HEADER_SIZE, length);
+        record.putInt(0, length).putInt(4, (int) checksum.getValue());
+        record.flip();
+        try {
+            if (current.buffer.remaining() < record.remaining() + RECORD_HEADER_SIZE) {
+                rollOver();
+            }
+            current.buffer.put(record);
+            current.rooms.add(roomId);
+        } catch (IOException | BufferOverflowException e) {
+            LOGGER.log(Level.SEVERE, "Failed to append to the game log", e);
+        }
+    }
+
+    // Seals the current segment and maps the next one; the syncer forces the sealed one to disk
+    private void rollOver() throws IOException {
+        Segment full = current;
+        current = openSegment();
+        if (full.rooms.isEmpty()) {
+            full.delete();
+        } else {
+            sealed.add(full);
+            unsynced.add(full);
+        }
+    }
+
+    private Segment openSegment() throws IOException {
+        Path path = directory.resolve(String.format("%016d%s", nextSegmentIndex++, SUFFIX));
+        Segment segment = new Segment(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        return segment;
+    }
+
+    private void syncLoop(long syncMillis) {
+        while (!closed) {
+            try {
+                Thread.sleep(syncMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            sync();
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk, sealed segments first. The copy into the mapping
+     * happens under the lock; the fsync itself does not hold it.
+     */
+    public void sync() {
+        List<Segment> full;
+        MappedByteBuffer buffer;
+        int from;
+        int to;
+        lock.lock();
+        try {
+            full = unsynced.isEmpty() ? List.of() : new ArrayList<>(unsynced);
+            unsynced.clear();
+            Segment segment = current;
+            buffer = segment.buffer;
+            from = segment.synced;
+            to = buffer == null ? from : buffer.position();
+            segment.synced = to;
+        } finally {
+            lock.unlock();
+        }
+        for (Segment segment : full) {
+            // Only appended to before it was sealed, so its position is final
+            force(segment.buffer, segment.synced, segment.buffer.position());
+            segment.buffer = null;
+        }
+        force(buffer, from, to);
+    }
+
+    private static void force(MappedByteBuffer buffer, int from, int to) {
+        if (to > from) {
+            try {
+                buffer.force(from, to - from);
+            } catch (UncheckedIOException e) {
+                LOGGER.log(Level.SEVERE, "Failed to sync the game log", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        sync();
+        closed = true;
+        syncer.interrupt();
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final long index;
+        // Rooms with records here that have not been closed yet
+        private final Set<Long> rooms = new HashSet<>();
+        private MappedByteBuffer buffer;
+        private int synced;
+
+        Segment(Path path) {
+            this.path = path;
+            String name = path.getFileName().toString();
+            this.index = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        }
+
+        void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to delete game log segment " + path, e);
+            }
+        }
+    }
+}
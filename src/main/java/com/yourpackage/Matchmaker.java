@@ -0,0 +1,289 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Event;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@code QUICK_PLAY} queue. Requests only go into a lock-free inbox; a tick on the timer wheel
+ * drains it into one queue per table size and rating band, and deals out every full table it can
+ * at once. Each table gets a new room that is registered, filled and started under its own lock,
+ * so no {@code JOIN_ROOM} can race the matched players for a seat.
+ * <p>
+ * A rated player who has waited out {@code bandTimeoutMillis} moves to the unrated queue of
+ * their table size, so a thin band never strands them.
+ * <p>
+ * A matched room has no creator at the table to close it, so it closes once its last player has
+ * left or disconnected.
+ */
+public class Matchmaker {
+    private static final Logger LOGGER = Logger.getLogger(Matchmaker.class.getName());
+    private static final EventLog EVENTS = EventLog.of("match");
+    public static final int[] TABLE_SIZES = {2, 4};
+    private static final int ANY_BAND = -1;
+    private static final int ROUNDS = 7;
+
+    private record QueueKey(int tableSize, int band) {
+    }
+
+    private static final class Ticket {
+        final String name;
+        final ClientConnection connection;
+        final ClientSession session;
+        final int tableSize;
+        final int rating;
+        final long enqueuedNanos;
+        int band;
+        boolean cancelled;
+
+        Ticket(String name, ClientConnection connection, ClientSession session, int tableSize, int rating) {
+            this.name = name;
+            this.connection = connection;
+            this.session = session;
+            this.tableSize = tableSize;
+            this.rating = rating;
+            this.enqueuedNanos = System.nanoTime();
+        }
+    }
+
+    private final Server server;
+    private final TimerWheel scheduler;
+    private final long tickMillis;
+    private final int ratingBand;
+    private final long bandTimeoutNanos;
+    // Written by any session thread, drained by the tick: a Ticket to queue or a name to cancel
+    private final Queue<Object> inbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean tickScheduled = new AtomicBoolean();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final Set<Room> rooms = ConcurrentHashMap.newKeySet();
+    // Only touched by the tick, which the timer wheel never runs twice at once
+    private final Map<QueueKey, ArrayDeque<Ticket>> queues = new HashMap<>();
+    private final Map<String, Ticket> queued = new HashMap<>();
+    private long nextTable = 1;
+    private Ticket unavailable;
+
+    public Matchmaker(Server server, TimerWheel scheduler, long tickMillis, int ratingBand, long bandTimeoutMillis) {
+        this.server = server;
+        this.scheduler = scheduler;
+        this.tickMillis = tickMillis;
+        this.ratingBand = ratingBand;
+        this.bandTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(bandTimeoutMillis);
+    }
+
+    public static boolean isValidTableSize(int tableSize) {
+        return tableSize == 2 || tableSize == 4;
+    }
+
+    /**
+     * Queues {@code name}, replacing any earlier request under the same name. A rating of 0
+     * matches with anyone.
+     */
+    public void enqueue(String name, ClientConnection connection, ClientSession session, int tableSize, int rating) {
+        inbox.add(new Ticket(name, connection, session, tableSize, rating));
+        scheduleTick();
+    }
+
+    public void cancel(String name) {
+        inbox.add(name);
+        scheduleTick();
+    }
+
+    public boolean isMatchRoom(Room room) {
+        return rooms.contains(room);
+    }
+
+    public void roomClosed(Room room) {
+        rooms.remove(room);
+    }
+
+    /**
+     * Players waiting as of the last tick.
+     */
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    private void scheduleTick() {
+        if (tickScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::tick, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void tick() {
+        tickScheduled.set(false);
+        try {
+            drainInbox();
+            long now = System.nanoTime();
+            widenBands(now);
+            formTables(now);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Matchmaking tick failed", e);
+        }
+        queuedCount.set(queued.size());
+        if (!queued.isEmpty()) {
+            scheduleTick();
+        }
+    }
+
+    private void drainInbox() {
+        Object request;
+        while ((request = inbox.poll()) != null) {
+            if (request instanceof Ticket ticket) {
+                remove(ticket.name);
+                ticket.band = ticket.rating > 0 ? ticket.rating / ratingBand : ANY_BAND;
+                queued.put(ticket.name, ticket);
+                queueFor(ticket).add(ticket);
+            } else {
+                remove((String) request);
+            }
+        }
+    }
+
+    // Cancelled tickets are skipped when they reach the head of their queue
+    private void remove(String name) {
+        Ticket ticket = queued.remove(name);
+        if (ticket != null) {
+            ticket.cancelled = true;
+        }
+    }
+
+    private ArrayDeque<Ticket> queueFor(Ticket ticket) {
+        return queues.computeIfAbsent(new QueueKey(ticket.tableSize, ticket.band), key -> new ArrayDeque<>());
+    }
+
+    // Each queue is in arrival order, so only its head can have waited out the band timeout
+    private void widenBands(long now) {
+        List<Ticket> widened = new ArrayList<>();
+        for (Map.Entry<QueueKey, ArrayDeque<Ticket>> entry : queues.entrySet()) {
+            if (entry.getKey().band() == ANY_BAND) {
+                continue;
+            }
+            ArrayDeque<Ticket> queue = entry.getValue();
+            Ticket head;
+            while ((head = queue.peek()) != null && (head.cancelled || now - head.enqueuedNanos >= bandTimeoutNanos)) {
+                queue.poll();
+                if (!head.cancelled) {
+                    widened.add(head);
+                }
+            }
+        }
+        for (Ticket ticket : widened) {
+            ticket.band = ANY_BAND;
+            queueFor(ticket).add(ticket);
+        }
+    }
+
+    private void formTables(long now) {
+        Iterator<ArrayDeque<Ticket>> queueIterator = queues.values().iterator();
+        while (queueIterator.hasNext()) {
+            ArrayDeque<Ticket> queue = queueIterator.next();
+            List<Ticket> table;
+            while ((table = takeTable(queue)) != null) {
+                seat(table, now);
+            }
+            if (queue.isEmpty()) {
+                queueIterator.remove();
+            }
+        }
+    }
+
+    // The oldest live tickets of a full table, or null with the queue left as it was
+    private static List<Ticket> takeTable(ArrayDeque<Ticket> queue) {
+        Ticket first = queue.peek();
+        while (first != null && isGone(first)) {
+            queue.poll();
+            first = queue.peek();
+        }
+        if (first == null) {
+            return null;
+        }
+        List<Ticket> table = new ArrayList<>(first.tableSize);
+        Ticket ticket;
+        while (table.size() < first.tableSize && (ticket = queue.poll()) != null) {
+            if (!isGone(ticket)) {
+                table.add(ticket);
+            }
+        }
+        if (table.size() < first.tableSize) {
+            for (int i = table.size() - 1; i >= 0; i--) {
+                queue.addFirst(table.get(i));
+            }
+            return null;
+        }
+        return table;
+    }
+
+    // Disconnected players cancel their ticket on close, but that may still be in the inbox
+    private static boolean isGone(Ticket ticket) {
+        return ticket.cancelled || ticket.session.isClosed();
+    }
+
+    private void seat(List<Ticket> table, long now) {
+        int tableSize = table.size();
+        unavailable = null;
+        Room room;
+        do {
+            // Null when the generated name is taken, so the next is tried, or when a player was unavailable
+            room = server.createRoom("match-" + nextTable++, tableSize, ROUNDS, created -> seat(created, table));
+        } while (room == null && unavailable == null);
+
+        if (room == null) {
+            // One of them sat down somewhere else in the meantime; the rest wait for the next table
+            queued.remove(unavailable.name);
+            for (int i = table.size() - 1; i >= 0; i--) {
+                Ticket ticket = table.get(i);
+                if (ticket != unavailable) {
+                    queueFor(ticket).addFirst(ticket);
+                }
+            }
+            return;
+        }
+        for (Ticket ticket : table) {
+            queued.remove(ticket.name);
+            Metrics.matchMade(tableSize, now - ticket.enqueuedNanos);
+        }
+        EVENTS.log(Level.INFO, "matched", "room", room.getCreator(), "players", tableSize);
+    }
+
+    // Runs under the new room's lock, before any other command can reach it
+    private boolean seat(Room room, List<Ticket> table) {
+        List<Ticket> claimed = new ArrayList<>(table.size());
+        for (Ticket ticket : table) {
+            if (!server.reservePlayer(room, ticket.name)) {
+                unavailable = ticket;
+                for (Ticket claim : claimed) {
+                    server.releasePlayer(room, claim.name);
+                }
+                return false;
+            }
+            claimed.add(ticket);
+        }
+        for (Ticket ticket : table) {
+            try {
+                ticket.connection.send(Event.matchFound(room.getCreator()));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to announce match to " + ticket.name, e);
+            }
+            server.joinRoom(room, new Player(ticket.name, ticket.connection));
+            ticket.session.roomJoined(room);
+        }
+        rooms.add(room);
+        room.startGame();
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.MessageTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read for the current message and fails once they pass the limit, so an
+ * {@code ObjectInputStream} reading a huge string stops partway instead of buffering all of it.
+ */
+public class MessageLimitInputStream extends FilterInputStream {
+    private final int maxLength;
+    private long count;
+
+    public MessageLimitInputStream(InputStream in, int maxLength) {
+        super(in);
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Starts counting the next message.
+     */
+    public void startMessage() {
+        count = 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            consumed(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            consumed(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        consumed(skipped);
+        return skipped;
+    }
+
+    private void consumed(long n) throws MessageTooLargeException {
+        count += n;
+        if (count > maxLength) {
+            throw new MessageTooLargeException(count, maxLength);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Opcode;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and latency histograms recorded on the hot paths. Recording only touches
+ * atomics; {@link ServerMetrics} reads them when scraped.
+ */
+public final class Metrics {
+    // Indexed by opcode; only assigned opcodes get a histogram
+    private static final LatencyHistogram[] COMMAND_NANOS = histograms();
+    private static final LatencyHistogram[] BROADCAST_NANOS = histograms();
+    private static final LongAdder BROADCAST_RECIPIENTS = new LongAdder();
+    private static final LongAdder REJECTED_REQUESTS = new LongAdder();
+    private static final LongAdder[] THROTTLED_REQUESTS = counters();
+    private static final LongAdder OVERSIZED_MESSAGES = new LongAdder();
+    private static final LongAdder WRITE_FAILURES = new LongAdder();
+    private static final LongAdder CONNECTIONS_OPENED = new LongAdder();
+    private static final AtomicLong ACTIVE_CONNECTIONS = new AtomicLong();
+    private static final LongAdder GAMES_STARTED = new LongAdder();
+    private static final LongAdder GAMES_FINISHED = new LongAdder();
+    private static final LongAdder HEARTBEAT_TIMEOUTS = new LongAdder();
+    private static final LongAdder BOT_PLAYOUTS = new LongAdder();
+    private static final LongAdder LOG_RECORDS_DROPPED = new LongAdder();
+    private static final LongAdder SESSIONS_RESUMED = new LongAdder();
+    private static final LongAdder SESSIONS_REBUILT = new LongAdder();
+    private static final LongAdder EVENTS_REPLAYED = new LongAdder();
+    // Indexed by table size
+    private static final LatencyHistogram[] MATCH_WAIT_NANOS = {null, null, new LatencyHistogram(), null,
+            new LatencyHistogram()};
+
+    private Metrics() {
+    }
+
+    private static LatencyHistogram[] histograms() {
+        LatencyHistogram[] histograms = new LatencyHistogram[256];
+        for (int opcode = 0; opcode < histograms.length; opcode++) {
+            if (Opcode.nameOf(opcode) != null) {
+                histograms[opcode] = new LatencyHistogram();
+            }
+        }
+        return histograms;
+    }
+
+    private static LongAdder[] counters() {
+        LongAdder[] counters = new LongAdder[256];
+        for (int opcode = 0; opcode < counters.length; opcode++) {
+            if (Opcode.nameOf(opcode) != null) {
+                counters[opcode] = new LongAdder();
+            }
+        }
+        return counters;
+    }
+
+    public static void commandHandled(int opcode, long nanos) {
+        LatencyHistogram histogram = COMMAND_NANOS[opcode & 0xFF];
+        if (histogram != null) {
+            histogram.record(nanos);
+        }
+    }
+
+    public static void broadcastSent(int opcode, int recipients, long nanos) {
+        LatencyHistogram histogram = BROADCAST_NANOS[opcode & 0xFF];
+        if (histogram != null) {
+            histogram.record(nanos);
+        }
+        BROADCAST_RECIPIENTS.add(recipients);
+    }
+
+    public static void requestRejected() {
+        REJECTED_REQUESTS.increment();
+    }
+
+    public static void requestThrottled(int opcode) {
+        LongAdder counter = THROTTLED_REQUESTS[opcode & 0xFF];
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    public static void messageTooLarge() {
+        OVERSIZED_MESSAGES.increment();
+    }
+
+    public static void writeFailed() {
+        WRITE_FAILURES.increment();
+    }
+
+    public static void connectionOpened() {
+        CONNECTIONS_OPENED.increment();
+        ACTIVE_CONNECTIONS.incrementAndGet();
+    }
+
+    public static void connectionClosed() {
+        ACTIVE_CONNECTIONS.decrementAndGet();
+    }
+
+    public static void gameStarted() {
+        GAMES_STARTED.increment();
+    }
+
+    public static void gameFinished() {
+        GAMES_FINISHED.increment();
+    }
+
+    public static void matchMade(int tableSize, long waitNanos) {
+        MATCH_WAIT_NANOS[tableSize].record(waitNanos);
+    }
+
+    public static void heartbeatTimedOut() {
+        HEARTBEAT_TIMEOUTS.increment();
+    }
+
+    public static void botPlayouts(long count) {
+        BOT_PLAYOUTS.add(count);
+    }
+
+    public static void logRecordDropped() {
+        LOG_RECORDS_DROPPED.increment();
+    }
+
+    /**
+     * A player resumed their seat and was sent the {@code replayed} game events they missed.
+     */
+    public static void sessionResumed(int replayed) {
+        SESSIONS_RESUMED.increment();
+        EVENTS_REPLAYED.add(replayed);
+    }
+
+    /**
+     * A player resumed their seat after more events than are kept, so was sent the table instead.
+     */
+    public static void sessionRebuilt() {
+        SESSIONS_RESUMED.increment();
+        SESSIONS_REBUILT.increment();
+    }
+
+    /**
+     * The command histogram for {@code opcode}, or null if the opcode is unassigned.
+     */
+    public static LatencyHistogram getCommandLatency(int opcode) {
+        return COMMAND_NANOS[opcode & 0xFF];
+    }
+
+    public static LatencyHistogram getBroadcastLatency(int opcode) {
+        return BROADCAST_NANOS[opcode & 0xFF];
+    }
+
+    public static long getBroadcastRecipients() {
+        return BROADCAST_RECIPIENTS.sum();
+    }
+
+    public static long getRejectedRequests() {
+        return REJECTED_REQUESTS.sum();
+    }
+
+    public static long getThrottledRequests(int opcode) {
+        LongAdder counter = THROTTLED_REQUESTS[opcode & 0xFF];
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public static long getOversizedMessages() {
+        return OVERSIZED_MESSAGES.sum();
+    }
+
+    public static long getWriteFailures() {
+        return WRITE_FAILURES.sum();
+    }
+
+    public static long getConnectionsOpened() {
+        return CONNECTIONS_OPENED.sum();
+    }
+
+    public static long getActiveConnections() {
+        return ACTIVE_CONNECTIONS.get();
+    }
+
+    public static long getGamesStarted() {
+        return GAMES_STARTED.sum();
+    }
+
+    public static long getGamesFinished() {
+        return GAMES_FINISHED.sum();
+    }
+
+    public static LatencyHistogram getMatchWait(int tableSize) {
+        return MATCH_WAIT_NANOS[tableSize];
+    }
+
+    public static long getHeartbeatTimeouts() {
+        return HEARTBEAT_TIMEOUTS.sum();
+    }
+
+    public static long getBotPlayouts() {
+        return BOT_PLAYOUTS.sum();
+    }
+
+    public static long getLogRecordsDropped() {
+        return LOG_RECORDS_DROPPED.sum();
+    }
+
+    public static long getSessionsResumed() {
+        return SESSIONS_RESUMED.sum();
+    }
+
+    public static long getSessionsRebuilt() {
+        return SESSIONS_REBUILT.sum();
+    }
+
+    public static long getEventsReplayed() {
+        return EVENTS_REPLAYED.sum();
+    }
+}
@@ -0,0 +1,53 @@
+package com.yourpackage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+/**
+ * Serves {@link ServerMetrics} as plain text on {@code GET /metrics}, for a Prometheus scraper or
+ * curl. Runs on its own thread so a scrape never waits behind game traffic.
+ */
+public class MetricsEndpoint {
+    private static final Logger LOGGER = Logger.getLogger(MetricsEndpoint.class.getName());
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final ServerMetrics metrics;
+    private final HttpServer httpServer;
+
+    public MetricsEndpoint(ServerMetrics metrics, String host, int port) throws IOException {
+        this.metrics = metrics;
+        this.httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.httpServer.createContext("/metrics", this::handle);
+    }
+
+    public void start() {
+        httpServer.start();
+        LOGGER.info("Metrics available at http://" + httpServer.getAddress().getHostString() + ":"
+                + httpServer.getAddress().getPort() + "/metrics");
+    }
+
+    public void stop() {
+        httpServer.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = metrics.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.FrameCodec;
+import com.yourpackage.protocol.FrameDecoder;
+import com.yourpackage.protocol.MessageTooLargeException;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One client on the non-blocking transport. The first byte the client sends picks the protocol;
+ * either way, flushing the outbound stream queues the bytes for the owning event loop instead of
+ * writing to the socket.
+ */
+public class NioConnection {
+    private static final Logger LOGGER = Logger.getLogger(NioConnection.class.getName());
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    // Largest TC_STRING record (tag, u16 length, 65535 bytes) and largest binary frame (u8, u16, 65535 bytes)
+    private static final int MAX_BUFFER_SIZE = 65538;
+    // The outbound queue stops draining into the socket buffers above this many unsent bytes
+    private static final int WRITE_HIGH_WATER_MARK = 64 * 1024;
+    // Most queued buffers handed to one gathering write
+    private static final int MAX_GATHER = 64;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final NioTransport.EventLoop loop;
+    private final Frontend server;
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    // Only used on the event loop
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private final ChannelOutputStream channelOut = new ChannelOutputStream();
+    private final ObjectOutputStream out;
+    private RequestHandler session;
+    private OutboundQueue outbound;
+    private SerializedStringReader reader;
+    private FrameDecoder decoder;
+    private ByteBuffer inbound = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    public NioConnection(SocketChannel channel, SelectionKey key, NioTransport.EventLoop loop, Frontend server)
+            throws IOException {
+        this.channel = channel;
+        this.key = key;
+        this.loop = loop;
+        this.server = server;
+        // Written before anything is read, exactly as the blocking handler does
+        this.out = new ObjectOutputStream(channelOut);
+        this.out.flush();
+        Metrics.connectionOpened();
+    }
+
+    void onReadable() {
+        try {
+            if (!inbound.hasRemaining()) {
+                if (inbound.capacity() >= MAX_BUFFER_SIZE) {
+                    throw new IOException("Request exceeds " + MAX_BUFFER_SIZE + " bytes");
+                }
+                inbound = ByteBuffer.allocate(Math.min(inbound.capacity() * 2, MAX_BUFFER_SIZE))
+                        .put(inbound.flip());
+            }
+            if (channel.read(inbound) < 0) {
+                close();
+                return;
+            }
+
+            inbound.flip();
+            if (session == null && !selectProtocol()) {
+                inbound.compact();
+                return;
+            }
+            if (decoder != null) {
+                session.handleFrames(decoder, inbound);
+            } else {
+                String request;
+                while ((request = reader.next(inbound)) != null) {
+                    session.handleRequest(request);
+                }
+            }
+            inbound.compact();
+
+            if (reader != null && reader.isEndOfStream()) {
+                close();
+            }
+        } catch (MessageTooLargeException e) {
+            // The session closes the connection after its error reply has been written
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            session.rejectOversized(e);
+        } catch (IOException | RuntimeException e) {
+            // Same outcome as the blocking handler: any failure ends the session
+            LOGGER.log(Level.FINE, "Closing connection after error", e);
+            close();
+        }
+    }
+
+    private boolean selectProtocol() throws IOException {
+        if (!inbound.hasRemaining()) {
+            return false;
+        }
+        if (inbound.get(inbound.position()) != FrameCodec.MAGIC_0) {
+            reader = new SerializedStringReader(server.getConfig().getMaxMessageBytes());
+            session = server.newSession(queue(new SerializedConnection(out, channelOut)));
+            session.startHeartbeat(this::close, false);
+            return true;
+        }
+
+        int version = FrameCodec.readPreamble(inbound);
+        if (version < 0) {
+            return false;
+        }
+        BinaryConnection connection = new BinaryConnection(channelOut);
+        connection.sendHello(FrameCodec.VERSION);
+        if (version != FrameCodec.VERSION) {
+            throw new IOException("Unsupported protocol version " + version);
+        }
+        decoder = new FrameDecoder(server.getConfig().getMaxMessageBytes());
+        session = server.newSession(queue(connection));
+        session.startHeartbeat(this::close, true);
+        return true;
+    }
+
+    private OutboundQueue queue(ClientConnection connection) {
+        ServerConfig config = server.getConfig();
+        outbound = new OutboundQueue(connection, loop::schedule,
+                () -> pendingBytes.get() < WRITE_HIGH_WATER_MARK, this::close,
+                config.getOverflowPolicy(), config.getOutboundQueueCapacity());
+        return outbound;
+    }
+
+    void onWritable() {
+        writePending();
+    }
+
+    private void enqueue(ByteBuffer buffer, SharedEvent owner) {
+        pendingBytes.addAndGet(buffer.remaining());
+        pendingWrites.add(new PendingWrite(buffer, owner));
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.schedule(() -> {
+                flushScheduled.set(false);
+                writePending();
+            });
+        }
+    }
+
+    private void writePending() {
+        if (!key.isValid()) {
+            discardPending();
+            return;
+        }
+        try {
+            // A batch of events is queued as several buffers; one gathering write sends them all
+            while (!pendingWrites.isEmpty()) {
+                int count = 0;
+                long size = 0;
+                for (PendingWrite pending : pendingWrites) {
+                    gather[count++] = pending.buffer();
+                    size += pending.buffer().remaining();
+                    if (count == MAX_GATHER) {
+                        break;
+                    }
+                }
+                long written = channel.write(gather, 0, count);
+                Arrays.fill(gather, 0, count, null);
+                pendingBytes.addAndGet(-written);
+                PendingWrite head;
+                while ((head = pendingWrites.peek()) != null && !head.buffer().hasRemaining()) {
+                    pendingWrites.poll();
+                    head.written();
+                }
+                if (written < size) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (outbound != null) {
+                outbound.resume();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Write failed", e);
+            close();
+        }
+    }
+
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            Metrics.connectionClosed();
+            loop.schedule(() -> {
+                // Best effort to deliver what was flushed before close, e.g. a KICKED notice
+                writePending();
+                key.cancel();
+                NioTransport.closeQuietly(channel);
+                discardPending();
+                if (session != null) {
+                    session.close();
+                }
+            });
+        }
+    }
+
+    private void discardPending() {
+        PendingWrite pending;
+        while ((pending = pendingWrites.poll()) != null) {
+            pending.written();
+        }
+    }
+
+    /**
+     * Bytes waiting for the socket. Shared event encodings are queued by reference and released
+     * once sent.
+     */
+    private record PendingWrite(ByteBuffer buffer, SharedEvent owner) {
+        void written() {
+            if (owner != null) {
+                owner.release();
+            }
+        }
+    }
+
+    /**
+     * Collects bytes between flushes so each flush becomes one queued buffer.
+     */
+    private class ChannelOutputStream extends OutputStream implements SharedBufferOutput {
+        private byte[] buffer = new byte[256];
+        private int count;
+
+        @Override
+        public synchronized void write(int b) {
+            ensureCapacity(count + 1);
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            ensureCapacity(count + len);
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (closed.get()) {
+                throw new IOException("Connection closed");
+            }
+            if (count > 0) {
+                enqueue(ByteBuffer.wrap(Arrays.copyOf(buffer, count)), null);
+                count = 0;
+            }
+        }
+
+        @Override
+        public synchronized void writeShared(ByteBuffer bytes, SharedEvent owner) throws IOException {
+            flush();
+            enqueue(bytes, owner.retain());
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Closing again, e.g. a room closing a connection that already dropped, is a no-op
+            if (closed.get()) {
+                return;
+            }
+            try {
+                flush();
+            } finally {
+                NioConnection.this.close();
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+            }
+        }
+    }
+}
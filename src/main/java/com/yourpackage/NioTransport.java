@@ -0,0 +1,133 @@
+package com.yourpackage;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking transport: one acceptor plus a fixed set of selector loops, each serving many
+ * connections. Requests are handed to the same {@link RequestHandler} the blocking handler uses.
+ */
+public class NioTransport {
+    private static final Logger LOGGER = Logger.getLogger(NioTransport.class.getName());
+
+    private final Frontend server;
+    private final ServerConfig config;
+    private final EventLoop[] loops;
+
+    public NioTransport(Frontend server, ServerConfig config) {
+        this.server = server;
+        this.config = config;
+        this.loops = new EventLoop[config.getEventLoopThreads()];
+    }
+
+    public void start() throws IOException {
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(i);
+            loops[i].start();
+        }
+
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(config.getPort()));
+            LOGGER.info("Server is listening on port " + config.getPort() + " with " + loops.length + " event loops");
+
+            int next = 0;
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            }
+        }
+    }
+
+    /**
+     * A selector thread. Other threads only touch it through {@link #register} and
+     * {@link #schedule}, both of which hand work over via a queue and a wakeup.
+     */
+    class EventLoop extends Thread {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        EventLoop(int index) throws IOException {
+            super("nio-loop-" + index);
+            setDaemon(true);
+            this.selector = Selector.open();
+        }
+
+        void register(SocketChannel channel) {
+            schedule(() -> {
+                try {
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                    key.attach(new NioConnection(channel, key, this, server));
+                } catch (IOException e) {
+                    LOGGER.log(Level.SEVERE, "Failed to register connection", e);
+                    closeQuietly(channel);
+                }
+            });
+        }
+
+        void schedule(Runnable task) {
+            tasks.add(task);
+            if (Thread.currentThread() != this) {
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    runTasks();
+                    selector.select();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        NioConnection connection = (NioConnection) key.attachment();
+                        if (!key.isValid() || connection == null) {
+                            continue;
+                        }
+                        if (key.isReadable()) {
+                            connection.onReadable();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.onWritable();
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                LOGGER.log(Level.SEVERE, "Event loop " + getName() + " stopped", e);
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.SEVERE, "Event loop task failed", e);
+                }
+            }
+        }
+    }
+
+    static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // already closing
+        }
+    }
+}
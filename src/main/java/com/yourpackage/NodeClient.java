@@ -0,0 +1,128 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Command;
+import com.yourpackage.protocol.FrameCodec;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The gateway's link to one game node. A single persistent connection carries every client the
+ * gateway forwards there, and is reopened whenever it drops. Session 0 is the gateway's own,
+ * subscribed to the node's lobby feed.
+ */
+public class NodeClient {
+    private static final Logger LOGGER = Logger.getLogger(NodeClient.class.getName());
+    private static final int LOBBY_SESSION = 0;
+    private static final long RECONNECT_MILLIS = 1000;
+
+    private final Gateway gateway;
+    private final int index;
+    private final InetSocketAddress address;
+    private volatile NodeLink link;
+
+    public NodeClient(Gateway gateway, int index, InetSocketAddress address) {
+        this.gateway = gateway;
+        this.index = index;
+        this.address = address;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void start() {
+        Thread.ofVirtual().name("node-" + index).start(this::run);
+    }
+
+    public boolean isConnected() {
+        return link != null;
+    }
+
+    /**
+     * Forwards the binary frames in {@code frames} to the node as client {@code session}.
+     */
+    public void send(int session, ByteBuffer frames) throws IOException {
+        NodeLink current = link;
+        if (current == null) {
+            throw new IOException("Node " + index + " is not connected");
+        }
+        current.send(NodeLink.DATA, session, frames);
+    }
+
+    /**
+     * Tells the node that client {@code session} has gone.
+     */
+    public void closeSession(int session) {
+        NodeLink current = link;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.sendClose(session);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to close session " + session + " on node " + index, e);
+        }
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                Socket socket = new Socket();
+                socket.connect(new InetSocketAddress(address.getHostString(), address.getPort()));
+                try (NodeLink opened = new NodeLink(socket)) {
+                    subscribeLobby(opened);
+                    link = opened;
+                    LOGGER.info("Linked to node " + index + " at " + address.getHostString() + ":" + address.getPort());
+                    read(opened);
+                } finally {
+                    if (link != null) {
+                        link = null;
+                        LOGGER.warning("Lost the link to node " + index);
+                        gateway.nodeLost(this);
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Link to node " + index + " failed", e);
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(RECONNECT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void subscribeLobby(NodeLink opened) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(FrameCodec.HEADER_SIZE);
+        FrameCodec.encodeCommand(Command.subscribeLobby(), frame);
+        opened.send(NodeLink.DATA, LOBBY_SESSION, frame.flip());
+    }
+
+    private void read(NodeLink opened) throws IOException {
+        while (opened.read()) {
+            int session = opened.getSession();
+            if (session == LOBBY_SESSION) {
+                if (opened.getKind() == NodeLink.DATA) {
+                    gateway.getLobby().update(this, opened.getBody());
+                }
+                continue;
+            }
+            GatewaySession client = gateway.getSession(session);
+            if (client == null) {
+                continue;
+            }
+            switch (opened.getKind()) {
+                case NodeLink.DATA -> client.deliver(this, opened.getBody());
+                case NodeLink.ROOMS -> client.roomsReceived(opened.getBody());
+                case NodeLink.CLOSE -> client.closedByNode();
+                default -> LOGGER.fine("Ignoring link frame kind " + opened.getKind());
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.yourpackage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One gateway-to-node connection, carrying many clients at once. Every frame is tagged with the
+ * client's session id:
+ * <pre>
+ * kind:u8 session:i32 length:i32 body
+ * </pre>
+ * {@link #DATA} bodies are binary protocol frames, commands towards the node and events back.
+ * {@link #CLOSE} says the client has gone, when sent by the gateway, or that the node closed it.
+ * {@link #ROOMS} carries a serialized {@code List<Room>} answering a string client's
+ * {@code GET_ROOMS}.
+ * <p>
+ * Any thread may send. Writers take turns under a lock and only flush when nobody else is waiting
+ * for it, so frames that queue up behind each other leave in one write.
+ */
+public final class NodeLink implements Closeable {
+    public static final int DATA = 1;
+    public static final int CLOSE = 2;
+    public static final int ROOMS = 3;
+    // A body batches several protocol frames or holds a serialized room list, so it may exceed one frame's payload
+    public static final int MAX_BODY = 4 * 1024 * 1024;
+    private static final int HEADER_SIZE = 9;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final BufferedOutputStream out;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final byte[] header = new byte[HEADER_SIZE];
+    private byte[] scratch = new byte[256];
+    // Only used by the reading thread
+    private ByteBuffer body = ByteBuffer.allocate(1024);
+    private int kind;
+    private int session;
+
+    public NodeLink(Socket socket) throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+        this.out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+    }
+
+    /**
+     * Blocks for the next frame, then exposes it through {@link #getKind}, {@link #getSession}
+     * and {@link #getBody} until the next call. Returns false at the end of the stream.
+     */
+    public boolean read() throws IOException {
+        kind = in.read();
+        if (kind < 0) {
+            return false;
+        }
+        session = in.readInt();
+        int length = in.readInt();
+        if (length < 0 || length > MAX_BODY) {
+            throw new IOException("Bad link frame length " + length);
+        }
+        if (body.capacity() < length) {
+            body = ByteBuffer.allocate(Math.max(length, body.capacity() * 2));
+        }
+        in.readFully(body.array(), 0, length);
+        body.clear().limit(length);
+        return true;
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    public int getSession() {
+        return session;
+    }
+
+    /**
+     * The last frame's body, in read mode. Overwritten by the next {@link #read}.
+     */
+    public ByteBuffer getBody() {
+        return body;
+    }
+
+    /**
+     * Sends one frame with {@code body} from its position to its limit, which is left consumed.
+     */
+    public void send(int kind, int session, ByteBuffer body) throws IOException {
+        writeLock.lock();
+        try {
+            writeHeader(kind, session, body.remaining());
+            writeBuffer(body);
+            flushUnlessContended();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Sends {@code events} to a client as one {@link #DATA} frame. Takes over one reference to each
+     * event and releases all of them in every case, including when this throws.
+     */
+    public void sendEvents(int session, List<SharedEvent> events) throws IOException {
+        writeLock.lock();
+        try {
+            int length = 0;
+            for (SharedEvent event : events) {
+                length += event.binaryFrame().remaining();
+            }
+            writeHeader(DATA, session, length);
+            for (SharedEvent event : events) {
+                scratch = event.writeTo(out, event.binaryFrame(), scratch);
+            }
+            flushUnlessContended();
+        } finally {
+            writeLock.unlock();
+            for (SharedEvent event : events) {
+                event.release();
+            }
+        }
+    }
+
+    public void sendClose(int session) throws IOException {
+        send(CLOSE, session, ByteBuffer.allocate(0));
+    }
+
+    private void writeHeader(int kind, int session, int length) throws IOException {
+        if (length > MAX_BODY) {
+            throw new IOException("Link frame of " + length + " bytes exceeds " + MAX_BODY);
+        }
+        ByteBuffer.wrap(header).put((byte) kind).putInt(session).putInt(length);
+        out.write(header);
+    }
+
+    private void writeBuffer(ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        if (scratch.length < buffer.remaining()) {
+            scratch = new byte[Math.max(buffer.remaining(), scratch.length * 2)];
+        }
+        int length = buffer.remaining();
+        buffer.get(scratch, 0, length);
+        out.write(scratch, 0, length);
+    }
+
+    // A writer already waiting will flush after its own frame, so the bytes go out either way
+    private void flushUnlessContended() throws IOException {
+        if (!writeLock.hasQueuedThreads()) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Already gone
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.Opcode;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded queue in front of a client's connection. {@link #send} only enqueues, so a room never
+ * waits on a socket; the transport's executor drains the queue into the real connection. When a
+ * client falls {@code capacity} events behind, the configured {@link OverflowPolicy} applies.
+ */
+public class OutboundQueue implements ClientConnection {
+    private static final Logger LOGGER = Logger.getLogger(OutboundQueue.class.getName());
+    private static final Object CLOSE = new Object();
+    // Most events the drain hands to the connection for one flush
+    private static final int MAX_BATCH = 64;
+
+    private static final AtomicLong TOTAL_DEPTH = new AtomicLong();
+    private static final LongAdder TOTAL_DROPPED = new LongAdder();
+    private static final LongAdder TOTAL_COALESCED = new LongAdder();
+    private static final LongAdder OVERFLOW_DISCONNECTS = new LongAdder();
+
+    public enum OverflowPolicy {
+        /** Drop chat and notices, the incoming one or the oldest queued; disconnect if only game events are queued. */
+        DROP_CHAT,
+        /** Disconnect the client as soon as it falls behind. */
+        DISCONNECT,
+        /** Replace an older queued event that the incoming one supersedes, otherwise behave like DROP_CHAT. */
+        COALESCE
+    }
+
+    private final ClientConnection delegate;
+    private final Executor drainExecutor;
+    private final BooleanSupplier writable;
+    private final Runnable abort;
+    private final OverflowPolicy policy;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    // Only touched by the drain, which never runs twice at once
+    private final List<SharedEvent> batch = new ArrayList<>(MAX_BATCH);
+    private boolean drainScheduled;
+    private boolean closed;
+    private int maxDepth;
+    private long dropped;
+
+    /**
+     * @param drainExecutor runs the drain task; it may block in the delegate's writes
+     * @param writable      false while the transport still holds unsent bytes, pausing the drain until {@link #resume}
+     * @param abort         tears the connection down without writing anything, used on overflow
+     */
+    public OutboundQueue(ClientConnection delegate, Executor drainExecutor, BooleanSupplier writable,
+                         Runnable abort, OverflowPolicy policy, int capacity) {
+        this.delegate = delegate;
+        this.drainExecutor = drainExecutor;
+        this.writable = writable;
+        this.abort = abort;
+        this.policy = policy;
+        this.capacity = capacity;
+    }
+
+    public static long getTotalDepth() {
+        return TOTAL_DEPTH.get();
+    }
+
+    public static long getTotalDropped() {
+        return TOTAL_DROPPED.sum();
+    }
+
+    public static long getTotalCoalesced() {
+        return TOTAL_COALESCED.sum();
+    }
+
+    public static long getOverflowDisconnects() {
+        return OVERFLOW_DISCONNECTS.sum();
+    }
+
+    @Override
+    public void send(Event event) throws IOException {
+        send(SharedEvent.of(event));
+    }
+
+    @Override
+    public void send(SharedEvent event) throws IOException {
+        boolean queued = false;
+        try {
+            queued = offer(event);
+        } finally {
+            if (!queued) {
+                event.release();
+            }
+        }
+    }
+
+    /**
+     * Queues all of {@code events} at once, so the drain picks them up together and writes them
+     * with one flush.
+     */
+    @Override
+    public void sendBatch(List<SharedEvent> events) throws IOException {
+        int next = 0;
+        lock.lock();
+        try {
+            for (; next < events.size(); next++) {
+                if (!enqueue(events.get(next))) {
+                    events.get(next).release();
+                }
+            }
+        } finally {
+            lock.unlock();
+            // Only reached on overflow: the event that hit it and the rest were never queued
+            for (int i = next; i < events.size(); i++) {
+                events.get(i).release();
+            }
+        }
+        scheduleDrain();
+    }
+
+    @Override
+    public void sendRooms(List<Room> rooms) throws IOException {
+        offer(rooms);
+    }
+
+    private static void discard(Object message) {
+        if (message instanceof SharedEvent event) {
+            event.release();
+        }
+    }
+
+    // Called under the lock
+    private void clearQueue() {
+        Object message;
+        while ((message = queue.poll()) != null) {
+            if (message != CLOSE) {
+                TOTAL_DEPTH.decrementAndGet();
+                discard(message);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            // Queued behind pending events so a KICKED or ROOM_CLOSED still goes out first
+            queue.add(CLOSE);
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Restarts a drain that stopped because the transport was not writable.
+     */
+    public void resume() {
+        scheduleDrain();
+    }
+
+    public int getDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    // Returns false if the policy dropped the message
+    private boolean offer(Object message) throws IOException {
+        lock.lock();
+        try {
+            if (!enqueue(message)) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    // Called under the lock
+    private boolean enqueue(Object message) throws IOException {
+        if (closed) {
+            throw new IOException("Connection closed");
+        }
+        if (queue.size() >= capacity && !makeRoom(message)) {
+            return false;
+        }
+        queue.add(message);
+        TOTAL_DEPTH.incrementAndGet();
+        if (queue.size() > maxDepth) {
+            maxDepth = queue.size();
+        }
+        return true;
+    }
+
+    /**
+     * Applies the overflow policy. Returns true if {@code message} should still be queued, false if
+     * it was dropped; throws once the connection has been given up on.
+     */
+    private boolean makeRoom(Object message) throws IOException {
+        if (policy == OverflowPolicy.COALESCE && message instanceof SharedEvent event
+                && isSnapshot(event.getEvent()) && removeFirst(event.getEvent().getOpcode())) {
+            TOTAL_COALESCED.increment();
+            return true;
+        }
+        if (policy != OverflowPolicy.DISCONNECT) {
+            if (isChat(message)) {
+                recordDrop();
+                return false;
+            }
+            if (removeFirst(Opcode.TEXT)) {
+                recordDrop();
+                return true;
+            }
+        }
+
+        OVERFLOW_DISCONNECTS.increment();
+        LOGGER.warning("Outbound queue overflow after " + queue.size() + " events, disconnecting client");
+        clearQueue();
+        closed = true;
+        abort.run();
+        throw new IOException("Outbound queue overflow");
+    }
+
+    private boolean removeFirst(int opcode) {
+        Iterator<Object> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() instanceof SharedEvent queued && queued.getEvent().getOpcode() == opcode) {
+                iterator.remove();
+                TOTAL_DEPTH.decrementAndGet();
+                queued.release();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void recordDrop() {
+        dropped++;
+        TOTAL_DROPPED.increment();
+    }
+
+    private static boolean isChat(Object message) {
+        return message instanceof SharedEvent event && event.getEvent().getOpcode() == Opcode.TEXT;
+    }
+
+    // Events that carry the full current value, so only the newest one matters
+    private static boolean isSnapshot(Event event) {
+        switch (event.getOpcode()) {
+            case Opcode.USER_LIST:
+            case Opcode.PLAYER_LIST_UPDATE:
+            case Opcode.SCORE_UPDATE:
+            case Opcode.ROUND_WINS_UPDATE:
+            case Opcode.ROOM_LIST:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void scheduleDrain() {
+        lock.lock();
+        try {
+            if (drainScheduled || queue.isEmpty()) {
+                return;
+            }
+            drainScheduled = true;
+        } finally {
+            lock.unlock();
+        }
+        drainExecutor.execute(this::drain);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        while (true) {
+            Object message;
+            lock.lock();
+            try {
+                if (queue.isEmpty() || !writable.getAsBoolean()) {
+                    drainScheduled = false;
+                    return;
+                }
+                message = queue.poll();
+                if (message != CLOSE) {
+                    TOTAL_DEPTH.decrementAndGet();
+                }
+                // Events queued back to back go out together, with one flush
+                if (message instanceof SharedEvent event) {
+                    batch.add(event);
+                    while (batch.size() < MAX_BATCH && queue.peek() instanceof SharedEvent next) {
+                        queue.poll();
+                        TOTAL_DEPTH.decrementAndGet();
+                        batch.add(next);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (message == CLOSE) {
+                delegate.close();
+                continue;
+            }
+            try {
+                if (!batch.isEmpty()) {
+                    delegate.sendBatch(batch);
+                } else {
+                    delegate.sendRooms((List<Room>) message);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Dropping outbound queue after write failure", e);
+                Metrics.writeFailed();
+                lock.lock();
+                try {
+                    clearQueue();
+                    closed = true;
+                    drainScheduled = false;
+                } finally {
+                    lock.unlock();
+                }
+                abort.run();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
@@ -1,55 +1,73 @@
 package com.yourpackage;
 
+import com.yourpackage.protocol.Event;
+
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class Player implements Serializable {
     private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(Player.class.getName());
     private final String name;
-    private final transient ObjectOutputStream outputStream;
-    private List<Card> hand; // Assuming Card class exists
+    // Null while the player is away; a seat outlives the connections that hold it
+    private transient volatile ClientConnection connection;
+    private transient Hand hand = new Hand();
+    private transient ReplayBuffer replay;
 
-    public Player(String name, ObjectOutputStream outputStream) {
+    public Player(String name, ClientConnection connection) {
         this.name = name;
-        this.outputStream = outputStream;
+        this.connection = connection;
     }
 
     public String getName() {
         return name;
     }
 
-    public ObjectOutputStream getOutputStream() {
-        return outputStream;
+    public ClientConnection getConnection() {
+        return connection;
     }
 
-    public List<Card> getHand() {
-        return hand;
+    /**
+     * Moves the player onto {@code connection}, or leaves them without one if it is null. Called
+     * by the room under its lock.
+     */
+    void attach(ClientConnection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * The player's token and recent game events, or null if they cannot resume their seat.
+     */
+    public ReplayBuffer getReplay() {
+        return replay;
+    }
+
+    void setReplay(ReplayBuffer replay) {
+        this.replay = replay;
     }
 
-    public void setHand(List<Card> hand) {
-        this.hand = hand;
+    public Hand getHand() {
+        return hand;
     }
 
     public void closeConnections() {
-        try {
-            if (outputStream != null) {
-                outputStream.close();
-            }
-        } catch (IOException e) {
-            System.err.println("Error closing output stream for player " + name);
-            e.printStackTrace();
+        ClientConnection current = connection;
+        if (current != null) {
+            current.close();
         }
     }
 
-    public void sendMessage(String message) {
+    public void sendMessage(Event event) {
+        ClientConnection current = connection;
+        if (current == null) {
+            return;
+        }
         try {
-            outputStream.writeObject(message);
-            outputStream.flush();
+            current.send(event);
         } catch (IOException e) {
-            System.err.println("Error sending message to player " + name);
-            e.printStackTrace();
+            LOGGER.log(Level.FINE, "Failed to send to player " + name, e);
         }
     }
 }
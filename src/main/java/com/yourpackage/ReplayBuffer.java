@@ -0,0 +1,86 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.Opcode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * What a seated player needs to pick up where they left off on a new connection: a random token
+ * proving the seat is theirs, and the last game events they were sent. Game events are numbered
+ * from 1 in the order they are recorded; chat, errors and the list and score updates are not
+ * numbered, since a resumed client is simply sent their current values. Only the newest
+ * {@code capacity} events are kept. Guarded by the room lock.
+ */
+public final class ReplayBuffer {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int TOKEN_BYTES = 16;
+    private static final boolean[] REPLAYED = new boolean[256];
+
+    static {
+        int[] opcodes = {Opcode.GAME_TEAMS, Opcode.MASTER_SELECTED, Opcode.SELECT_HOKM, Opcode.HOKM_SELECTED,
+                Opcode.DEAL_CARDS, Opcode.ROUND_START, Opcode.PLAYER_TURN, Opcode.CARD_PLAYED, Opcode.TURN_WINNER,
+                Opcode.TEAM_WINS_ROUND, Opcode.TEAM_WINS_GAME, Opcode.GAME_OVER};
+        for (int opcode : opcodes) {
+            REPLAYED[opcode] = true;
+        }
+    }
+
+    private final String token;
+    private final Event[] events;
+    private int sequence;
+
+    public ReplayBuffer(int capacity) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        this.token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        this.events = new Event[capacity];
+    }
+
+    public static boolean isReplayed(Event event) {
+        return REPLAYED[event.getOpcode()];
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * The number of the last game event recorded.
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    // Compared in constant time, so the token cannot be guessed a character at a time
+    public boolean matches(String candidate) {
+        return candidate != null && MessageDigest.isEqual(token.getBytes(StandardCharsets.US_ASCII),
+                candidate.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public void record(Event event) {
+        if (REPLAYED[event.getOpcode()]) {
+            events[sequence++ % events.length] = event;
+        }
+    }
+
+    /**
+     * The game events recorded after {@code seen}, oldest first, or null if some of them are no
+     * longer kept or {@code seen} is ahead of the buffer.
+     */
+    public List<Event> since(int seen) {
+        if (seen < 0 || seen > sequence || sequence - seen > events.length) {
+            return null;
+        }
+        List<Event> missed = new ArrayList<>(sequence - seen);
+        for (int next = seen; next < sequence; next++) {
+            missed.add(events[next % events.length]);
+        }
+        return missed;
+    }
+}
@@ -0,0 +1,36 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.FrameDecoder;
+import com.yourpackage.protocol.MessageTooLargeException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * What a transport hands one connection's requests to, once it knows which protocol it speaks.
+ */
+public interface RequestHandler {
+    /**
+     * Starts pinging and timing out the connection, if heartbeats are on. Unless {@code enforced},
+     * that waits for the client's first {@code PONG}.
+     */
+    void startHeartbeat(Runnable close, boolean enforced);
+
+    void handleRequest(String request) throws IOException;
+
+    /**
+     * Runs every complete frame in {@code buffer}, leaving a partial one in place.
+     */
+    void handleFrames(FrameDecoder decoder, ByteBuffer buffer) throws IOException;
+
+    /**
+     * Answers a request over the size limit and closes the connection once the answer is out.
+     * The transport must stop reading, as the rest of the stream cannot be decoded.
+     */
+    void rejectOversized(MessageTooLargeException e);
+
+    /**
+     * Cleans up after the connection has closed.
+     */
+    void close();
+}
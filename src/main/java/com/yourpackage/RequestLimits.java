@@ -0,0 +1,50 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Opcode;
+
+/**
+ * A connection's rate limits: one token bucket for all its commands, and tighter ones for chat
+ * and room lists, as each of those costs the server far more than the client. Only used by the
+ * thread reading the connection.
+ */
+public final class RequestLimits {
+    /**
+     * For connections limited somewhere else, such as sessions forwarded by a gateway.
+     */
+    public static final RequestLimits NONE = new RequestLimits(null, null, null);
+
+    // Null when unlimited
+    private final TokenBucket commandLimit;
+    private final TokenBucket chatLimit;
+    private final TokenBucket roomListLimit;
+
+    private RequestLimits(TokenBucket commandLimit, TokenBucket chatLimit, TokenBucket roomListLimit) {
+        this.commandLimit = commandLimit;
+        this.chatLimit = chatLimit;
+        this.roomListLimit = roomListLimit;
+    }
+
+    public static RequestLimits of(ServerConfig config) {
+        return new RequestLimits(config.getCommandRateLimit().newBucket(), config.getChatRateLimit().newBucket(),
+                config.getRoomListRateLimit().newBucket());
+    }
+
+    /**
+     * Takes a token for a command with {@code opcode}, or returns false if it is over a limit.
+     */
+    public boolean admit(int opcode, long now) {
+        TokenBucket limit = switch (opcode) {
+            case Opcode.CHAT -> chatLimit;
+            case Opcode.GET_ROOMS -> roomListLimit;
+            default -> null;
+        };
+        // Tokens are only taken once both buckets admit the command, so neither refusal costs the other bucket
+        if (limit != null && !limit.hasToken(now)) {
+            return false;
+        }
+        if (commandLimit != null && !commandLimit.tryAcquire(now)) {
+            return false;
+        }
+        return limit == null || limit.tryAcquire(now);
+    }
+}
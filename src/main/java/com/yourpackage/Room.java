@@ -1,54 +1,210 @@
 package com.yourpackage;
 
+import com.yourpackage.protocol.CardCodes;
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.Opcode;
+import com.yourpackage.protocol.RoomSummary;
+
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * A game room. Only the lobby view (id, creator, seated players, teams, started flag) is
+ * serialized for string clients' {@code GET_ROOMS}; game state stays on the server.
+ */
 public class Room implements Serializable {
     private static final long serialVersionUID = 1L;
     private static final Logger LOGGER = Logger.getLogger(Room.class.getName());
+    private static final EventLog EVENTS = EventLog.of("room");
 
+    private final long id;
     private final String creator;
     private final List<Player> players;
 
-    private transient List<ObjectOutputStream> clientStreams;
+    // ReentrantLock rather than synchronized so virtual-thread sessions never pin their carrier
+    private transient ReentrantLock lock;
+    private transient List<ClientConnection> connections;
+    // What each recipient is sent while a command runs, written with one flush per recipient at its end
+    private transient Map<ClientConnection, List<SharedEvent>> batch;
+    private transient int batchDepth;
+    private transient TimerWheel scheduler;
+    private transient long trickPauseMillis;
+    private transient TimerWheel.Timeout nextTrick;
+    private transient LobbyFeed lobby;
+    private transient Executor executor;
+    private transient GameLog gameLog;
+    private transient SpectatorFeed spectators;
+    // Game events kept per player for RESUME, or 0 to issue no tokens
+    private transient int replayCapacity;
+    // Set while the room is rebuilt from the game log: outcomes come from the log, not the clock or RNG
+    private transient boolean replaying;
+    private transient volatile RoomSummary summary;
     private final int maxPlayers;
     private boolean isGameStarted;
+    private transient boolean closed;
+    private transient boolean isGameOver;
     private List<String> teamA;
     private List<String> teamB;
-    private Deck deck;
-    private Player master;
-    private String hokmSuit;
-    private int currentRound;
-    private int totalRounds;
-    private int currentPlayerIndex;
-    private Map<Player, Card> currentTurnCards;
-    private int[] teamScores;
-    private int[] teamRoundWins;
-
-    public Room(String creator, int maxPlayers, int totalRounds) {
+    private transient Deck deck;
+    private transient Player master;
+    private transient String hokmSuit;
+    private transient int hokmSuitIndex;
+    private transient int currentRound;
+    private transient int totalRounds;
+    private transient int currentPlayerIndex;
+    // The cards of the trick on the table in the order played, and the seat each came from
+    private transient int[] trickCards;
+    private transient int[] trickSeats;
+    private transient int trickSize;
+    private transient int[] teamScores;
+    private transient int[] teamRoundWins;
+
+    public Room(long id, String creator, int maxPlayers, int totalRounds, TimerWheel scheduler, long trickPauseMillis,
+                LobbyFeed lobby, Executor executor, GameLog gameLog, SpectatorFeed spectators, int replayCapacity) {
+        this.id = id;
         this.creator = creator;
         this.maxPlayers = maxPlayers;
         this.totalRounds = totalRounds;
         this.players = new ArrayList<>();
-        this.clientStreams = new ArrayList<>();
+        this.lock = new ReentrantLock();
+        this.connections = new ArrayList<>();
+        this.batch = new LinkedHashMap<>();
+        this.scheduler = scheduler;
+        this.trickPauseMillis = trickPauseMillis;
         this.isGameStarted = false;
         this.teamA = new ArrayList<>();
         this.teamB = new ArrayList<>();
-        this.deck = new Deck();
         this.currentRound = 0;
         this.currentPlayerIndex = 0;
-        this.currentTurnCards = new HashMap<>();
+        this.trickCards = new int[maxPlayers];
+        this.trickSeats = new int[maxPlayers];
         this.teamScores = new int[]{0, 0};
         this.teamRoundWins = new int[]{0, 0};
+        this.lobby = lobby;
+        this.executor = executor;
+        this.gameLog = gameLog;
+        this.spectators = spectators;
+        this.replayCapacity = replayCapacity;
+        this.summary = new RoomSummary(id, creator, 0, maxPlayers, false);
+    }
+
+    // Lobby copy taken under the lock, so serializing to a slow socket never holds up the room
+    private Room(Room room) {
+        this.id = room.id;
+        this.creator = room.creator;
+        this.maxPlayers = room.maxPlayers;
+        this.players = new ArrayList<>(room.players);
+        this.teamA = new ArrayList<>(room.teamA);
+        this.teamB = new ArrayList<>(room.teamB);
+        this.isGameStarted = room.isGameStarted;
+        this.summary = room.summary;
+    }
+
+    private Object writeReplace() {
+        lock.lock();
+        try {
+            return new Room(this);
+        } finally {
+            lock.unlock();
+        }
     }
 
     private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
-        this.clientStreams = new ArrayList<>();
+        this.lock = new ReentrantLock();
+        this.connections = new ArrayList<>();
+        this.batch = new LinkedHashMap<>();
+        this.summary = new RoomSummary(id, creator, players.size(), maxPlayers, isGameStarted);
+    }
+
+    /**
+     * Runs {@code task} on the room's worker, in submission order, or right away on the calling
+     * thread when rooms are not pinned to workers. Either way it runs as one {@link #batch}.
+     */
+    public void execute(Runnable task) {
+        executor.execute(() -> batch(task));
+    }
+
+    /**
+     * Runs {@code task} under the room lock, collecting everything it sends and writing it with a
+     * single flush per recipient once the task returns. A {@code USER_LIST} or
+     * {@code PLAYER_LIST_UPDATE} replaces the one sent earlier in the same batch.
+     */
+    public void batch(Runnable task) {
+        lock.lock();
+        try {
+            batchDepth++;
+            try {
+                task.run();
+            } finally {
+                if (--batchDepth == 0) {
+                    flushBatch();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts rebuilding this room from the game log. Until {@link #resume} the room neither writes
+     * to the log nor schedules anything, and trick and deal outcomes are taken from the records.
+     */
+    void beginReplay() {
+        replaying = true;
+    }
+
+    void replayDeal(long seed, int masterSeat) {
+        lock.lock();
+        try {
+            if (!isGameStarted) {
+                isGameStarted = true;
+                publishSummary();
+            }
+            deal(seed, masterSeat);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void replayTrick(int seat) {
+        lock.lock();
+        try {
+            winTrick(seat);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the replay and logs to {@code gameLog} from now on. A trick the crash cut off before
+     * its result was logged is resolved now, and a round that ended before the next hand was
+     * logged is dealt again.
+     */
+    void resume(GameLog gameLog) {
+        lock.lock();
+        try {
+            replaying = false;
+            this.gameLog = gameLog;
+            if (!players.isEmpty() && trickSize == players.size()) {
+                determineTurnWinner();
+            } else if (!players.isEmpty() && isGameStarted && !isGameOver && deck == null) {
+                dealNewHand();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getId() {
+        return id;
     }
 
     public int getMaxPlayers() {
@@ -59,6 +215,10 @@ public class Room implements Serializable {
         return creator;
     }
 
+    public SpectatorFeed getSpectators() {
+        return spectators;
+    }
+
     public boolean isFull() {
         return players.size() >= maxPlayers;
     }
@@ -67,11 +227,50 @@ public class Room implements Serializable {
         return isGameStarted;
     }
 
-    public synchronized void closeRoom() {
-        broadcastMessage("ROOM_CLOSED");
-        closeAllConnections();
-        clientStreams.clear();
-        players.clear();
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * The lobby view as of the last seat or start change; readable without the room lock.
+     */
+    public RoomSummary getSummary() {
+        return summary;
+    }
+
+    // Called under the lock after every change the lobby can see
+    private void publishSummary() {
+        summary = new RoomSummary(id, creator, players.size(), maxPlayers, isGameStarted);
+        if (lobby != null) {
+            lobby.roomChanged(this);
+        }
+    }
+
+    /**
+     * Notifies and disconnects everyone and refuses further joins. Returns the names of the players
+     * that were seated.
+     */
+    public List<String> closeRoom() {
+        lock.lock();
+        try {
+            closed = true;
+            gameLog.roomClosed(id);
+            List<String> seated = new ArrayList<>(players.size());
+            for (Player player : players) {
+                seated.add(player.getName());
+            }
+            broadcast(Event.roomClosed());
+            if (nextTrick != null) {
+                nextTrick.cancel();
+                nextTrick = null;
+            }
+            closeAllConnections();
+            connections.clear();
+            players.clear();
+            return seated;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public List<String> getTeamA() {
@@ -90,34 +289,207 @@ public class Room implements Serializable {
         return players.stream().filter(p -> p.getName().equals(username)).findFirst().orElse(null);
     }
 
-    public synchronized boolean removePlayer(String username) {
-        Player player = getPlayerByName(username);
-        if (player != null) {
-            players.remove(player);
-            clientStreams.remove(player.getOutputStream());
-            notifyPlayerKicked(player);
+    public Player getPlayerByConnection(ClientConnection connection) {
+        return players.stream().filter(p -> p.getConnection() == connection).findFirst().orElse(null);
+    }
+
+    public Player getMaster() {
+        return master;
+    }
+
+    public boolean removePlayer(String username) {
+        lock.lock();
+        try {
+            Player player = getPlayerByName(username);
+            if (player != null) {
+                gameLog.playerLeft(id, username);
+                players.remove(player);
+                teamA.remove(username);
+                teamB.remove(username);
+                // A player whose connection already went away has nobody left to tell
+                if (connections.remove(player.getConnection())) {
+                    notifyPlayerKicked(player);
+                }
+                broadcastUserList();
+                publishSummary();
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean addPlayer(Player player) {
+        lock.lock();
+        try {
+            if (!closed && !isFull() && players.stream().noneMatch(p -> p.getName().equals(player.getName()))) {
+                gameLog.playerJoined(id, player.getName());
+                players.add(player);
+                // Players restored from the game log have no connection until they come back
+                if (player.getConnection() != null) {
+                    addConnection(player.getConnection());
+                    issueToken(player);
+                }
+                addPlayerToTeam(player);
+                broadcastMessage(player.getName() + " has joined the room.");
+                broadcastUserList();
+                publishSummary();
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives a seat restored from the game log, which has no connection and was never issued a
+     * resume token, to a client of the same name, then sends them a new token, their hand and
+     * whose turn it is. A player who dropped out of a live game holds a token and must come back
+     * through {@link #resumeSeat}, so their seat cannot be taken by name alone.
+     */
+    public boolean reclaimSeat(String username, ClientConnection connection) {
+        lock.lock();
+        try {
+            Player player = getPlayerByName(username);
+            if (closed || player == null || player.getConnection() != null || player.getReplay() != null) {
+                return false;
+            }
+            player.attach(connection);
+            addConnection(connection);
+            issueToken(player);
             broadcastUserList();
+            sendTable(player);
             return true;
+        } finally {
+            lock.unlock();
         }
-        return false;
     }
 
-    public synchronized void addPlayer(Player player) {
-        if (!isFull() && players.stream().noneMatch(p -> p.getName().equals(player.getName()))) {
-            players.add(player);
-            clientStreams.add(player.getOutputStream());
-            addPlayerToTeam(player);
-            broadcastMessage(player.getName() + " has joined the room.");
-            broadcastUserList();
+    /**
+     * Moves {@code username}'s seat onto {@code connection} if {@code token} is the one they were
+     * issued. Their old connection is closed if the server has not noticed it is gone yet. The
+     * game events after number {@code seen} are sent again, or the hand and turn if some of them
+     * are no longer kept; the lists and scores follow as they are now.
+     */
+    public boolean resumeSeat(String username, String token, int seen, ClientConnection connection) {
+        lock.lock();
+        try {
+            Player player = getPlayerByName(username);
+            ReplayBuffer replay = player != null ? player.getReplay() : null;
+            if (closed || replay == null || !replay.matches(token)) {
+                return false;
+            }
+            ClientConnection previous = player.getConnection();
+            if (previous != null && previous != connection) {
+                connections.remove(previous);
+                discardBatch(previous);
+                previous.close();
+            }
+            player.attach(connection);
+            addConnection(connection);
+            List<Event> missed = replay.since(seen);
+            if (missed != null) {
+                deliver(player, Event.resumed(seen));
+                for (Event event : missed) {
+                    deliver(player, event);
+                }
+                Metrics.sessionResumed(missed.size());
+            } else {
+                deliver(player, Event.resumed(replay.getSequence()));
+                sendTable(player);
+                Metrics.sessionRebuilt();
+            }
+            deliver(player, Event.userList(teamA, teamB));
+            if (isGameStarted) {
+                deliver(player, Event.scoreUpdate(teamScores[0], teamScores[1]));
+                deliver(player, Event.roundWinsUpdate(teamRoundWins[0], teamRoundWins[1]));
+            }
+            if (previous == null) {
+                broadcastMessage(username + " has reconnected.");
+            }
+            return true;
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized void addClientStream(ObjectOutputStream out) {
-        clientStreams.add(out);
+    // Bots never come back on another connection, so they are not given a token
+    private void issueToken(Player player) {
+        if (replayCapacity == 0 || player.getConnection() instanceof RoomBot) {
+            return;
+        }
+        if (player.getReplay() == null) {
+            player.setReplay(new ReplayBuffer(replayCapacity));
+        }
+        ReplayBuffer replay = player.getReplay();
+        deliver(player, Event.sessionToken(replay.getToken(), replay.getSequence()));
     }
 
-    public synchronized List<ObjectOutputStream> getClientStreams() {
-        return new ArrayList<>(clientStreams);
+    // What a player who missed part of the game needs to carry on playing, including the trick so far
+    private void sendTable(Player player) {
+        if (isGameOver) {
+            sendMessageToPlayer(player, Event.gameOver());
+            return;
+        }
+        if (!isGameStarted || player.getHand().isEmpty()) {
+            return;
+        }
+        sendCardsToPlayer(player);
+        if (hokmSuit != null) {
+            sendMessageToPlayer(player, Event.hokmSelected(hokmSuit));
+            for (int i = 0; i < trickSize; i++) {
+                sendMessageToPlayer(player, Event.cardPlayed(players.get(trickSeats[i]).getName(), trickCards[i]));
+            }
+            // Between tricks the next turn is announced to everyone when the pause ends
+            if (nextTrick == null) {
+                sendMessageToPlayer(player, Event.playerTurn(players.get(currentPlayerIndex % players.size()).getName()));
+            }
+        } else if (master == player) {
+            notifyMasterToPickHokm();
+        }
+    }
+
+    /**
+     * Forgets a connection that has gone away and returns the player seated on it, if any. Once
+     * the game has started that player keeps their seat and hand without a connection, so they
+     * can resume or reclaim it; before that the caller decides whether they leave.
+     */
+    public Player disconnect(ClientConnection connection) {
+        lock.lock();
+        try {
+            connections.remove(connection);
+            Player player = players.stream().filter(p -> p.getConnection() == connection).findFirst().orElse(null);
+            if (player != null && isGameStarted && !closed) {
+                player.attach(null);
+                broadcastMessage(player.getName() + " has disconnected.");
+            }
+            return player;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void addConnection(ClientConnection connection) {
+        lock.lock();
+        try {
+            // The creator's connection is added on CREATE_ROOM and again when they take a seat
+            if (!connections.contains(connection)) {
+                connections.add(connection);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<ClientConnection> getConnections() {
+        lock.lock();
+        try {
+            return new ArrayList<>(connections);
+        } finally {
+            lock.unlock();
+        }
     }
 
     private void addPlayerToTeam(Player player) {
@@ -128,130 +500,187 @@ public class Room implements Serializable {
         }
     }
 
-    public synchronized void startGame() {
-        if (!isGameStarted && players.size() == maxPlayers) {
-            this.isGameStarted = true;
-            LOGGER.info("Starting game with " + maxPlayers + " players");
-            deck = new Deck();
-            selectMaster();
-            dealInitialCards();
-            notifyMasterToPickHokm();
-        } else {
-            broadcastMessage("START_GAME_FAILED");
+    public void startGame() {
+        lock.lock();
+        try {
+            if (!isGameStarted && players.size() == maxPlayers) {
+                this.isGameStarted = true;
+                publishSummary();
+                Metrics.gameStarted();
+                EVENTS.log(Level.INFO, "game.started", "room", id, "seats", maxPlayers);
+                dealNewHand();
+            } else {
+                broadcast(Event.startGameFailed());
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
-    private void selectMaster() {
-        int masterIndex = (int) (Math.random() * players.size());
-        master = players.get(masterIndex);
-        broadcastMessage("MASTER_SELECTED:" + master.getName());
+    private void dealNewHand() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        deal(random.nextLong(), random.nextInt(players.size()));
+    }
+
+    // Only the seed and master are logged; replaying them deals exactly the same cards
+    private void deal(long seed, int masterSeat) {
+        gameLog.cardsDealt(id, seed, masterSeat);
+        deck = new Deck(seed);
+        hokmSuit = null;
+        master = players.get(masterSeat);
+        broadcast(Event.masterSelected(master.getName()));
+        dealInitialCards();
+        notifyMasterToPickHokm();
     }
 
     private void notifyMasterToPickHokm() {
-        sendMessageToPlayer(master, "SELECT_HOKM");
+        sendMessageToPlayer(master, Event.selectHokm());
     }
 
-    public synchronized void setHokmSuit(String hokmSuit) {
-        this.hokmSuit = hokmSuit;
-        broadcastMessage("HOKM_SELECTED:" + hokmSuit);
-        dealRemainingCards();
-        startRound();
+    /**
+     * Sets the trump suit if {@code player} is the master and the hand they were dealt is still
+     * waiting for one. The record goes to the game log only once the choice is accepted.
+     */
+    public void setHokmSuit(Player player, String hokmSuit) {
+        lock.lock();
+        try {
+            if (!isGameStarted || isGameOver || this.hokmSuit != null || deck == null || player != master) {
+                if (player != null) {
+                    sendMessageToPlayer(player, Event.error("Cannot set hokm"));
+                }
+                return;
+            }
+            this.hokmSuit = hokmSuit;
+            this.hokmSuitIndex = CardCodes.suitIndex(hokmSuit);
+            gameLog.hokmSelected(id, hokmSuitIndex);
+            broadcast(Event.hokmSelected(hokmSuit));
+            dealRemainingCards();
+            startRound();
+        } finally {
+            lock.unlock();
+        }
     }
 
     private void dealInitialCards() {
         players.forEach(player -> {
-            List<Card> initialCards = deck.drawCards(5);
-            player.setHand(initialCards);
+            player.getHand().clear();
+            deck.deal(player.getHand(), 5);
             sendCardsToPlayer(player);
         });
     }
 
     private void dealRemainingCards() {
         players.forEach(player -> {
-            List<Card> remainingCards = deck.drawCards(13 - player.getHand().size());
-            player.getHand().addAll(remainingCards);
+            deck.deal(player.getHand(), 13 - player.getHand().size());
             sendCardsToPlayer(player);
         });
     }
 
     private void sendCardsToPlayer(Player player) {
-        sendMessageToPlayer(player, "DEAL_CARDS:" + player.getHand());
+        sendMessageToPlayer(player, Event.dealCards(player.getHand().toCodes()));
     }
 
     private void startRound() {
         currentPlayerIndex = players.indexOf(master);
-        broadcastMessage("ROUND_START:" + currentRound);
+        broadcast(Event.roundStart(currentRound));
         nextTurn();
     }
 
     private void nextTurn() {
-        LOGGER.info("we are in next Turn");
         currentPlayerIndex %= players.size();
         Player currentPlayer = players.get(currentPlayerIndex);
-        LOGGER.info(currentPlayer.getName());
-
-
-        broadcastMessage("PLAYER_TURN:" + currentPlayer.getName());
+        if (EVENTS.isLoggable(Level.FINE)) {
+            EVENTS.log(Level.FINE, "turn", "room", id, "player", currentPlayer.getName());
+        }
+        broadcast(Event.playerTurn(currentPlayer.getName()));
     }
 
 
-    public synchronized void playCard(Player player, Card card) {
-        if (players.get(currentPlayerIndex).equals(player)) {
-            player.getHand().remove(card);
-            currentTurnCards.put(player, card);
-            broadcastMessage("CARD_PLAYED:" + player.getName() + ":" + card);
-            currentPlayerIndex++;
-            if (currentTurnCards.size() == players.size()) {
-                determineTurnWinner();
-                currentTurnCards.clear();
+    /**
+     * Plays {@code card} for {@code player} if it is their turn, they hold the card, and it
+     * follows the led suit when they can. Replayed plays were checked when first made.
+     */
+    public void playCard(Player player, Card card) {
+        lock.lock();
+        try {
+            if (hokmSuit != null && nextTrick == null && !isGameOver
+                    && players.get(currentPlayerIndex).equals(player)) {
+                Hand hand = player.getHand();
+                if (!hand.contains(card)) {
+                    sendMessageToPlayer(player, Event.error("Card not in hand"));
+                    return;
+                }
+                int led = trickSize == 0 ? TrickRules.NO_SUIT : TrickRules.suitOf(trickCards[0]);
+                if (!replaying && !TrickRules.isLegal(hand.getMask(), led, card.getCode())) {
+                    sendMessageToPlayer(player, Event.error("Must follow suit"));
+                    return;
+                }
+                hand.remove(card);
+                gameLog.cardPlayed(id, currentPlayerIndex, card.getCode());
+                trickCards[trickSize] = card.getCode();
+                trickSeats[trickSize++] = currentPlayerIndex;
+                broadcast(Event.cardPlayed(player.getName(), card.getCode()));
+                if (EVENTS.isLoggable(Level.FINE)) {
+                    EVENTS.log(Level.FINE, "card", "room", id, "player", player.getName(), "card", card);
+                }
+                currentPlayerIndex++;
+                if (trickSize == players.size()) {
+                    if (!replaying) {
+                        determineTurnWinner();
+                    }
+                } else {
+                    nextTurn();
+                }
             } else {
-                nextTurn();
+                sendMessageToPlayer(player, Event.error("Not your turn"));
             }
-        } else {
-            sendMessageToPlayer(player, "ERROR:Not your turn");
+        } finally {
+            lock.unlock();
         }
     }
 
     private void determineTurnWinner() {
-        Player winner = null;
-        Card winningCard = null;
+        winTrick(trickSeats[TrickRules.winner(hokmSuitIndex, trickCards, trickSize)]);
+    }
 
-        for (Map.Entry<Player, Card> entry : currentTurnCards.entrySet()) {
-            Player player = entry.getKey();
-            Card card = entry.getValue();
+    private void winTrick(int seat) {
+        gameLog.trickWon(id, seat);
+        trickSize = 0;
+        Player winner = players.get(seat);
+        int winningTeamIndex = teamA.contains(winner.getName()) ? Event.TEAM_A : Event.TEAM_B;
+        teamScores[winningTeamIndex]++;
 
-            if (winningCard == null || isCardHigher(card, winningCard)) {
-                winningCard = card;
-                winner = player;
+        broadcast(Event.turnWinner(winningTeamIndex));
+        broadcast(Event.scoreUpdate(teamScores[0], teamScores[1]));
+        broadcast(Event.roundWinsUpdate(teamRoundWins[0], teamRoundWins[1]));
+
+        if (teamScores[winningTeamIndex] >= 7) {
+            broadcast(Event.teamWinsRound(winningTeamIndex));
+            resetForNextRound(winningTeamIndex);
+        } else {
+            master = winner;
+            currentPlayerIndex = seat;
+            if (replaying) {
+                return;
             }
+            // Give clients time to show the finished trick; plays are refused until it fires
+            nextTrick = scheduler.schedule(() -> execute(this::startNextTrick), trickPauseMillis,
+                    TimeUnit.MILLISECONDS);
         }
+    }
 
-        if (winner != null) {
-            String winnerName = winner.getName();
-            String winningTeam = teamA.contains(winnerName) ? "Team A" : "Team B";
-            int winningTeamIndex = teamA.contains(winnerName) ? 0 : 1;
-            teamScores[winningTeamIndex]++;
-
-            broadcastMessage("TURN_WINNER:" + winningTeam);
-            broadcastMessage("SCORE_UPDATE:Team A:" + teamScores[0] + ":Team B:" + teamScores[1]);
-            broadcastMessage("ROUND_WINS_UPDATE:Team A:" + teamRoundWins[0] + ":Team B:" + teamRoundWins[1]);
-
-            if (teamScores[winningTeamIndex] >= 7) {
-                broadcastMessage("TEAM_WINS_ROUND:" + winningTeam);
-                resetForNextRound(winningTeamIndex);
-            } else {
-
-                master = winner;
-                currentPlayerIndex = players.indexOf(master);
-                try {
-
-                    Thread.sleep(5000);
-                } catch (InterruptedException e) {
-                    LOGGER.info("Thread was interrupted" + e);
-                    Thread.currentThread().interrupt();
-                }
-                nextTurn();
+    private void startNextTrick() {
+        lock.lock();
+        try {
+            if (nextTrick == null || players.isEmpty()) {
+                return;
             }
+            nextTrick = null;
+            // The winner may have left during the pause
+            currentPlayerIndex = Math.max(0, players.indexOf(master));
+            nextTurn();
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -259,77 +688,180 @@ public class Room implements Serializable {
         teamScores[0] = 0;
         teamScores[1] = 0;
         teamRoundWins[winningTeamIndex]++;
-        broadcastMessage("ROUND_WINS_UPDATE:Team A:" + teamRoundWins[0] + ":Team B:" + teamRoundWins[1]);
+        gameLog.roundWon(id, winningTeamIndex);
+        broadcast(Event.roundWinsUpdate(teamRoundWins[0], teamRoundWins[1]));
 
         if (teamRoundWins[winningTeamIndex] >= 7) {
-            broadcastMessage("TEAM_WINS_GAME:" + (winningTeamIndex == 0 ? "Team A" : "Team B"));
+            broadcast(Event.teamWinsGame(winningTeamIndex));
             endGame();
+        } else if (replaying) {
+            // Dealt again by the next cardsDealt record, or by resume() if the log ends here
+            deck = null;
         } else {
-            deck = new Deck();
-            selectMaster();
-            dealInitialCards();
-            notifyMasterToPickHokm();
+            dealNewHand();
         }
     }
 
-    private boolean isCardHigher(Card card1, Card card2) {
-        if (card1.getSuit().equals(hokmSuit) && !card2.getSuit().equals(hokmSuit)) {
-            return true;
+    private void endGame() {
+        isGameOver = true;
+        gameLog.gameOver(id);
+        broadcast(Event.gameOver());
+        Metrics.gameFinished();
+    }
+
+    public void broadcastMessage(String message) {
+        broadcast(Event.text(message));
+    }
+
+    public void broadcast(Event event) {
+        lock.lock();
+        try {
+            long start = System.nanoTime();
+            int recipients = connections.size();
+            List<ClientConnection> failedConnections = null;
+            // Encoded on first use and shared, so the event is serialized once per protocol, not per client
+            SharedEvent shared = SharedEvent.of(event);
+            if (ReplayBuffer.isReplayed(event)) {
+                for (Player player : players) {
+                    if (player.getReplay() != null) {
+                        player.getReplay().record(event);
+                    }
+                }
+            }
+            try {
+                for (ClientConnection client : connections) {
+                    if (!send(client, shared.retain())) {
+                        if (failedConnections == null) {
+                            failedConnections = new ArrayList<>();
+                        }
+                        failedConnections.add(client);
+                    }
+                }
+                if (SpectatorFeed.isPublic(event)) {
+                    spectators.publish(shared.retain());
+                }
+            } finally {
+                shared.release();
+            }
+
+            if (failedConnections != null) {
+                connections.removeAll(failedConnections);
+            }
+            Metrics.broadcastSent(event.getOpcode(), recipients, System.nanoTime() - start);
+        } finally {
+            lock.unlock();
         }
-        else if (!card1.getSuit().equals(hokmSuit) && card2.getSuit().equals(hokmSuit)) {
-            return false;
+    }
+
+    // Called under the lock. Returns false if the connection failed and should be dropped.
+    private boolean send(ClientConnection client, SharedEvent event) {
+        if (batchDepth > 0) {
+            List<SharedEvent> events = batch.computeIfAbsent(client, c -> new ArrayList<>());
+            if (isListUpdate(event.getEvent())) {
+                dropSuperseded(events, event.getEvent().getOpcode());
+            }
+            events.add(event);
+            return true;
         }
-        else if (!card1.getSuit().equals(card2.getSuit())) {
+        try {
+            client.send(event);
+            return true;
+        } catch (IOException e) {
+            Metrics.writeFailed();
+            LOGGER.log(Level.SEVERE, "Error broadcasting message", e);
             return false;
         }
-        return card1.getPower() > card2.getPower();
     }
 
-    private void endGame() {
-        broadcastMessage("GAME_OVER");
+    private static boolean isListUpdate(Event event) {
+        return event.getOpcode() == Opcode.USER_LIST || event.getOpcode() == Opcode.PLAYER_LIST_UPDATE;
     }
 
-    public synchronized void broadcastMessage(String message) {
-        List<ObjectOutputStream> failedStreams = new ArrayList<>();
-
-        for (ObjectOutputStream client : clientStreams) {
-            try {
-                client.writeObject(message);
-                client.flush();
-            } catch (IOException e) {
-                failedStreams.add(client);
-                LOGGER.log(Level.SEVERE, "Error broadcasting message", e);
+    private static void dropSuperseded(List<SharedEvent> events, int opcode) {
+        Iterator<SharedEvent> iterator = events.iterator();
+        while (iterator.hasNext()) {
+            SharedEvent queued = iterator.next();
+            if (queued.getEvent().getOpcode() == opcode) {
+                iterator.remove();
+                queued.release();
             }
         }
+    }
 
-        clientStreams.removeAll(failedStreams);
+    // Called under the lock; also before connections are closed, so their last events still go out
+    private void flushBatch() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<ClientConnection, List<SharedEvent>> entry : batch.entrySet()) {
+            sendBatch(entry.getKey(), entry.getValue());
+        }
+        batch.clear();
     }
 
-    public synchronized void broadcastUserList() {
-        broadcastMessage("USER_LIST:" + String.join(",", teamA) + ":" + String.join(",", teamB));
+    // Writes out one recipient's pending events ahead of the rest of the batch
+    private void flushBatch(ClientConnection connection) {
+        List<SharedEvent> pending = batch.remove(connection);
+        if (pending != null) {
+            sendBatch(connection, pending);
+        }
     }
 
-    private void sendMessageToPlayer(Player player, String message) {
+    private void sendBatch(ClientConnection connection, List<SharedEvent> events) {
         try {
-            player.getOutputStream().writeObject(message);
-            player.getOutputStream().flush();
+            connection.sendBatch(events);
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Error sending message to player", e);
+            connections.remove(connection);
+            Metrics.writeFailed();
+            LOGGER.log(Level.SEVERE, "Error broadcasting message", e);
+        }
+    }
+
+    public void broadcastUserList() {
+        lock.lock();
+        try {
+            broadcast(Event.userList(teamA, teamB));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Also kept for the player to resume from, even while they are away
+    private void sendMessageToPlayer(Player player, Event event) {
+        if (player.getReplay() != null) {
+            player.getReplay().record(event);
+        }
+        deliver(player, event);
+    }
+
+    private void deliver(Player player, Event event) {
+        ClientConnection connection = player.getConnection();
+        if (connection != null && !send(connection, SharedEvent.of(event))) {
+            connections.remove(connection);
+        }
+    }
+
+    // Called under the lock: events for a connection that is gone are dropped, not written
+    private void discardBatch(ClientConnection connection) {
+        List<SharedEvent> pending = batch.remove(connection);
+        if (pending != null) {
+            pending.forEach(SharedEvent::release);
         }
     }
 
     private void notifyPlayerKicked(Player player) {
-        sendMessageToPlayer(player, "KICKED");
+        sendMessageToPlayer(player, Event.kicked());
+        ClientConnection connection = player.getConnection();
+        if (connection != null) {
+            flushBatch(connection);
+        }
         player.closeConnections();
     }
 
     private void closeAllConnections() {
+        flushBatch();
         for (Player player : players) {
-            try {
-                player.getOutputStream().close();
-            } catch (IOException e) {
-                LOGGER.log(Level.SEVERE, "Error closing player connection", e);
-            }
+            player.closeConnections();
         }
     }
 }
@@ -0,0 +1,148 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.CardCodes;
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.Opcode;
+
+import java.util.List;
+
+/**
+ * A server-side player in a seat no client took. It sits in its room behind a connection of its
+ * own and follows the game from the events every player gets, plus its own hand; it never looks
+ * at anyone else's cards. When it has to pick the hokm or a card, what it has seen is copied and
+ * searched on the {@link BotPool}, and the choice goes back through the room like a client's.
+ */
+public class RoomBot implements ClientConnection {
+    private final BotPool pool;
+    private final Room room;
+    private final Player player;
+    // Only touched from the room's events, which are delivered under its lock
+    private final HokmState state = new HokmState();
+    private final String[] seats = new String[HokmState.MAX_SEATS];
+    private int seatCount;
+    private volatile boolean closed;
+
+    RoomBot(BotPool pool, Room room, String name) {
+        this.pool = pool;
+        this.room = room;
+        this.player = new Player(name, this);
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    @Override
+    public void send(Event event) {
+        if (closed) {
+            return;
+        }
+        switch (event.getOpcode()) {
+            case Opcode.MASTER_SELECTED -> newDeal(event.getName());
+            case Opcode.SELECT_HOKM -> chooseHokm();
+            case Opcode.HOKM_SELECTED -> state.setHokm(CardCodes.suitIndex(event.getName()));
+            case Opcode.PLAYER_TURN -> turn(event.getName());
+            case Opcode.CARD_PLAYED -> {
+                int seat = seatOf(event.getName());
+                if (seat >= 0) {
+                    state.play(seat, event.getFirst());
+                }
+            }
+            case Opcode.SCORE_UPDATE -> state.setTricks(event.getFirst(), event.getSecond());
+            case Opcode.GAME_OVER, Opcode.ROOM_CLOSED, Opcode.KICKED -> closed = true;
+            default -> {
+                // Chat, lists and errors for a stale move mean nothing to a bot
+            }
+        }
+    }
+
+    @Override
+    public void sendRooms(List<Room> rooms) {
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    // Seats can change between deals as players leave, so they are taken again for each one
+    private void newDeal(String master) {
+        List<Player> players = room.getPlayers();
+        seatCount = Math.min(players.size(), HokmState.MAX_SEATS);
+        int me = -1;
+        for (int seat = 0; seat < seatCount; seat++) {
+            String name = players.get(seat).getName();
+            seats[seat] = name;
+            state.setTeam(seat, room.getTeamA().contains(name) ? Event.TEAM_A : Event.TEAM_B);
+            if (name.equals(player.getName())) {
+                me = seat;
+            }
+        }
+        int leader = seatOf(master);
+        if (me < 0 || leader < 0) {
+            seatCount = 0;
+            return;
+        }
+        state.newDeal(seatCount, me, leader);
+    }
+
+    private void turn(String name) {
+        int seat = seatOf(name);
+        if (seat < 0) {
+            return;
+        }
+        state.setTurn(seat);
+        if (seat == state.me && state.hokm != HokmState.NO_HOKM) {
+            HokmState position = position();
+            long deadline = pool.deadline();
+            pool.execute(simulator -> {
+                int card = simulator.chooseCard(position, deadline);
+                room.execute(() -> playCard(card));
+            });
+        }
+    }
+
+    private void chooseHokm() {
+        if (seatCount == 0) {
+            return;
+        }
+        HokmState position = position();
+        long deadline = pool.deadline();
+        pool.execute(simulator -> {
+            int suit = simulator.chooseHokm(position, deadline);
+            room.execute(() -> {
+                if (isSeated()) {
+                    room.setHokmSuit(player, CardCodes.SUITS[suit]);
+                }
+            });
+        });
+    }
+
+    // A copy for the search, which runs after the room has moved on
+    private HokmState position() {
+        HokmState position = new HokmState();
+        position.copyFrom(state);
+        position.setHand(player.getHand().getMask());
+        return position;
+    }
+
+    // Runs as a room task; the room refuses a card played out of turn
+    private void playCard(int card) {
+        if (isSeated() && CardCodes.isValid(card)) {
+            room.playCard(player, Card.of(card));
+        }
+    }
+
+    private boolean isSeated() {
+        return !closed && !room.isClosed() && room.getPlayers().contains(player);
+    }
+
+    private int seatOf(String name) {
+        for (int seat = 0; seat < seatCount; seat++) {
+            if (seats[seat].equals(name)) {
+                return seat;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,93 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.CardCodes;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rebuilds rooms as the game log is replayed at startup, by running the same room operations the
+ * records came from. Restored players have no connection until they join again under their name.
+ * Records of a room that was never seen created, such as the tail of a closed room whose first
+ * segment is already gone, are ignored.
+ */
+public class RoomRecovery implements GameLog {
+    private final Server server;
+    private final Map<Long, Room> rooms = new LinkedHashMap<>();
+
+    public RoomRecovery(Server server) {
+        this.server = server;
+    }
+
+    public List<Room> getRooms() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    @Override
+    public void roomCreated(long roomId, String creator, int maxPlayers, int totalRounds) {
+        Room room = server.restoreRoom(roomId, creator, maxPlayers, totalRounds);
+        if (room != null) {
+            rooms.put(roomId, room);
+        }
+    }
+
+    @Override
+    public void playerJoined(long roomId, String player) {
+        Room room = rooms.get(roomId);
+        if (room != null) {
+            server.joinRoom(room, new Player(player, null));
+        }
+    }
+
+    @Override
+    public void playerLeft(long roomId, String player) {
+        Room room = rooms.get(roomId);
+        if (room != null) {
+            server.leaveRoom(room, player);
+        }
+    }
+
+    @Override
+    public void cardsDealt(long roomId, long seed, int masterSeat) {
+        Room room = rooms.get(roomId);
+        if (room != null) {
+            room.replayDeal(seed, masterSeat);
+        }
+    }
+
+    @Override
+    public void hokmSelected(long roomId, int suit) {
+        Room room = rooms.get(roomId);
+        if (room != null) {
+            room.setHokmSuit(room.getMaster(), CardCodes.SUITS[suit]);
+        }
+    }
+
+    @Override
+    public void cardPlayed(long roomId, int seat, int card) {
+        Room room = rooms.get(roomId);
+        if (room != null) {
+            room.playCard(room.getPlayers().get(seat), Card.of(card));
+        }
+    }
+
+    @Override
+    public void trickWon(long roomId, int seat) {
+        Room room = rooms.get(roomId);
+        if (room != null) {
+            room.replayTrick(seat);
+        }
+    }
+
+    // Round and game results follow from the trick that decided them; they are logged for inspection
+
+    @Override
+    public void roomClosed(long roomId) {
+        Room room = rooms.remove(roomId);
+        if (room != null) {
+            server.closeRoom(room);
+        }
+    }
+}
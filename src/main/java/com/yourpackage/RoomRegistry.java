@@ -0,0 +1,127 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.RoomSummary;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live rooms indexed by id, creator and seated player. Every lookup is a single concurrent map
+ * read, and joins and leaves claim or release the player's name atomically, so a player can
+ * never be seated in two rooms.
+ */
+public class RoomRegistry {
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final ConcurrentMap<Long, Room> byId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Room> byCreator = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Room> byPlayer = new ConcurrentHashMap<>();
+
+    public long nextId() {
+        return nextId.getAndIncrement();
+    }
+
+    /**
+     * Makes sure {@link #nextId} never hands out {@code id} or anything below it.
+     */
+    public void reserveIdsThrough(long id) {
+        nextId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    /**
+     * Adds {@code room} unless its creator already owns a live room.
+     */
+    public boolean register(Room room) {
+        if (byCreator.putIfAbsent(room.getCreator(), room) != null) {
+            return false;
+        }
+        byId.put(room.getId(), room);
+        return true;
+    }
+
+    /**
+     * Removes a room that has been closed, releasing the names of the players it held.
+     */
+    public void unregister(Room room, List<String> seatedPlayers) {
+        byId.remove(room.getId(), room);
+        byCreator.remove(room.getCreator(), room);
+        for (String player : seatedPlayers) {
+            byPlayer.remove(player, room);
+        }
+    }
+
+    public Room getById(long id) {
+        return byId.get(id);
+    }
+
+    public Room getByCreator(String creator) {
+        return creator == null ? null : byCreator.get(creator);
+    }
+
+    public Room getByPlayer(String player) {
+        return player == null ? null : byPlayer.get(player);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Seats {@code player} in {@code room}. Fails if the name is already seated elsewhere, or if the
+     * room is closed, full or already has a player of that name.
+     */
+    public boolean join(Room room, Player player) {
+        Room existing = byPlayer.putIfAbsent(player.getName(), room);
+        if (existing != null && existing != room) {
+            return false;
+        }
+        if (byId.get(room.getId()) != room || !room.addPlayer(player)) {
+            if (existing == null) {
+                byPlayer.remove(player.getName(), room);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Claims {@code player}'s name for {@code room} ahead of {@link #join}, which then succeeds for
+     * that room only.
+     */
+    public boolean reserve(Room room, String player) {
+        return byPlayer.putIfAbsent(player, room) == null;
+    }
+
+    public void release(Room room, String player) {
+        byPlayer.remove(player, room);
+    }
+
+    public boolean leave(Room room, String player) {
+        if (!room.removePlayer(player)) {
+            return false;
+        }
+        byPlayer.remove(player, room);
+        return true;
+    }
+
+    /**
+     * Rooms in creation order.
+     */
+    public List<Room> snapshot() {
+        List<Room> rooms = new ArrayList<>(byId.values());
+        rooms.sort(Comparator.comparingLong(Room::getId));
+        return rooms;
+    }
+
+    public List<RoomSummary> summaries() {
+        List<RoomSummary> summaries = new ArrayList<>(byId.size());
+        for (Room room : byId.values()) {
+            summaries.add(room.getSummary());
+        }
+        summaries.sort(Comparator.comparingLong(RoomSummary::id));
+        return summaries;
+    }
+}
@@ -0,0 +1,84 @@
+package com.yourpackage;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fixed worker threads that run room commands. Each room is pinned to one worker, which drains a
+ * lock-free mailbox in order, so a room's state is only ever touched by that thread and its lock
+ * is never contended. Rooms on different workers run in parallel.
+ */
+public class RoomWorkers {
+    private static final Logger LOGGER = Logger.getLogger(RoomWorkers.class.getName());
+
+    private final Worker[] workers;
+
+    public RoomWorkers(int threads) {
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker("room-worker-" + i);
+            workers[i].start();
+        }
+    }
+
+    public Executor executorFor(long roomId) {
+        return workers[(int) Math.floorMod(roomId, (long) workers.length)];
+    }
+
+    public int getMailboxDepth() {
+        int depth = 0;
+        for (Worker worker : workers) {
+            depth += worker.mailbox.size();
+        }
+        return depth;
+    }
+
+    public void stop() {
+        for (Worker worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private static final class Worker extends Thread implements Executor {
+        private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+        private volatile boolean parked;
+
+        Worker(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            mailbox.add(task);
+            if (parked) {
+                LockSupport.unpark(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                Runnable task = mailbox.poll();
+                if (task == null) {
+                    parked = true;
+                    // Re-check after publishing the flag so a concurrent execute() cannot be missed
+                    if (mailbox.isEmpty()) {
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.SEVERE, "Room command failed", e);
+                }
+            }
+        }
+    }
+}
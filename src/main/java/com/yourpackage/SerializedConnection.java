@@ -0,0 +1,124 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Event;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A client on the original protocol: every event is written as a serialized String.
+ * <p>
+ * Strings are written as pre-encoded {@code TC_STRING} records straight to the underlying stream,
+ * so a broadcast is serialized once for all recipients. The client assigns those strings handles
+ * the {@link ObjectOutputStream} does not know about, so the stream is reset before every object
+ * it writes itself; that also keeps its handle table from growing for the life of the connection.
+ */
+public class SerializedConnection implements ClientConnection {
+    private static final Logger LOGGER = Logger.getLogger(SerializedConnection.class.getName());
+    private static final byte TC_STRING = 0x74;
+    private static final byte TC_LONGSTRING = 0x7C;
+
+    private final ObjectOutputStream out;
+    private final OutputStream raw;
+    private final ReentrantLock lock = new ReentrantLock();
+    private byte[] scratch = new byte[256];
+
+    /**
+     * @param raw the stream {@code out} writes to, whose stream header has already been flushed
+     */
+    public SerializedConnection(ObjectOutputStream out, OutputStream raw) {
+        this.out = out;
+        this.raw = raw;
+    }
+
+    @Override
+    public void send(Event event) throws IOException {
+        send(SharedEvent.of(event));
+    }
+
+    @Override
+    public void send(SharedEvent event) throws IOException {
+        lock.lock();
+        try {
+            scratch = event.writeTo(raw, event.serializedString(), scratch);
+            raw.flush();
+        } finally {
+            lock.unlock();
+            event.release();
+        }
+    }
+
+    @Override
+    public void sendBatch(List<SharedEvent> events) throws IOException {
+        lock.lock();
+        try {
+            for (SharedEvent event : events) {
+                scratch = event.writeTo(raw, event.serializedString(), scratch);
+            }
+            raw.flush();
+        } finally {
+            lock.unlock();
+            for (SharedEvent event : events) {
+                event.release();
+            }
+        }
+    }
+
+    @Override
+    public void sendRooms(List<Room> rooms) throws IOException {
+        lock.lock();
+        try {
+            out.reset();
+            out.writeObject(rooms);
+            out.flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error closing client stream", e);
+        }
+    }
+
+    /**
+     * {@code value} as {@code writeObject} serializes a new String: a {@code TC_STRING} record
+     * with its length and modified UTF-8 bytes, in a buffer from the {@link BufferPool}.
+     */
+    static ByteBuffer encodeString(String value) {
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        boolean isLong = length > 0xFFFF;
+        ByteBuffer buffer = BufferPool.acquire((int) length + (isLong ? 9 : 3));
+        if (isLong) {
+            buffer.put(TC_LONGSTRING).putLong(length);
+        } else {
+            buffer.put(TC_STRING).putShort((short) length);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                buffer.put((byte) c);
+            } else if (c <= 0x07FF) {
+                buffer.put((byte) (0xC0 | (c >> 6))).put((byte) (0x80 | (c & 0x3F)));
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12))).put((byte) (0x80 | ((c >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        return buffer.flip();
+    }
+}
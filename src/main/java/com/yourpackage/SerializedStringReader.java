@@ -0,0 +1,128 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.MessageTooLargeException;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incrementally decodes the String objects a client writes with {@code ObjectOutputStream.writeObject},
+ * so a non-blocking transport can consume the same stream {@code ObjectInputStream} would.
+ * Only the subset of the serialization grammar that strings produce is accepted.
+ */
+public class SerializedStringReader {
+    private static final short STREAM_MAGIC = (short) 0xACED;
+    private static final short STREAM_VERSION = 5;
+    private static final byte TC_NULL = 0x70;
+    private static final byte TC_REFERENCE = 0x71;
+    private static final byte TC_STRING = 0x74;
+    private static final byte TC_RESET = 0x79;
+    private static final int BASE_WIRE_HANDLE = 0x7E0000;
+
+    private final int maxLength;
+    private final List<String> handles = new ArrayList<>();
+    private boolean headerRead;
+    private boolean endOfStream;
+
+    public SerializedStringReader() {
+        this(0xFFFF);
+    }
+
+    /**
+     * @param maxLength the longest string accepted, in encoded bytes, checked before it is buffered
+     */
+    public SerializedStringReader(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Returns the next complete string in {@code buffer}, or {@code null} if more bytes are needed.
+     * The buffer must be in read mode; consumed bytes are skipped past, partial objects are left in place.
+     */
+    public String next(ByteBuffer buffer) throws IOException {
+        if (!headerRead) {
+            if (buffer.remaining() < 4) {
+                return null;
+            }
+            if (buffer.getShort() != STREAM_MAGIC || buffer.getShort() != STREAM_VERSION) {
+                throw new StreamCorruptedException("invalid stream header");
+            }
+            headerRead = true;
+        }
+
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            byte tag = buffer.get();
+            switch (tag) {
+                case TC_RESET:
+                    handles.clear();
+                    break;
+                case TC_NULL:
+                    endOfStream = true;
+                    return null;
+                case TC_REFERENCE:
+                    if (buffer.remaining() < 4) {
+                        buffer.position(start);
+                        return null;
+                    }
+                    int handle = buffer.getInt() - BASE_WIRE_HANDLE;
+                    if (handle < 0 || handle >= handles.size()) {
+                        throw new StreamCorruptedException("invalid handle value: " + handle);
+                    }
+                    return handles.get(handle);
+                case TC_STRING:
+                    if (buffer.remaining() < 2) {
+                        buffer.position(start);
+                        return null;
+                    }
+                    int length = Short.toUnsignedInt(buffer.getShort());
+                    if (length > maxLength) {
+                        throw new MessageTooLargeException(length, maxLength);
+                    }
+                    if (buffer.remaining() < length) {
+                        buffer.position(start);
+                        return null;
+                    }
+                    String value = decodeModifiedUtf8(buffer, length);
+                    handles.add(value);
+                    return value;
+                default:
+                    throw new StreamCorruptedException(String.format("unsupported type code: %02X", tag));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * True once the client has written a {@code null}, which ends the session just like the
+     * blocking read loop does.
+     */
+    public boolean isEndOfStream() {
+        return endOfStream;
+    }
+
+    private static String decodeModifiedUtf8(ByteBuffer buffer, int length) throws IOException {
+        int offset = buffer.position();
+        byte[] array = buffer.array();
+        int base = buffer.arrayOffset() + offset;
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            if (array[base + i] <= 0) {
+                ascii = false;
+                break;
+            }
+        }
+        buffer.position(offset + length);
+        if (ascii) {
+            return new String(array, base, length, StandardCharsets.ISO_8859_1);
+        }
+        // readUTF expects the two length bytes that precede the payload
+        return new DataInputStream(new ByteArrayInputStream(array, base - 2, length + 2)).readUTF();
+    }
+}
@@ -1,33 +1,109 @@
 package com.yourpackage;
 
+import com.yourpackage.protocol.RoomSummary;
+
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class Server {
+public final class Server implements Frontend {
     private static final Logger LOGGER = Logger.getLogger(Server.class.getName());
-    private static final int PORT = 12345;
-    private final List<Room> rooms;
+    private static final EventLog EVENTS = EventLog.of("room");
+    private final ServerConfig config;
+    // Drains outbound queues of socket-stream transports; a slow client only blocks its own virtual thread
+    private final ExecutorService outboundWriters = Executors.newVirtualThreadPerTaskExecutor();
+    // Delivers spectator feeds, off the rooms' threads
+    private final ExecutorService spectatorWriters = Executors.newVirtualThreadPerTaskExecutor();
+    // Shared by all rooms for delayed transitions such as the pause between tricks
+    private final TimerWheel scheduler = new TimerWheel(10, TimeUnit.MILLISECONDS, 512);
+    private final RoomRegistry registry = new RoomRegistry();
+    private final LobbyFeed lobby;
+    private final Matchmaker matchmaker;
+    private final RoomWorkers roomWorkers;
+    private final BotPool bots;
+    private final GameLog gameLog;
 
     public Server() {
-        rooms = new ArrayList<>();
-        // Initialize with some empty room slots
-        for (int i = 0; i < 10; i++) {
-            rooms.add(new Room(null, 4, 7));  // Assuming a default of 4 players per room
+        this(ServerConfig.fromSystemProperties());
+    }
+
+    public Server(ServerConfig config) {
+        this.config = config;
+        this.lobby = new LobbyFeed(registry, scheduler, config.getLobbyIntervalMillis());
+        // The matchmaker only keeps the reference; nothing calls back into the server until a player queues
+        this.matchmaker = new Matchmaker(this, scheduler, config.getMatchTickMillis(), config.getMatchRatingBand(),
+                config.getMatchBandTimeoutMillis());
+        this.roomWorkers = config.getRoomWorkerThreads() > 0 ? new RoomWorkers(config.getRoomWorkerThreads()) : null;
+        this.bots = config.getBotThreads() > 0 ? new BotPool(config.getBotThreads(), config.getBotMoveMillis()) : null;
+        this.gameLog = openGameLog();
+    }
+
+    // Rebuilds the rooms in the log before any client can connect
+    private GameLog openGameLog() {
+        if (config.getGameLogDirectory() == null) {
+            return GameLog.NONE;
+        }
+        RoomRecovery recovery = new RoomRecovery(this);
+        MappedGameLog log;
+        try {
+            log = MappedGameLog.open(config.getGameLogDirectory(), config.getGameLogSegmentBytes(),
+                    config.getGameLogSyncMillis(), recovery);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to open the game log", ex);
+        }
+        registry.reserveIdsThrough(log.getHighestRoomId());
+        for (Room room : recovery.getRooms()) {
+            room.resume(log);
+            lobby.roomChanged(room);
         }
+        LOGGER.info("Recovered " + recovery.getRooms().size() + " room(s) from the game log");
+        Runtime.getRuntime().addShutdownHook(new Thread(log::close, "game-log-close"));
+        return log;
     }
 
     public void start() {
-        try (ServerSocket serverSocket = new ServerSocket(PORT)) {
-            LOGGER.info("Server is listening on port " + PORT);
+        startMetrics();
+        if (config.getNodeLinkPort() > 0) {
+            Thread.ofPlatform().name("node-links").daemon().start(this::acceptLinks);
+        }
+        listen(this);
+    }
+
+    /**
+     * Accepts clients for {@code frontend} on the configured port and transport, until the
+     * listening socket fails.
+     */
+    static void listen(Frontend frontend) {
+        ServerConfig config = frontend.getConfig();
+        if (config.getTransportMode() == ServerConfig.TransportMode.NIO) {
+            try {
+                new NioTransport(frontend, config).start();
+            } catch (IOException ex) {
+                LOGGER.log(Level.SEVERE, "Server exception", ex);
+            }
+            return;
+        }
+
+        Thread.Builder sessionThreads = config.getTransportMode() == ServerConfig.TransportMode.VIRTUAL
+                ? Thread.ofVirtual().name("client-", 0)
+                : Thread.ofPlatform().name("client-", 0);
+
+        try (ServerSocket serverSocket = new ServerSocket(config.getPort())) {
+            LOGGER.info("Server is listening on port " + config.getPort() + " (" + config.getTransportMode() + ")");
 
             while (true) {
                 Socket socket = serverSocket.accept();
-                new ClientHandler(socket, this).start();
+                sessionThreads.start(new ClientHandler(socket, frontend));
             }
 
         } catch (IOException ex) {
@@ -35,48 +111,195 @@ public class Server {
         }
     }
 
-    public synchronized Room createRoom(String creator, int maxPlayers, int rounds) {
-        LOGGER.log(Level.INFO, "round numbers: " + rounds);
-        for (int i = 0; i < rooms.size(); i++) {
-            if (rooms.get(i).getCreator() == null) {
-                Room room = new Room(creator, maxPlayers, rounds);
-                rooms.set(i, room);
-                notifyAll();  // Notify any waiting threads that the room list has been updated
-                return room;
+    // Gateways connect here; each link carries many of their clients
+    private void acceptLinks() {
+        try (ServerSocket linkSocket = new ServerSocket(config.getNodeLinkPort(), 50,
+                InetAddress.getByName(config.getNodeLinkHost()))) {
+            LOGGER.info("Accepting gateway links on " + config.getNodeLinkHost() + ":" + config.getNodeLinkPort());
+            while (true) {
+                Socket socket = linkSocket.accept();
+                Thread.ofVirtual().name("gateway-link").start(new GatewayLink(socket, this));
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.SEVERE, "Gateway link listener failed", ex);
+        }
+    }
+
+    private void startMetrics() {
+        ServerMetrics metrics = new ServerMetrics(this);
+        metrics.register();
+        if (config.getMetricsPort() > 0) {
+            try {
+                new MetricsEndpoint(metrics, config.getMetricsHost(), config.getMetricsPort()).start();
+            } catch (IOException ex) {
+                LOGGER.log(Level.SEVERE, "Failed to start metrics endpoint", ex);
             }
         }
-        Room newRoom = new Room(creator, maxPlayers, rounds);
-        rooms.add(newRoom);  // Add new room to the list
-        notifyAll();  // Notify any waiting threads that the room list has been updated
-        return newRoom;
     }
 
-    public synchronized void removeRoom(Room room) {
-        int index = rooms.indexOf(room);
-        if (index != -1) {
-            rooms.set(index, new Room(null, 4, 7));
+    @Override
+    public ServerConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public OutboundQueue newOutboundQueue(ClientConnection connection, Runnable abort) {
+        return new OutboundQueue(connection, outboundWriters, () -> true, abort,
+                config.getOverflowPolicy(), config.getOutboundQueueCapacity());
+    }
+
+    @Override
+    public RequestHandler newSession(ClientConnection connection) {
+        return new ClientSession(this, connection);
+    }
+
+    /**
+     * Idle tracking for a new connection on the shared timer, or null when heartbeats are off.
+     */
+    public Heartbeat newHeartbeat(ClientConnection connection, Runnable close) {
+        if (config.getHeartbeatIntervalMillis() == 0) {
+            return null;
         }
+        return new Heartbeat(scheduler, config.getHeartbeatIntervalMillis(), config.getHeartbeatTimeoutMillis(),
+                connection, close);
     }
 
-    public synchronized List<Room> getRooms() {
-        return new ArrayList<>(rooms);
+    public Room createRoom(String creator, int maxPlayers, int rounds) {
+        return createRoom(creator, maxPlayers, rounds, room -> true);
     }
 
-    public synchronized Room getRoomByCreator(String creator) {
-        for (Room room : rooms) {
-            if (room.getCreator() != null && room.getCreator().equals(creator)) {
-                return room;
+    /**
+     * Creates a room and runs {@code setup} on it under the room lock as it is registered, so no
+     * other command can reach the room first. If the setup returns false the room is closed again.
+     */
+    public Room createRoom(String creator, int maxPlayers, int rounds, Predicate<Room> setup) {
+        long id = registry.nextId();
+        EVENTS.log(Level.INFO, "room.created", "room", id, "creator", creator, "seats", maxPlayers);
+        Room room = newRoom(id, creator, maxPlayers, rounds, gameLog);
+        // Logged before the room can be found, so no join is ever logged ahead of it
+        gameLog.roomCreated(id, creator, maxPlayers, rounds);
+        boolean[] outcome = new boolean[2];
+        room.batch(() -> {
+            outcome[0] = registry.register(room);
+            outcome[1] = outcome[0] && setup.test(room);
+        });
+        if (!outcome[1]) {
+            if (outcome[0]) {
+                registry.unregister(room, room.closeRoom());
+            } else {
+                gameLog.roomClosed(id);
             }
+            return null;
+        }
+        lobby.roomChanged(room);
+        return room;
+    }
+
+    /**
+     * Claims {@code player}'s name for {@code room} before they are seated there, so they cannot
+     * sit down anywhere else in between. Fails if the name is already seated or claimed.
+     */
+    public boolean reservePlayer(Room room, String player) {
+        return registry.reserve(room, player);
+    }
+
+    public void releasePlayer(Room room, String player) {
+        registry.release(room, player);
+    }
+
+    /**
+     * Registers a room replayed from the game log under its original id.
+     */
+    Room restoreRoom(long id, String creator, int maxPlayers, int rounds) {
+        Room room = newRoom(id, creator, maxPlayers, rounds, GameLog.NONE);
+        room.beginReplay();
+        return registry.register(room) ? room : null;
+    }
+
+    private Room newRoom(long id, String creator, int maxPlayers, int rounds, GameLog log) {
+        Executor executor = roomWorkers != null ? roomWorkers.executorFor(id) : Runnable::run;
+        SpectatorFeed spectators = new SpectatorFeed(scheduler, spectatorWriters, config.getSpectatorDelayMillis());
+        return new Room(id, creator, maxPlayers, rounds, scheduler, config.getTrickPauseMillis(), lobby, executor, log,
+                spectators, config.getResumeBufferSize());
+    }
+
+    /**
+     * Seats a player, unless the room is gone or full or the name is already seated in any room.
+     */
+    public boolean joinRoom(Room room, Player player) {
+        return registry.join(room, player);
+    }
+
+    /**
+     * Seats bots in the empty seats of {@code room}, if bots are on. Runs as a room task.
+     */
+    public void fillWithBots(Room room) {
+        if (bots != null) {
+            bots.fill(this, room);
         }
-        return null;
     }
 
-    public synchronized Room getRoomByPlayer(String player) {
-        for (Room room : rooms) {
-            if (room.getPlayers().contains(player)) {
-                return room;
+    /**
+     * Runs {@code task} on the shared timer after {@code delayMillis}. It runs on the timer thread,
+     * so anything touching a room should be handed to {@link Room#execute}.
+     */
+    public void schedule(Runnable task, long delayMillis) {
+        scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean leaveRoom(Room room, String player) {
+        return registry.leave(room, player);
+    }
+
+    public void closeRoom(Room room) {
+        registry.unregister(room, room.closeRoom());
+        lobby.roomRemoved(room);
+        matchmaker.roomClosed(room);
+    }
+
+    public LobbyFeed getLobby() {
+        return lobby;
+    }
+
+    public Matchmaker getMatchmaker() {
+        return matchmaker;
+    }
+
+    public int getRoomCount() {
+        return registry.size();
+    }
+
+    public int getRoomsInGame() {
+        int count = 0;
+        for (RoomSummary summary : registry.summaries()) {
+            if (summary.started()) {
+                count++;
             }
         }
-        return null;
+        return count;
+    }
+
+    public long getPendingTimers() {
+        return scheduler.getPendingCount();
+    }
+
+    public int getRoomWorkerBacklog() {
+        return roomWorkers != null ? roomWorkers.getMailboxDepth() : 0;
+    }
+
+    public List<Room> getRooms() {
+        return registry.snapshot();
+    }
+
+    public Room getRoomById(long id) {
+        return registry.getById(id);
+    }
+
+    public Room getRoomByCreator(String creator) {
+        return registry.getByCreator(creator);
+    }
+
+    public Room getRoomByPlayer(String player) {
+        return registry.getByPlayer(player);
     }
 }
@@ -0,0 +1,371 @@
+package com.yourpackage;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.logging.Level;
+
+/**
+ * Startup settings for the server, read from {@code hokm.*} properties, normally given as
+ * {@code -Dhokm.*} system properties.
+ */
+public class ServerConfig {
+    public enum TransportMode {
+        BLOCKING,
+        VIRTUAL,
+        NIO
+    }
+
+    /**
+     * A token bucket's refill rate and size; a rate of 0 means unlimited.
+     */
+    public record RateLimit(int perSecond, int burst) {
+        /**
+         * A bucket for one connection, or null when unlimited.
+         */
+        public TokenBucket newBucket() {
+            return perSecond == 0 ? null : new TokenBucket(perSecond, burst);
+        }
+    }
+
+    private static final String LOG_LEVEL_PREFIX = "hokm.log.level.";
+    private static final String LOG_SAMPLE_PREFIX = "hokm.log.sample.";
+
+    private final int port;
+    private final TransportMode transportMode;
+    private final int eventLoopThreads;
+    private final int outboundQueueCapacity;
+    private final OutboundQueue.OverflowPolicy overflowPolicy;
+    private final long trickPauseMillis;
+    private final long lobbyIntervalMillis;
+    private final long spectatorDelayMillis;
+    private final long heartbeatIntervalMillis;
+    private final long heartbeatTimeoutMillis;
+    private final RateLimit commandRateLimit;
+    private final RateLimit chatRateLimit;
+    private final RateLimit roomListRateLimit;
+    private final int maxMessageBytes;
+    private final long matchTickMillis;
+    private final int matchRatingBand;
+    private final long matchBandTimeoutMillis;
+    private final int roomWorkerThreads;
+    private final String metricsHost;
+    private final int metricsPort;
+    private final Path gameLogDirectory;
+    private final int gameLogSegmentBytes;
+    private final long gameLogSyncMillis;
+    private final String nodeLinkHost;
+    private final int nodeLinkPort;
+    private final List<InetSocketAddress> gatewayNodes;
+    private final int botThreads;
+    private final long botMoveMillis;
+    private final int logBufferSize;
+    private final int resumeBufferSize;
+    private final long resumeGraceMillis;
+    private final Map<String, Level> logLevels;
+    private final Map<String, Integer> logSampleRates;
+
+    private ServerConfig(Properties properties) {
+        port = intProperty(properties, "hokm.port", 12345);
+        transportMode = TransportMode.valueOf(stringProperty(properties, "hokm.transport", "blocking"));
+        eventLoopThreads = Math.max(1, intProperty(properties, "hokm.eventLoops",
+                Runtime.getRuntime().availableProcessors()));
+        outboundQueueCapacity = Math.max(1, intProperty(properties, "hokm.outbound.capacity", 256));
+        overflowPolicy = OutboundQueue.OverflowPolicy.valueOf(
+                stringProperty(properties, "hokm.outbound.overflow", "coalesce"));
+        trickPauseMillis = Math.max(0, intProperty(properties, "hokm.trickPauseMillis", 5000));
+        lobbyIntervalMillis = Math.max(0, intProperty(properties, "hokm.lobby.intervalMillis", 250));
+        spectatorDelayMillis = Math.max(0, intProperty(properties, "hokm.spectator.delayMillis", 0));
+        heartbeatIntervalMillis = Math.max(0, intProperty(properties, "hokm.heartbeat.intervalMillis", 15000));
+        heartbeatTimeoutMillis = Math.max(heartbeatIntervalMillis,
+                intProperty(properties, "hokm.heartbeat.timeoutMillis", 45000));
+        commandRateLimit = rateLimit(properties, "hokm.rate.commands", 50, 100);
+        chatRateLimit = rateLimit(properties, "hokm.rate.chat", 2, 5);
+        roomListRateLimit = rateLimit(properties, "hokm.rate.roomList", 2, 5);
+        matchTickMillis = Math.max(10, intProperty(properties, "hokm.match.tickMillis", 100));
+        matchRatingBand = Math.max(1, intProperty(properties, "hokm.match.ratingBand", 200));
+        matchBandTimeoutMillis = Math.max(0, intProperty(properties, "hokm.match.bandTimeoutMillis", 10000));
+        maxMessageBytes = Math.min(0xFFFF, Math.max(64, intProperty(properties, "hokm.maxMessageBytes", 4096)));
+        // An event loop must not run room commands itself, or one slow room stalls all its connections
+        roomWorkerThreads = Math.max(0, intProperty(properties, "hokm.roomWorkers",
+                transportMode == TransportMode.NIO ? Runtime.getRuntime().availableProcessors() : 0));
+        if (roomWorkerThreads == 0 && transportMode == TransportMode.NIO) {
+            throw new IllegalArgumentException("hokm.roomWorkers must be at least 1 with the NIO transport");
+        }
+        metricsHost = properties.getProperty("hokm.metrics.host", "127.0.0.1").trim();
+        metricsPort = Math.max(0, intProperty(properties, "hokm.metrics.port", 0));
+        String logDirectory = properties.getProperty("hokm.gamelog.dir", "").trim();
+        gameLogDirectory = logDirectory.isEmpty() ? null : Path.of(logDirectory);
+        gameLogSegmentBytes = Math.min(1024, Math.max(1, intProperty(properties, "hokm.gamelog.segmentMegabytes", 16))) << 20;
+        gameLogSyncMillis = Math.max(1, intProperty(properties, "hokm.gamelog.syncMillis", 10));
+        nodeLinkHost = properties.getProperty("hokm.node.linkHost", "127.0.0.1").trim();
+        nodeLinkPort = Math.max(0, intProperty(properties, "hokm.node.linkPort", 0));
+        gatewayNodes = addresses(properties.getProperty("hokm.gateway.nodes", ""));
+        botThreads = Math.max(0, intProperty(properties, "hokm.bot.threads", 0));
+        botMoveMillis = Math.max(1, intProperty(properties, "hokm.bot.moveMillis", 250));
+        logBufferSize = Math.max(0, intProperty(properties, "hokm.log.bufferSize", 8192));
+        resumeBufferSize = Math.max(0, intProperty(properties, "hokm.resume.bufferSize", 256));
+        resumeGraceMillis = Math.max(0, intProperty(properties, "hokm.resume.graceMillis", 30000));
+        logLevels = new TreeMap<>();
+        logSampleRates = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(LOG_LEVEL_PREFIX)) {
+                logLevels.put(key.substring(LOG_LEVEL_PREFIX.length()), Level.parse(stringProperty(properties, key, "")));
+            } else if (key.startsWith(LOG_SAMPLE_PREFIX)) {
+                logSampleRates.put(key.substring(LOG_SAMPLE_PREFIX.length()), Math.max(1, intProperty(properties, key, 1)));
+            }
+        }
+    }
+
+    public static ServerConfig fromSystemProperties() {
+        return fromProperties(System.getProperties());
+    }
+
+    public static ServerConfig fromProperties(Properties properties) {
+        return new ServerConfig(properties);
+    }
+
+    private static int intProperty(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static RateLimit rateLimit(Properties properties, String prefix, int perSecond, int burst) {
+        return new RateLimit(Math.max(0, intProperty(properties, prefix + "PerSecond", perSecond)),
+                Math.max(1, intProperty(properties, prefix + "Burst", burst)));
+    }
+
+    // host:port pairs separated by commas
+    private static List<InetSocketAddress> addresses(String value) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String address : value.split(",")) {
+            address = address.trim();
+            if (address.isEmpty()) {
+                continue;
+            }
+            int colon = address.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Expected host:port but got " + address);
+            }
+            addresses.add(InetSocketAddress.createUnresolved(address.substring(0, colon),
+                    Integer.parseInt(address.substring(colon + 1))));
+        }
+        return List.copyOf(addresses);
+    }
+
+    private static String stringProperty(Properties properties, String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue).trim().toUpperCase();
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public TransportMode getTransportMode() {
+        return transportMode;
+    }
+
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    public int getOutboundQueueCapacity() {
+        return outboundQueueCapacity;
+    }
+
+    public OutboundQueue.OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public long getTrickPauseMillis() {
+        return trickPauseMillis;
+    }
+
+    public long getLobbyIntervalMillis() {
+        return lobbyIntervalMillis;
+    }
+
+    /**
+     * How long a connection may stay quiet before it is pinged, or 0 to turn heartbeats off.
+     */
+    public long getHeartbeatIntervalMillis() {
+        return heartbeatIntervalMillis;
+    }
+
+    /**
+     * How long a connection may stay quiet before it is considered dead and closed.
+     */
+    public long getHeartbeatTimeoutMillis() {
+        return heartbeatTimeoutMillis;
+    }
+
+    /**
+     * Commands of any kind one connection may send.
+     */
+    public RateLimit getCommandRateLimit() {
+        return commandRateLimit;
+    }
+
+    /**
+     * Chat messages one connection may send, on top of the command limit.
+     */
+    public RateLimit getChatRateLimit() {
+        return chatRateLimit;
+    }
+
+    /**
+     * Room list requests one connection may send, on top of the command limit.
+     */
+    public RateLimit getRoomListRateLimit() {
+        return roomListRateLimit;
+    }
+
+    /**
+     * How often the matchmaker forms tables from its queues.
+     */
+    public long getMatchTickMillis() {
+        return matchTickMillis;
+    }
+
+    /**
+     * The width of a matchmaking rating band; rated players are only matched within theirs.
+     */
+    public int getMatchRatingBand() {
+        return matchRatingBand;
+    }
+
+    /**
+     * How long a rated player waits for their band before being matched with anyone.
+     */
+    public long getMatchBandTimeoutMillis() {
+        return matchBandTimeoutMillis;
+    }
+
+    /**
+     * The longest single request accepted; a longer one closes the connection.
+     */
+    public int getMaxMessageBytes() {
+        return maxMessageBytes;
+    }
+
+    /**
+     * How far spectators lag behind the table, so a stream cannot be used to help the players.
+     */
+    public long getSpectatorDelayMillis() {
+        return spectatorDelayMillis;
+    }
+
+    /**
+     * Threads that rooms are pinned to, or 0 to run room commands on the client's own thread. The
+     * NIO transport defaults to one per CPU and does not allow 0, so room commands never run on a
+     * selector thread.
+     */
+    public int getRoomWorkerThreads() {
+        return roomWorkerThreads;
+    }
+
+    public String getMetricsHost() {
+        return metricsHost;
+    }
+
+    /**
+     * Port of the HTTP metrics endpoint, or 0 to leave it off.
+     */
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    /**
+     * Where the write-ahead game log lives, or null to run without one.
+     */
+    public Path getGameLogDirectory() {
+        return gameLogDirectory;
+    }
+
+    public int getGameLogSegmentBytes() {
+        return gameLogSegmentBytes;
+    }
+
+    /**
+     * How often appended game log records are forced to disk.
+     */
+    public long getGameLogSyncMillis() {
+        return gameLogSyncMillis;
+    }
+
+    /**
+     * Address the gateway link listener binds to. Links are not authenticated, so only trusted
+     * gateways should be able to reach it.
+     */
+    public String getNodeLinkHost() {
+        return nodeLinkHost;
+    }
+
+    /**
+     * Port this game node accepts gateway links on, or 0 to take clients directly only.
+     */
+    public int getNodeLinkPort() {
+        return nodeLinkPort;
+    }
+
+    /**
+     * The link addresses of the game nodes to run a gateway in front of, in a fixed order that
+     * decides which node owns which room; empty to run as a game server.
+     */
+    public List<InetSocketAddress> getGatewayNodes() {
+        return gatewayNodes;
+    }
+
+    /**
+     * Threads that bots search their moves on, or 0 to never seat bots.
+     */
+    public int getBotThreads() {
+        return botThreads;
+    }
+
+    /**
+     * How long a bot may take over one move, from the moment it is its turn.
+     */
+    public long getBotMoveMillis() {
+        return botMoveMillis;
+    }
+
+    /**
+     * Log records that may wait for the background writer, or 0 to log synchronously.
+     */
+    public int getLogBufferSize() {
+        return logBufferSize;
+    }
+
+    /**
+     * Game events kept per seated player for {@code RESUME}, or 0 to issue no resume tokens.
+     */
+    public int getResumeBufferSize() {
+        return resumeBufferSize;
+    }
+
+    /**
+     * How long a room left with only bots after a player dropped out stays open for them to resume.
+     */
+    public long getResumeGraceMillis() {
+        return resumeGraceMillis;
+    }
+
+    /**
+     * Starting levels of {@link EventLog} categories, by category.
+     */
+    public Map<String, Level> getLogLevels() {
+        return logLevels;
+    }
+
+    /**
+     * Starting sample rates of {@link EventLog} categories, as one-in-n by category.
+     */
+    public Map<String, Integer> getLogSampleRates() {
+        return logSampleRates;
+    }
+}
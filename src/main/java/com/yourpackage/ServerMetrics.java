@@ -0,0 +1,314 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Opcode;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads {@link Metrics} together with the server's gauges, for JMX and in the Prometheus text
+ * format. Histograms are exported as summaries with fixed quantiles, in seconds.
+ */
+public class ServerMetrics implements ServerMetricsMXBean {
+    private static final Logger LOGGER = Logger.getLogger(ServerMetrics.class.getName());
+    private static final String OBJECT_NAME = "com.yourpackage:type=ServerMetrics";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Server server;
+
+    public ServerMetrics(Server server) {
+        this.server = server;
+    }
+
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to register " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public long getActiveConnections() {
+        return Metrics.getActiveConnections();
+    }
+
+    @Override
+    public long getConnectionsOpened() {
+        return Metrics.getConnectionsOpened();
+    }
+
+    @Override
+    public int getActiveRooms() {
+        return server.getRoomCount();
+    }
+
+    @Override
+    public int getRoomsInGame() {
+        return server.getRoomsInGame();
+    }
+
+    @Override
+    public long getGamesStarted() {
+        return Metrics.getGamesStarted();
+    }
+
+    @Override
+    public long getGamesFinished() {
+        return Metrics.getGamesFinished();
+    }
+
+    @Override
+    public long getRejectedRequests() {
+        return Metrics.getRejectedRequests();
+    }
+
+    @Override
+    public long getWriteFailures() {
+        return Metrics.getWriteFailures();
+    }
+
+    @Override
+    public Map<String, Long> getThrottledRequests() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int opcode = 0; opcode < Opcode.HELLO; opcode++) {
+            long count = Metrics.getThrottledRequests(opcode);
+            if (count > 0) {
+                counts.put(Opcode.nameOf(opcode), count);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public long getOversizedMessages() {
+        return Metrics.getOversizedMessages();
+    }
+
+    @Override
+    public long getHeartbeatTimeouts() {
+        return Metrics.getHeartbeatTimeouts();
+    }
+
+    @Override
+    public long getBotPlayouts() {
+        return Metrics.getBotPlayouts();
+    }
+
+    @Override
+    public long getLogRecordsDropped() {
+        return Metrics.getLogRecordsDropped();
+    }
+
+    @Override
+    public long getSessionsResumed() {
+        return Metrics.getSessionsResumed();
+    }
+
+    @Override
+    public long getSessionsRebuilt() {
+        return Metrics.getSessionsRebuilt();
+    }
+
+    @Override
+    public long getEventsReplayed() {
+        return Metrics.getEventsReplayed();
+    }
+
+    @Override
+    public long getOutboundQueueDepth() {
+        return OutboundQueue.getTotalDepth();
+    }
+
+    @Override
+    public long getOutboundDropped() {
+        return OutboundQueue.getTotalDropped();
+    }
+
+    @Override
+    public long getOutboundCoalesced() {
+        return OutboundQueue.getTotalCoalesced();
+    }
+
+    @Override
+    public long getOverflowDisconnects() {
+        return OutboundQueue.getOverflowDisconnects();
+    }
+
+    @Override
+    public int getLobbySubscribers() {
+        return server.getLobby().getSubscriberCount();
+    }
+
+    @Override
+    public long getSpectators() {
+        return SpectatorFeed.getTotalSpectators();
+    }
+
+    @Override
+    public int getQuickPlayQueued() {
+        return server.getMatchmaker().getQueuedCount();
+    }
+
+    @Override
+    public Map<String, Double> getMatchWaitP99Millis() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (int tableSize : Matchmaker.TABLE_SIZES) {
+            LatencyHistogram histogram = Metrics.getMatchWait(tableSize);
+            if (histogram != null && histogram.getTotalCount() > 0) {
+                values.put(Integer.toString(tableSize), histogram.getValueAtPercentile(99) / 1_000_000.0);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public int getRoomWorkerBacklog() {
+        return server.getRoomWorkerBacklog();
+    }
+
+    @Override
+    public long getPendingTimers() {
+        return server.getPendingTimers();
+    }
+
+    @Override
+    public Map<String, Long> getCommandCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int opcode = 0; opcode < Opcode.HELLO; opcode++) {
+            LatencyHistogram histogram = Metrics.getCommandLatency(opcode);
+            if (histogram != null && histogram.getTotalCount() > 0) {
+                counts.put(Opcode.nameOf(opcode), histogram.getTotalCount());
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getCommandP99Micros() {
+        return p99Micros(Metrics::getCommandLatency);
+    }
+
+    @Override
+    public Map<String, Double> getBroadcastP99Micros() {
+        return p99Micros(Metrics::getBroadcastLatency);
+    }
+
+    private static Map<String, Double> p99Micros(IntFunction<LatencyHistogram> histograms) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (int opcode = 0; opcode < 256; opcode++) {
+            LatencyHistogram histogram = histograms.apply(opcode);
+            if (histogram != null && histogram.getTotalCount() > 0) {
+                values.put(Opcode.nameOf(opcode), histogram.getValueAtPercentile(99) / 1_000.0);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The current values in the Prometheus text exposition format, version 0.0.4.
+     */
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+        gauge(out, "hokm_active_connections", "Open client connections.", getActiveConnections());
+        counter(out, "hokm_connections_opened_total", "Client connections accepted.", getConnectionsOpened());
+        gauge(out, "hokm_active_rooms", "Rooms in the registry.", getActiveRooms());
+        gauge(out, "hokm_rooms_in_game", "Rooms whose game has started.", getRoomsInGame());
+        counter(out, "hokm_games_started_total", "Games started.", getGamesStarted());
+        counter(out, "hokm_games_finished_total", "Games played to the end.", getGamesFinished());
+        counter(out, "hokm_rejected_requests_total", "Requests answered with ERROR.", getRejectedRequests());
+        header(out, "hokm_throttled_requests_total", "Requests refused by a rate limit.", "counter");
+        for (Map.Entry<String, Long> entry : getThrottledRequests().entrySet()) {
+            out.append("hokm_throttled_requests_total{command=\"").append(entry.getKey()).append("\"} ")
+                    .append(entry.getValue()).append('\n');
+        }
+        counter(out, "hokm_oversized_messages_total", "Connections closed for a request over the size limit.",
+                getOversizedMessages());
+        counter(out, "hokm_write_failures_total", "Events that could not be written to a client.",
+                getWriteFailures());
+        counter(out, "hokm_heartbeat_timeouts_total", "Connections closed for not answering pings.",
+                getHeartbeatTimeouts());
+        counter(out, "hokm_bot_playouts_total", "Hands played out by bots searching for a move.", getBotPlayouts());
+        counter(out, "hokm_log_dropped_total", "Log records dropped because the log writer fell behind.",
+                getLogRecordsDropped());
+        counter(out, "hokm_resumes_total", "Seats taken back with RESUME.", getSessionsResumed());
+        counter(out, "hokm_resume_rebuilds_total", "Resumes that missed more events than are kept.",
+                getSessionsRebuilt());
+        counter(out, "hokm_replayed_events_total", "Game events sent again to resumed players.",
+                getEventsReplayed());
+        gauge(out, "hokm_outbound_queue_depth", "Events queued for all clients.", getOutboundQueueDepth());
+        counter(out, "hokm_outbound_dropped_total", "Chat events dropped on overflow.", getOutboundDropped());
+        counter(out, "hokm_outbound_coalesced_total", "Snapshot events replaced on overflow.",
+                getOutboundCoalesced());
+        counter(out, "hokm_overflow_disconnects_total", "Clients dropped for a full outbound queue.",
+                getOverflowDisconnects());
+        gauge(out, "hokm_lobby_subscribers", "Connections subscribed to lobby updates.", getLobbySubscribers());
+        gauge(out, "hokm_spectators", "Connections watching a room.", getSpectators());
+        gauge(out, "hokm_quick_play_queued", "Players waiting in the matchmaking queue.", getQuickPlayQueued());
+        gauge(out, "hokm_room_worker_backlog", "Room commands waiting in worker mailboxes.",
+                getRoomWorkerBacklog());
+        gauge(out, "hokm_pending_timers", "Timeouts scheduled on the timer wheel.", getPendingTimers());
+        counter(out, "hokm_broadcast_recipients_total", "Connections addressed by room broadcasts.",
+                Metrics.getBroadcastRecipients());
+        summaries(out, "hokm_command_duration_seconds", "Time to handle a client command.", "command",
+                Metrics::getCommandLatency);
+        summaries(out, "hokm_broadcast_duration_seconds", "Time to fan an event out to a room.", "event",
+                Metrics::getBroadcastLatency);
+        header(out, "hokm_match_wait_seconds", "Time from QUICK_PLAY to being seated at a table.", "summary");
+        for (int tableSize : Matchmaker.TABLE_SIZES) {
+            LatencyHistogram histogram = Metrics.getMatchWait(tableSize);
+            if (histogram != null && histogram.getTotalCount() > 0) {
+                summary(out, "hokm_match_wait_seconds", "table=\"" + tableSize + "\"", histogram);
+            }
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, help, "gauge");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, help, "counter");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void summaries(StringBuilder out, String name, String help, String label,
+                                  IntFunction<LatencyHistogram> histograms) {
+        header(out, name, help, "summary");
+        for (int opcode = 0; opcode < 256; opcode++) {
+            LatencyHistogram histogram = histograms.apply(opcode);
+            if (histogram == null || histogram.getTotalCount() == 0) {
+                continue;
+            }
+            summary(out, name, label + "=\"" + Opcode.nameOf(opcode) + "\"", histogram);
+        }
+    }
+
+    private static void summary(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        for (double quantile : QUANTILES) {
+            out.append(name).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                    .append(seconds(histogram.getValueAtPercentile(quantile * 100))).append('\n');
+        }
+        out.append(name).append("_sum{").append(labels).append("} ")
+                .append(seconds(histogram.getSum())).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ")
+                .append(histogram.getTotalCount()).append('\n');
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+}
@@ -0,0 +1,70 @@
+package com.yourpackage;
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link ServerMetrics}, registered as {@code com.yourpackage:type=ServerMetrics}.
+ * Latency maps are keyed by opcode name and hold microseconds.
+ */
+public interface ServerMetricsMXBean {
+    long getActiveConnections();
+
+    long getConnectionsOpened();
+
+    int getActiveRooms();
+
+    int getRoomsInGame();
+
+    long getGamesStarted();
+
+    long getGamesFinished();
+
+    long getRejectedRequests();
+
+    Map<String, Long> getThrottledRequests();
+
+    long getOversizedMessages();
+
+    long getWriteFailures();
+
+    long getHeartbeatTimeouts();
+
+    long getBotPlayouts();
+
+    long getLogRecordsDropped();
+
+    long getSessionsResumed();
+
+    long getSessionsRebuilt();
+
+    long getEventsReplayed();
+
+    long getOutboundQueueDepth();
+
+    long getOutboundDropped();
+
+    long getOutboundCoalesced();
+
+    long getOverflowDisconnects();
+
+    int getLobbySubscribers();
+
+    long getSpectators();
+
+    int getQuickPlayQueued();
+
+    /**
+     * Keyed by table size.
+     */
+    Map<String, Double> getMatchWaitP99Millis();
+
+    int getRoomWorkerBacklog();
+
+    long getPendingTimers();
+
+    Map<String, Long> getCommandCounts();
+
+    Map<String, Double> getCommandP99Micros();
+
+    Map<String, Double> getBroadcastP99Micros();
+}
@@ -0,0 +1,14 @@
+package com.yourpackage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An output stream that can queue an event's shared encoding by reference instead of copying it.
+ */
+public interface SharedBufferOutput {
+    /**
+     * Queues {@code bytes} after anything written so far, retaining {@code owner} until they are sent.
+     */
+    void writeShared(ByteBuffer bytes, SharedEvent owner) throws IOException;
+}
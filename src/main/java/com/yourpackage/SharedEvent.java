@@ -0,0 +1,130 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.FrameCodec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An event encoded at most once per protocol and shared by every connection it is sent to.
+ * The encoded bytes live in pooled buffers and are reference counted: whoever hands the event to
+ * a connection retains it first, and the connection releases it once written or discarded. The
+ * last release returns the buffers to the {@link BufferPool}.
+ */
+public final class SharedEvent {
+    private static final int INITIAL_FRAME_SIZE = 256;
+
+    private final Event event;
+    private final AtomicInteger references = new AtomicInteger(1);
+    private final AtomicReference<ByteBuffer> frame = new AtomicReference<>();
+    private final AtomicReference<ByteBuffer> serializedString = new AtomicReference<>();
+
+    private SharedEvent(Event event) {
+        this.event = event;
+    }
+
+    /**
+     * Wraps {@code event} with one reference, owned by the caller.
+     */
+    public static SharedEvent of(Event event) {
+        return new SharedEvent(event);
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public SharedEvent retain() {
+        if (references.getAndIncrement() <= 0) {
+            throw new IllegalStateException("Event already released");
+        }
+        return this;
+    }
+
+    public void release() {
+        int remaining = references.decrementAndGet();
+        if (remaining == 0) {
+            recycle(frame);
+            recycle(serializedString);
+        } else if (remaining < 0) {
+            throw new IllegalStateException("Event released too often");
+        }
+    }
+
+    /**
+     * The binary protocol frames, as a view the caller may consume on its own.
+     */
+    public ByteBuffer binaryFrame() {
+        ByteBuffer bytes = frame.get();
+        if (bytes == null) {
+            bytes = install(frame, encodeFrame());
+        }
+        return bytes.asReadOnlyBuffer();
+    }
+
+    /**
+     * The legacy text as a serialized {@code String} object, as {@code writeObject} would write it.
+     */
+    public ByteBuffer serializedString() {
+        ByteBuffer bytes = serializedString.get();
+        if (bytes == null) {
+            bytes = install(serializedString, SerializedConnection.encodeString(event.toLegacyText()));
+        }
+        return bytes.asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes {@code bytes}, a view of this event's encoding, to {@code out}: by reference if the
+     * stream can hold on to shared buffers, otherwise copied through {@code scratch}.
+     *
+     * @return the scratch array, replaced by a larger one if it was too small
+     */
+    public byte[] writeTo(OutputStream out, ByteBuffer bytes, byte[] scratch) throws IOException {
+        if (out instanceof SharedBufferOutput shared) {
+            shared.writeShared(bytes, this);
+            return scratch;
+        }
+        if (scratch.length < bytes.remaining()) {
+            scratch = new byte[Math.max(bytes.remaining(), scratch.length * 2)];
+        }
+        int length = bytes.remaining();
+        bytes.get(scratch, 0, length);
+        out.write(scratch, 0, length);
+        return scratch;
+    }
+
+    private ByteBuffer encodeFrame() {
+        int size = INITIAL_FRAME_SIZE;
+        while (true) {
+            ByteBuffer buffer = BufferPool.acquire(size);
+            try {
+                FrameCodec.encodeEvent(event, buffer);
+                return buffer.flip();
+            } catch (BufferOverflowException e) {
+                BufferPool.release(buffer);
+                size *= 2;
+            }
+        }
+    }
+
+    // Two connections may encode at once; the loser's copy goes straight back to the pool
+    private static ByteBuffer install(AtomicReference<ByteBuffer> slot, ByteBuffer encoded) {
+        if (slot.compareAndSet(null, encoded)) {
+            return encoded;
+        }
+        BufferPool.release(encoded);
+        return slot.get();
+    }
+
+    private static void recycle(AtomicReference<ByteBuffer> slot) {
+        ByteBuffer bytes = slot.getAndSet(null);
+        if (bytes != null) {
+            BufferPool.release(bytes);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.CardCodes;
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.Opcode;
+import com.yourpackage.protocol.TableSnapshot;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Fans a room's public events out to spectators, who hold no seat and never see a hand. The room
+ * only queues each event; delivery runs on the fan-out executor once an event is the configured
+ * delay old, so however many spectators watch, play never waits for them. The feed keeps its own
+ * view of the table as of the last delivered event, which a new spectator gets as a
+ * {@code TABLE_SNAPSHOT} that lines up with the delayed stream that follows.
+ */
+public class SpectatorFeed {
+    private static final Logger LOGGER = Logger.getLogger(SpectatorFeed.class.getName());
+    private static final boolean[] PUBLIC = new boolean[256];
+    private static final AtomicLong TOTAL_SPECTATORS = new AtomicLong();
+
+    static {
+        int[] opcodes = {Opcode.USER_LIST, Opcode.PLAYER_LIST_UPDATE, Opcode.GAME_TEAMS, Opcode.MASTER_SELECTED,
+                Opcode.HOKM_SELECTED, Opcode.ROUND_START, Opcode.PLAYER_TURN, Opcode.CARD_PLAYED, Opcode.TURN_WINNER,
+                Opcode.SCORE_UPDATE, Opcode.ROUND_WINS_UPDATE, Opcode.TEAM_WINS_ROUND, Opcode.TEAM_WINS_GAME,
+                Opcode.GAME_OVER, Opcode.ROOM_CLOSED};
+        for (int opcode : opcodes) {
+            PUBLIC[opcode] = true;
+        }
+    }
+
+    private record Pending(long dueNanos, SharedEvent event) {
+    }
+
+    private final TimerWheel scheduler;
+    private final Executor fanout;
+    private final long delayNanos;
+    private final Set<ClientConnection> spectators = ConcurrentHashMap.newKeySet();
+    // Held only to queue or take events, so publishing never waits for a delivery in progress
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    private boolean flushScheduled;
+    // Held while delivering; guards joining spectators and the table view
+    private final ReentrantLock deliveryLock = new ReentrantLock();
+    private boolean closed;
+    private List<String> teamA = List.of();
+    private List<String> teamB = List.of();
+    private boolean started;
+    private int hokmSuit = -1;
+    private int round;
+    private final int[] scores = new int[2];
+    private final int[] roundWins = new int[2];
+    private String turn = "";
+    private final List<String> playedBy = new ArrayList<>(4);
+    private final List<Integer> playedCards = new ArrayList<>(4);
+
+    public SpectatorFeed(TimerWheel scheduler, Executor fanout, long delayMillis) {
+        this.scheduler = scheduler;
+        this.fanout = fanout;
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    }
+
+    /**
+     * Whether spectators may see {@code event}. Private events such as {@code DEAL_CARDS} and
+     * {@code SELECT_HOKM}, and chat, are never published.
+     */
+    public static boolean isPublic(Event event) {
+        return PUBLIC[event.getOpcode()];
+    }
+
+    public static long getTotalSpectators() {
+        return TOTAL_SPECTATORS.get();
+    }
+
+    public int getSpectatorCount() {
+        return spectators.size();
+    }
+
+    /**
+     * Queues a public event, taking over the caller's reference to it.
+     */
+    public void publish(SharedEvent event) {
+        // Nobody watching and nothing queued: keep the view current without a flush task
+        if (delayNanos == 0 && spectators.isEmpty() && deliveryLock.tryLock()) {
+            try {
+                if (spectators.isEmpty() && isQueueEmpty()) {
+                    apply(event.getEvent());
+                    event.release();
+                    return;
+                }
+            } finally {
+                deliveryLock.unlock();
+            }
+        }
+        queueLock.lock();
+        try {
+            pending.add(new Pending(System.nanoTime() + delayNanos, event));
+            if (!flushScheduled) {
+                flushScheduled = true;
+                scheduleFlush(delayNanos);
+            }
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Sends {@code connection} the table as of the last delivered event and adds it to the feed.
+     * Returns false once the room has closed.
+     */
+    public boolean watch(ClientConnection connection) throws IOException {
+        deliveryLock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            if (!spectators.contains(connection)) {
+                connection.send(Event.tableSnapshot(snapshot()));
+                if (spectators.add(connection)) {
+                    TOTAL_SPECTATORS.incrementAndGet();
+                }
+            }
+            return true;
+        } finally {
+            deliveryLock.unlock();
+        }
+    }
+
+    public void unwatch(ClientConnection connection) {
+        if (spectators.remove(connection)) {
+            TOTAL_SPECTATORS.decrementAndGet();
+        }
+    }
+
+    private boolean isQueueEmpty() {
+        queueLock.lock();
+        try {
+            return pending.isEmpty();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    // Called with the queue lock held
+    private void scheduleFlush(long nanos) {
+        if (nanos <= 0) {
+            fanout.execute(this::flush);
+        } else {
+            scheduler.schedule(() -> fanout.execute(this::flush), nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush() {
+        deliveryLock.lock();
+        try {
+            List<SharedEvent> due = new ArrayList<>();
+            queueLock.lock();
+            try {
+                long now = System.nanoTime();
+                while (!pending.isEmpty() && pending.peek().dueNanos() - now <= 0) {
+                    due.add(pending.poll().event());
+                }
+                if (pending.isEmpty()) {
+                    flushScheduled = false;
+                } else {
+                    scheduleFlush(pending.peek().dueNanos() - now);
+                }
+            } finally {
+                queueLock.unlock();
+            }
+            deliver(due);
+        } finally {
+            deliveryLock.unlock();
+        }
+    }
+
+    private void deliver(List<SharedEvent> events) {
+        for (SharedEvent event : events) {
+            apply(event.getEvent());
+        }
+        for (ClientConnection spectator : spectators) {
+            try {
+                for (SharedEvent event : events) {
+                    spectator.send(event.retain());
+                }
+            } catch (IOException e) {
+                // Disconnected spectators fall out of the feed on the first failed push
+                LOGGER.fine("Dropping spectator: " + e.getMessage());
+                unwatch(spectator);
+            }
+        }
+        for (SharedEvent event : events) {
+            event.release();
+        }
+        if (closed) {
+            for (ClientConnection spectator : spectators) {
+                unwatch(spectator);
+            }
+        }
+    }
+
+    // Called with the delivery lock held, in the order events are delivered
+    private void apply(Event event) {
+        switch (event.getOpcode()) {
+            case Opcode.USER_LIST, Opcode.PLAYER_LIST_UPDATE -> {
+                teamA = event.getTeamA();
+                teamB = event.getTeamB();
+            }
+            case Opcode.MASTER_SELECTED -> {
+                started = true;
+                hokmSuit = -1;
+                turn = "";
+                clearTable();
+            }
+            case Opcode.HOKM_SELECTED -> hokmSuit = CardCodes.suitIndex(event.getName());
+            case Opcode.ROUND_START -> round = event.getFirst();
+            case Opcode.PLAYER_TURN -> turn = event.getName();
+            case Opcode.CARD_PLAYED -> {
+                playedBy.add(event.getName());
+                playedCards.add(event.getFirst());
+                turn = "";
+            }
+            case Opcode.TURN_WINNER -> clearTable();
+            case Opcode.SCORE_UPDATE -> {
+                scores[0] = event.getFirst();
+                scores[1] = event.getSecond();
+            }
+            case Opcode.ROUND_WINS_UPDATE -> {
+                roundWins[0] = event.getFirst();
+                roundWins[1] = event.getSecond();
+            }
+            case Opcode.GAME_OVER -> turn = "";
+            case Opcode.ROOM_CLOSED -> closed = true;
+            default -> {
+            }
+        }
+    }
+
+    private void clearTable() {
+        playedBy.clear();
+        playedCards.clear();
+    }
+
+    private TableSnapshot snapshot() {
+        byte[] cards = new byte[playedCards.size()];
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = playedCards.get(i).byteValue();
+        }
+        return new TableSnapshot(teamA, teamB, started, hokmSuit, round, scores[0], scores[1],
+                roundWins[0], roundWins[1], turn, playedBy, cards);
+    }
+}
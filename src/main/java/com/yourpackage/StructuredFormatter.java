@@ -0,0 +1,61 @@
+package com.yourpackage;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * Writes each record as one {@code key=value} line:
+ * {@code ts=... level=INFO logger=hokm.room event=turn room=12 player=bob}. Plain
+ * {@code java.util.logging} records carry their text as {@code msg}. A thrown exception follows on
+ * the next lines as a stack trace.
+ */
+public class StructuredFormatter extends Formatter {
+    @Override
+    public String format(LogRecord record) {
+        StringBuilder out = new StringBuilder(128);
+        out.append("ts=").append(record.getInstant())
+                .append(" level=").append(record.getLevel().getName())
+                .append(" logger=").append(record.getLoggerName());
+        if (record instanceof EventLog.Event event) {
+            out.append(" event=");
+            appendValue(out, event.getMessage());
+            event.appendFields(out);
+        } else {
+            out.append(" msg=");
+            appendValue(out, formatMessage(record));
+        }
+        out.append(System.lineSeparator());
+        if (record.getThrown() != null) {
+            StringWriter trace = new StringWriter();
+            record.getThrown().printStackTrace(new PrintWriter(trace));
+            out.append(trace);
+        }
+        return out.toString();
+    }
+
+    // Quoted only when it would otherwise not read back as one value
+    static void appendValue(StringBuilder out, String value) {
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c <= ' ' || c == '=' || c == '"';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"', '\\' -> out.append('\\').append(c);
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,165 @@
+package com.yourpackage;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A hashed timing wheel: one thread serves every delayed room transition with O(1) scheduling
+ * and cancellation. Delays are rounded up to the tick, which is plenty for game pacing.
+ *
+ * <p>Tasks run on the wheel thread and must not block; room callbacks only take the room lock
+ * and enqueue events.
+ */
+public class TimerWheel {
+    private static final Logger LOGGER = Logger.getLogger(TimerWheel.class.getName());
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final Thread worker;
+    private final long startTime;
+    private long tick;
+
+    public TimerWheel(long tickDuration, TimeUnit unit, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two: " + wheelSize);
+        }
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        this.wheel = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheelSize - 1;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, "room-timer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(delay));
+        pendingCount.incrementAndGet();
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public void stop() {
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long sleep = deadline - System.nanoTime();
+            if (sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            transferIncoming();
+            wheel[(int) (tick & mask)].expire(tick);
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            if (timeout.state.get() != Timeout.PENDING) {
+                continue;
+            }
+            long dueTick = Math.max(tick, (timeout.deadline - startTime + tickNanos - 1) / tickNanos);
+            timeout.dueTick = dueTick;
+            wheel[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Handle for a scheduled task.
+     */
+    public final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long dueTick;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Returns true if the task had not started and now never will.
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                pendingCount.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+    }
+
+    // Only touched by the worker thread
+    private final class Bucket {
+        private Timeout head;
+
+        void add(Timeout timeout) {
+            timeout.next = head;
+            head = timeout;
+        }
+
+        void expire(long currentTick) {
+            Timeout previous = null;
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                boolean remove = timeout.state.get() != Timeout.PENDING;
+                if (!remove && timeout.dueTick <= currentTick) {
+                    remove = true;
+                    if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                        pendingCount.decrementAndGet();
+                        try {
+                            timeout.task.run();
+                        } catch (RuntimeException e) {
+                            LOGGER.log(Level.SEVERE, "Scheduled task failed", e);
+                        }
+                    }
+                }
+                if (remove) {
+                    if (previous == null) {
+                        head = next;
+                    } else {
+                        previous.next = next;
+                    }
+                    timeout.next = null;
+                } else {
+                    previous = timeout;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.yourpackage;
+
+/**
+ * A token bucket refilled lazily from the clock: {@code ratePerSecond} tokens a second, holding
+ * at most {@code burst}. Each bucket belongs to one connection and is only used by the thread
+ * reading that connection, so it needs no synchronization.
+ */
+public final class TokenBucket {
+    private final double tokensPerNano;
+    private final double burst;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(int ratePerSecond, int burst) {
+        this.tokensPerNano = ratePerSecond / 1e9;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes a token if one is available at {@code nowNanos}.
+     */
+    public boolean tryAcquire(long nowNanos) {
+        if (!hasToken(nowNanos)) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    /**
+     * Whether a token is available at {@code nowNanos}, without taking it.
+     */
+    public boolean hasToken(long nowNanos) {
+        tokens = Math.min(burst, tokens + (nowNanos - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = nowNanos;
+        return tokens >= 1;
+    }
+}
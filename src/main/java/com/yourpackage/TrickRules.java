@@ -0,0 +1,87 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.CardCodes;
+
+/**
+ * Hokm's trick rules as table lookups over card codes. A card's strength in a trick depends only
+ * on the hokm, the led suit and the card itself, so it is precomputed for every combination:
+ * hokm cards beat the led suit, the led suit beats the rest, and rank decides within a suit. A
+ * card of any other suit has strength 0 and cannot win. Legality is a mask check against the
+ * hand's cards of the led suit.
+ */
+public final class TrickRules {
+    public static final int NO_SUIT = -1;
+    private static final int SUITS = CardCodes.SUITS.length;
+    private static final int RANKS = CardCodes.RANKS.length;
+    // Indexed by (hokm * SUITS + led) * DECK_SIZE + card
+    private static final byte[] STRENGTH = new byte[SUITS * SUITS * Card.DECK_SIZE];
+    private static final byte[] SUIT_OF = new byte[Card.DECK_SIZE];
+    private static final long[] SUIT_CARDS = new long[SUITS];
+
+    static {
+        for (int card = 0; card < Card.DECK_SIZE; card++) {
+            int suit = card / RANKS;
+            int rank = card % RANKS;
+            SUIT_OF[card] = (byte) suit;
+            SUIT_CARDS[suit] |= 1L << card;
+            for (int hokm = 0; hokm < SUITS; hokm++) {
+                for (int led = 0; led < SUITS; led++) {
+                    int strength = suit == hokm ? RANKS + 1 + rank : suit == led ? 1 + rank : 0;
+                    STRENGTH[(hokm * SUITS + led) * Card.DECK_SIZE + card] = (byte) strength;
+                }
+            }
+        }
+    }
+
+    private TrickRules() {
+    }
+
+    public static int suitOf(int card) {
+        return SUIT_OF[card];
+    }
+
+    /**
+     * The cards of {@code suit} as a mask over card codes.
+     */
+    public static long suitCards(int suit) {
+        return SUIT_CARDS[suit];
+    }
+
+    public static int strength(int hokm, int led, int card) {
+        return STRENGTH[(hokm * SUITS + led) * Card.DECK_SIZE + card];
+    }
+
+    /**
+     * The index in {@code cards[0..count)} of the card that takes the trick; {@code cards[0]} is
+     * the one that was led.
+     */
+    public static int winner(int hokm, int[] cards, int count) {
+        int base = (hokm * SUITS + SUIT_OF[cards[0]]) * Card.DECK_SIZE;
+        int best = 0;
+        int bestStrength = STRENGTH[base + cards[0]];
+        for (int i = 1; i < count; i++) {
+            int strength = STRENGTH[base + cards[i]];
+            if (strength > bestStrength) {
+                best = i;
+                bestStrength = strength;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The cards of {@code hand} that may be played when {@code led} was led, or any of them when
+     * {@code led} is {@link #NO_SUIT}: the led suit must be followed while the hand holds any.
+     */
+    public static long legalMoves(long hand, int led) {
+        if (led == NO_SUIT) {
+            return hand;
+        }
+        long follow = hand & SUIT_CARDS[led];
+        return follow != 0 ? follow : hand;
+    }
+
+    public static boolean isLegal(long hand, int led, int card) {
+        return (legalMoves(hand, led) & (1L << card)) != 0;
+    }
+}
@@ -0,0 +1,86 @@
+package com.yourpackage.loadtest;
+
+import com.yourpackage.protocol.Command;
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.FrameCodec;
+import com.yourpackage.protocol.Opcode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * Speaks the binary frame protocol.
+ */
+class BinaryBotConnection implements BotConnection {
+    private final Socket socket;
+    private final OutputStream out;
+    private final DataInputStream in;
+    private final ByteBuffer outBuffer = ByteBuffer.allocate(1024);
+    private ByteBuffer inBuffer = ByteBuffer.allocate(1024);
+
+    BinaryBotConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        outBuffer.clear();
+        FrameCodec.writePreamble(outBuffer);
+        flush();
+        // The serialization stream header every connection starts with, then HELLO
+        in.readFully(new byte[4]);
+        if (readFrame() != Opcode.HELLO) {
+            throw new IOException("Expected HELLO");
+        }
+    }
+
+    @Override
+    public void send(Command command) throws IOException {
+        outBuffer.clear();
+        FrameCodec.encodeCommand(command, outBuffer);
+        flush();
+    }
+
+    @Override
+    public String receive() throws IOException {
+        try {
+            readFrame();
+        } catch (EOFException e) {
+            return null;
+        }
+        Event event = FrameCodec.decodeEvent(inBuffer);
+        return event.getOpcode() == Opcode.ROOM_LIST ? "ROOM_LIST" : event.toLegacyText();
+    }
+
+    // Reads one whole frame into inBuffer and returns its opcode
+    private int readFrame() throws IOException {
+        int opcode = in.readUnsignedByte();
+        int length = in.readUnsignedShort();
+        if (inBuffer.capacity() < FrameCodec.HEADER_SIZE + length) {
+            inBuffer = ByteBuffer.allocate(FrameCodec.HEADER_SIZE + length);
+        }
+        inBuffer.clear();
+        inBuffer.put((byte) opcode).putShort((short) length);
+        in.readFully(inBuffer.array(), FrameCodec.HEADER_SIZE, length);
+        inBuffer.position(FrameCodec.HEADER_SIZE + length).flip();
+        return opcode;
+    }
+
+    private void flush() throws IOException {
+        out.write(outBuffer.array(), 0, outBuffer.position());
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Already gone
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.yourpackage.loadtest;
+
+import com.yourpackage.protocol.Command;
+
+import java.io.IOException;
+
+/**
+ * One simulated client's socket. Events come back in their string-protocol text form whichever
+ * protocol is spoken, so the bot logic is shared.
+ */
+interface BotConnection extends AutoCloseable {
+    void send(Command command) throws IOException;
+
+    /**
+     * The next event, or null once the server has closed the connection.
+     */
+    String receive() throws IOException;
+
+    @Override
+    void close();
+}
@@ -0,0 +1,277 @@
+package com.yourpackage.loadtest;
+
+import com.yourpackage.Card;
+import com.yourpackage.Hand;
+import com.yourpackage.protocol.CardCodes;
+import com.yourpackage.protocol.Command;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One seat at a table: joins the room and plays legal cards until the game is over. The creator
+ * also creates the room, starts the game once it is full, and closes the room at the end. In
+ * quick-play mode there is no creator: each bot queues with {@code QUICK_PLAY}, plays whichever
+ * table it is matched to, and leaves it at the end. A creator told to wait for fewer players than
+ * there are seats starts the game with the rest empty, for the server's bots to fill. A bot told
+ * to drop its connection now and then reconnects and carries on with {@code RESUME}, counting
+ * game events as the server numbers them so it only asks for the ones it missed.
+ */
+class LoadBot {
+    private static final String[] GAME_EVENTS = {"START_GAME:", "MASTER_SELECTED:", "SELECT_HOKM", "HOKM_SELECTED:",
+            "DEAL_CARDS:", "ROUND_START:", "PLAYER_TURN:", "CARD_PLAYED:", "TURN_WINNER:", "TEAM_WINS_ROUND:",
+            "TEAM_WINS_GAME:", "GAME_OVER"};
+
+    interface Connector {
+        BotConnection connect() throws IOException;
+    }
+
+    private final LoadStats stats;
+    private final Connector connector;
+    private BotConnection connection;
+    private String room;
+    private final String name;
+    private final boolean creator;
+    private final boolean quickPlay;
+    private final int seats;
+    private final int players;
+    private final int dropPercent;
+    private final CountDownLatch created;
+    private final Hand hand = new Hand();
+    private int leadSuit = -1;
+    private int cardsInTrick;
+    private boolean started;
+    private boolean gameOver;
+    private long createSentAt;
+    private long quickPlaySentAt;
+    private long joinSentAt;
+    private long hokmSentAt;
+    private long playSentAt;
+    private long resumeSentAt;
+    private String token;
+    private int sequence;
+
+    LoadBot(LoadStats stats, Connector connector, String room, String name, boolean creator, boolean quickPlay,
+            int seats, int players, int dropPercent, CountDownLatch created) {
+        this.stats = stats;
+        this.connector = connector;
+        this.room = room;
+        this.name = name;
+        this.creator = creator;
+        this.quickPlay = quickPlay;
+        this.seats = seats;
+        this.players = players;
+        this.dropPercent = dropPercent;
+        this.created = created;
+    }
+
+    /**
+     * Plays one game and returns true if it reached GAME_OVER.
+     */
+    boolean play(long timeoutMillis) throws IOException, InterruptedException {
+        connection = connector.connect();
+        try {
+            return playGame(timeoutMillis);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private boolean playGame(long timeoutMillis) throws IOException, InterruptedException {
+        if (quickPlay) {
+            quickPlaySentAt = System.nanoTime();
+            send(Command.quickPlay(name, seats, 0));
+        } else if (creator) {
+            createSentAt = System.nanoTime();
+            send(Command.createRoom(room, seats));
+        } else {
+            if (!created.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                stats.error("room never created");
+                return false;
+            }
+            join();
+        }
+
+        String event;
+        try {
+            while ((event = connection.receive()) != null) {
+                stats.events.increment();
+                if (!handle(event)) {
+                    break;
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            stats.error("timeout");
+        }
+        return gameOver;
+    }
+
+    // Returns false once this bot is done with the game
+    private boolean handle(String event) throws IOException {
+        if (isGameEvent(event)) {
+            sequence++;
+        }
+        if (event.startsWith("ROOM_CREATED:")) {
+            record("CREATE_ROOM", createSentAt);
+            created.countDown();
+            join();
+        } else if (event.startsWith("MATCH_FOUND:")) {
+            record("QUICK_PLAY", quickPlaySentAt);
+            room = event.substring("MATCH_FOUND:".length());
+        } else if (event.startsWith("SESSION_TOKEN:")) {
+            int separator = event.lastIndexOf(':');
+            token = event.substring("SESSION_TOKEN:".length(), separator);
+            sequence = Integer.parseInt(event, separator + 1, event.length(), 10);
+        } else if (event.startsWith("RESUMED:")) {
+            record("RESUME", resumeSentAt);
+            resumeSentAt = 0;
+            int resumedAt = Integer.parseInt(event, "RESUMED:".length(), event.length(), 10);
+            if (resumedAt != sequence) {
+                // Too much was missed to replay: the hand and the trick so far are sent again
+                leadSuit = -1;
+                cardsInTrick = 0;
+            }
+            sequence = resumedAt;
+        } else if (event.equals(name + " has joined the room.")) {
+            record("JOIN_ROOM", joinSentAt);
+        } else if (event.startsWith("USER_LIST:")) {
+            if (creator && !started && countNames(event) == players) {
+                started = true;
+                send(Command.gameStarted(room, name));
+            }
+        } else if (event.startsWith("DEAL_CARDS:")) {
+            hand.clear();
+            for (String card : event.substring("DEAL_CARDS:[".length(), event.length() - 1).split(", ")) {
+                hand.add(Card.parse(card));
+            }
+        } else if (event.equals("SELECT_HOKM")) {
+            hokmSentAt = System.nanoTime();
+            send(Command.setHokm(room, CardCodes.SUITS[longestSuit()]));
+        } else if (event.startsWith("HOKM_SELECTED:")) {
+            record("SET_HOKM", hokmSentAt);
+            hokmSentAt = 0;
+        } else if (event.startsWith("ROUND_START:") || event.startsWith("TURN_WINNER:")
+                || event.startsWith("TEAM_WINS_ROUND:")) {
+            leadSuit = -1;
+            cardsInTrick = 0;
+        } else if (event.startsWith("CARD_PLAYED:")) {
+            Card card = Card.parse(event.substring(event.lastIndexOf(':') + 1));
+            if (cardsInTrick++ == 0 && card != null) {
+                leadSuit = card.getSuitIndex();
+            }
+            if (event.startsWith(name + ":", "CARD_PLAYED:".length())) {
+                record("PLAY_CARD", playSentAt);
+                // Not after the last card of a trick, which may end the game and close the room
+                if (token != null && cardsInTrick < seats && ThreadLocalRandom.current().nextInt(100) < dropPercent) {
+                    reconnect();
+                }
+            }
+        } else if (event.equals("PLAYER_TURN:" + name)) {
+            playCard();
+        } else if (event.equals("GAME_OVER")) {
+            gameOver = true;
+            if (creator || quickPlay) {
+                send(Command.leaveRoom(room, name));
+            }
+        } else if (event.equals("ROOM_CLOSED") || event.equals("KICKED")) {
+            return false;
+        } else if (event.equals("ERROR:Cannot resume") && resumeSentAt != 0) {
+            // The game ended and its room closed while this bot was away
+            return false;
+        } else if (event.equals("PING")) {
+            send(Command.pong());
+        } else if (event.startsWith("ERROR:")) {
+            stats.error(event);
+        } else if (event.equals("ROOM_FULL") || event.equals("ROOM_CREATION_FAILED")
+                || event.equals("START_GAME_FAILED")) {
+            stats.error(event);
+            return false;
+        }
+        return true;
+    }
+
+    private void join() throws IOException {
+        joinSentAt = System.nanoTime();
+        send(Command.joinRoom(room, name));
+    }
+
+    // Follow the lead suit with its lowest card if possible, otherwise throw the lowest card held
+    private void playCard() throws IOException {
+        int suit = leadSuit >= 0 && hand.hasSuit(leadSuit) ? leadSuit : -1;
+        if (suit < 0) {
+            int lowestRank = Integer.MAX_VALUE;
+            for (int s = 0; s < CardCodes.SUITS.length; s++) {
+                int ranks = hand.suitMask(s);
+                if (ranks != 0 && Integer.numberOfTrailingZeros(ranks) < lowestRank) {
+                    lowestRank = Integer.numberOfTrailingZeros(ranks);
+                    suit = s;
+                }
+            }
+            if (suit < 0) {
+                stats.error("turn with empty hand");
+                return;
+            }
+        }
+        Card card = Card.of(suit * CardCodes.RANKS.length + Integer.numberOfTrailingZeros(hand.suitMask(suit)));
+        hand.remove(card);
+        playSentAt = System.nanoTime();
+        send(Command.playCard(room, name, card.getCode()));
+    }
+
+    // Drops the socket without leaving, as a network blip would, and takes the seat back. Only done
+    // once the last command was answered, since one still in flight may be lost with the socket.
+    private void reconnect() throws IOException {
+        connection.close();
+        connection = connector.connect();
+        resumeSentAt = System.nanoTime();
+        send(Command.resume(room, name, token, sequence));
+    }
+
+    private static boolean isGameEvent(String event) {
+        for (String prefix : GAME_EVENTS) {
+            if (event.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int longestSuit() {
+        int best = 0;
+        for (int s = 1; s < CardCodes.SUITS.length; s++) {
+            if (Integer.bitCount(hand.suitMask(s)) > Integer.bitCount(hand.suitMask(best))) {
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    private void send(Command command) throws IOException {
+        stats.commands.increment();
+        connection.send(command);
+    }
+
+    private void record(String command, long sentAt) {
+        if (sentAt != 0) {
+            stats.recordLatency(command, System.nanoTime() - sentAt);
+        }
+    }
+
+    private static int countNames(String userList) {
+        int count = 0;
+        boolean inName = false;
+        for (int i = "USER_LIST:".length(); i < userList.length(); i++) {
+            char c = userList.charAt(i);
+            if (c == ',' || c == ':') {
+                inName = false;
+            } else if (!inName) {
+                inName = true;
+                count++;
+            }
+        }
+        return count;
+    }
+}
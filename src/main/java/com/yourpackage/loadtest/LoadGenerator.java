@@ -0,0 +1,166 @@
+package com.yourpackage.loadtest;
+
+import com.yourpackage.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless load test: opens {@code hokm.load.connections} sockets, four to a table, and plays
+ * complete games over and over until {@code hokm.load.seconds} have passed, reporting games/sec,
+ * command-to-event latency percentiles and errors. With {@code hokm.load.quickPlay=true} the bots
+ * queue through the matchmaker instead of creating and joining rooms. With {@code hokm.load.players}
+ * below four the rest of each table is left to the server's bots. With {@code hokm.load.dropPercent}
+ * set, a bot drops its socket after that share of its plays and resumes its seat on a new one.
+ * Run the server with {@code -Dhokm.trickPauseMillis=0} unless the pause between tricks is part of
+ * what is measured.
+ *
+ * <pre>
+ * java -Dhokm.load.connections=400 -Dhokm.load.seconds=60 -cp target/classes com.yourpackage.loadtest.LoadGenerator
+ * </pre>
+ */
+public class LoadGenerator {
+    private static final int SEATS = 4;
+
+    private final String host = System.getProperty("hokm.load.host", "localhost");
+    private final int port = Integer.getInteger("hokm.load.port", 12345);
+    private final int connections = Integer.getInteger("hokm.load.connections", 400);
+    private final long seconds = Integer.getInteger("hokm.load.seconds", 60);
+    private final boolean binary = System.getProperty("hokm.load.protocol", "string").equalsIgnoreCase("binary");
+    private final boolean quickPlay = Boolean.getBoolean("hokm.load.quickPlay");
+    // Clients per table; the server's bots take the other seats
+    private final int players = quickPlay ? SEATS
+            : Math.min(SEATS, Math.max(1, Integer.getInteger("hokm.load.players", SEATS)));
+    private final int dropPercent = Math.min(100, Math.max(0, Integer.getInteger("hokm.load.dropPercent", 0)));
+    private final int timeoutMillis = Integer.getInteger("hokm.load.timeoutSeconds", 30) * 1000;
+    private final long reportSeconds = Integer.getInteger("hokm.load.reportSeconds", 5);
+    private final LoadStats stats = new LoadStats();
+
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator().run();
+    }
+
+    private void run() throws InterruptedException {
+        int tables = Math.max(1, connections / players);
+        System.out.printf("%d tables (%d connections) against %s:%d, %s protocol%s, %d s%n",
+                tables, tables * players, host, port, binary ? "binary" : "string", quickPlay ? ", quick play" : "",
+                seconds);
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>(tables);
+            for (int table = 0; table < tables; table++) {
+                int id = table;
+                running.add(executor.submit(() -> runTable(executor, id, deadline)));
+            }
+            while (!running.stream().allMatch(Future::isDone)) {
+                TimeUnit.SECONDS.sleep(reportSeconds);
+                printProgress(start);
+            }
+        }
+        printSummary(start);
+    }
+
+    private void runTable(ExecutorService executor, int table, long deadline) {
+        for (int game = 0; System.nanoTime() < deadline; game++) {
+            String room = "load-" + table + "-" + game;
+            CountDownLatch created = new CountDownLatch(1);
+            List<Future<Boolean>> seats = new ArrayList<>(players);
+            for (int seat = 0; seat < players; seat++) {
+                String name = seat == 0 ? room : room + "-" + seat;
+                boolean creator = seat == 0 && !quickPlay;
+                seats.add(executor.submit(() -> playSeat(room, name, creator, created)));
+            }
+            try {
+                if (quickPlay) {
+                    for (Future<Boolean> seat : seats) {
+                        if (seat.get()) {
+                            stats.seatFinished(SEATS);
+                        }
+                    }
+                } else if (seats.get(0).get()) {
+                    stats.games.increment();
+                }
+                for (Future<Boolean> seat : seats) {
+                    seat.get();
+                }
+            } catch (Exception e) {
+                stats.error("bot failure: " + e.getCause());
+            }
+        }
+    }
+
+    private boolean playSeat(String room, String name, boolean creator, CountDownLatch created) {
+        try {
+            return new LoadBot(stats, this::connect, room, name, creator, quickPlay, SEATS, players, dropPercent,
+                    created).play(timeoutMillis);
+        } catch (IOException e) {
+            stats.error("io: " + e.getClass().getSimpleName());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            created.countDown();
+        }
+    }
+
+    private BotConnection connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(timeoutMillis);
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            return binary ? new BinaryBotConnection(socket) : new StringBotConnection(socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private void printProgress(long start) {
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        LatencyHistogram latency = stats.latency;
+        System.out.printf("%6.1fs games=%d (%.1f/s) commands=%d p50=%s p99=%s p999=%s errors=%d%n",
+                elapsed, stats.games.sum(), stats.games.sum() / elapsed, stats.commands.sum(),
+                millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(99)),
+                millis(latency.getValueAtPercentile(99.9)), stats.errorCount());
+    }
+
+    private void printSummary(long start) {
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.println();
+        System.out.printf("games      %d in %.1f s = %.2f games/s%n", stats.games.sum(), elapsed,
+                stats.games.sum() / elapsed);
+        System.out.printf("commands   %d (%.0f/s), events %d (%.0f/s)%n", stats.commands.sum(),
+                stats.commands.sum() / elapsed, stats.events.sum(), stats.events.sum() / elapsed);
+        System.out.println("latency    command        count      p50      p99     p999      max");
+        printLatency("all", stats.latency);
+        for (Map.Entry<String, LatencyHistogram> entry : stats.latencyByCommand().entrySet()) {
+            printLatency(entry.getKey(), entry.getValue());
+        }
+        Map<String, Long> errors = stats.errors();
+        System.out.println("errors     " + stats.errorCount());
+        errors.forEach((kind, count) -> System.out.printf("           %-40s %d%n", kind, count));
+    }
+
+    private static void printLatency(String command, LatencyHistogram histogram) {
+        System.out.printf("           %-12s %8d %8s %8s %8s %8s%n", command, histogram.getTotalCount(),
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMax()));
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2fms", nanos / 1e6);
+    }
+}
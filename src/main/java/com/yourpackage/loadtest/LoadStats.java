@@ -0,0 +1,57 @@
+package com.yourpackage.loadtest;
+
+import com.yourpackage.LatencyHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters shared by every bot in a run. Latencies are command-to-event times in nanoseconds,
+ * kept per command and overall.
+ */
+class LoadStats {
+    final LongAdder games = new LongAdder();
+    private final AtomicLong finishedSeats = new AtomicLong();
+    final LongAdder commands = new LongAdder();
+    final LongAdder events = new LongAdder();
+    final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> latencyByCommand = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void recordLatency(String command, long nanos) {
+        latency.record(nanos);
+        latencyByCommand.computeIfAbsent(command, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    // For matched tables, where no one bot speaks for the game: one game per full table of seats
+    void seatFinished(int seats) {
+        if (finishedSeats.incrementAndGet() % seats == 0) {
+            games.increment();
+        }
+    }
+
+    void error(String kind) {
+        errors.computeIfAbsent(kind, key -> new LongAdder()).increment();
+    }
+
+    long errorCount() {
+        long count = 0;
+        for (LongAdder adder : errors.values()) {
+            count += adder.sum();
+        }
+        return count;
+    }
+
+    Map<String, LatencyHistogram> latencyByCommand() {
+        return new TreeMap<>(latencyByCommand);
+    }
+
+    Map<String, Long> errors() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        errors.forEach((kind, adder) -> snapshot.put(kind, adder.sum()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,86 @@
+package com.yourpackage.loadtest;
+
+import com.yourpackage.protocol.CardCodes;
+import com.yourpackage.protocol.Command;
+import com.yourpackage.protocol.Opcode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+
+/**
+ * Speaks the original protocol, exactly as the game UI does.
+ */
+class StringBotConnection implements BotConnection {
+    private final Socket socket;
+    private final ObjectOutputStream out;
+    private final ObjectInputStream in;
+
+    StringBotConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        this.out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.flush();
+        this.in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+    }
+
+    @Override
+    public void send(Command command) throws IOException {
+        out.writeObject(format(command));
+        out.flush();
+        // Requests are never repeated verbatim, so don't keep them in the stream's handle table
+        out.reset();
+    }
+
+    @Override
+    public String receive() throws IOException {
+        try {
+            Object message = in.readObject();
+            return message instanceof String text ? text : "ROOM_LIST";
+        } catch (EOFException e) {
+            return null;
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Already gone
+        }
+    }
+
+    static String format(Command command) {
+        switch (command.getOpcode()) {
+            case Opcode.CREATE_ROOM:
+                return "CREATE_ROOM:" + command.getRoom() + ":" + command.getValue();
+            case Opcode.JOIN_ROOM:
+                return "JOIN_ROOM:" + command.getRoom() + ":" + command.getUser();
+            case Opcode.GAME_STARTED:
+                return "GAME_STARTED:" + command.getRoom() + ":" + command.getUser();
+            case Opcode.SET_HOKM:
+                return "SET_HOKM:" + command.getRoom() + ":" + CardCodes.SUITS[command.getValue()];
+            case Opcode.PLAY_CARD:
+                return "PLAY_CARD:" + command.getRoom() + ":" + command.getUser() + ":" + CardCodes.toText(command.getValue());
+            case Opcode.CHAT:
+                return "CHAT:" + command.getRoom() + ":" + command.getUser() + ":" + command.getText();
+            case Opcode.LEAVE_ROOM:
+                return "LEAVE_ROOM:" + command.getRoom() + ":" + command.getUser();
+            case Opcode.QUICK_PLAY:
+                return "QUICK_PLAY:" + command.getUser() + ":" + command.getValue() + ":" + command.getRating();
+            case Opcode.RESUME:
+                return "RESUME:" + command.getRoom() + ":" + command.getUser() + ":" + command.getText() + ":"
+                        + command.getValue();
+            case Opcode.PONG:
+                return "PONG";
+            default:
+                throw new IllegalArgumentException("Bots do not send opcode " + command.getOpcode());
+        }
+    }
+}
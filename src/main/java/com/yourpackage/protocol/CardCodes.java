@@ -0,0 +1,68 @@
+package com.yourpackage.protocol;
+
+/**
+ * Maps cards to the single byte used on the wire: {@code suit * 13 + rank}, with suits and
+ * ranks in the order the deck is built.
+ */
+public final class CardCodes {
+    public static final String[] SUITS = {"CLUBS", "DIAMONDS", "HEARTS", "SPADES"};
+    public static final String[] RANKS = {"TWO", "THREE", "FOUR", "FIVE", "SIX", "SEVEN", "EIGHT", "NINE", "TEN", "JACK", "QUEEN", "KING", "ACE"};
+    public static final int INVALID = -1;
+
+    private CardCodes() {
+    }
+
+    public static int suitIndex(String suit) {
+        for (int i = 0; i < SUITS.length; i++) {
+            if (SUITS[i].equals(suit)) {
+                return i;
+            }
+        }
+        return INVALID;
+    }
+
+    public static int rankIndex(String rank) {
+        for (int i = 0; i < RANKS.length; i++) {
+            if (RANKS[i].equals(rank)) {
+                return i;
+            }
+        }
+        return INVALID;
+    }
+
+    public static int encode(String suit, String rank) {
+        int suitIndex = suitIndex(suit);
+        int rankIndex = rankIndex(rank);
+        if (suitIndex == INVALID || rankIndex == INVALID) {
+            return INVALID;
+        }
+        return suitIndex * RANKS.length + rankIndex;
+    }
+
+    /**
+     * Parses the {@code SUIT-RANK} text form used by the string protocol.
+     */
+    public static int parse(String card) {
+        int dash = card.indexOf('-');
+        if (dash < 0) {
+            return INVALID;
+        }
+        return encode(card.substring(0, dash), card.substring(dash + 1));
+    }
+
+    public static boolean isValid(int code) {
+        return code >= 0 && code < SUITS.length * RANKS.length;
+    }
+
+    public static String suitOf(int code) {
+        return SUITS[code / RANKS.length];
+    }
+
+    public static String rankOf(int code) {
+        return RANKS[code % RANKS.length];
+    }
+
+    public static String toText(int code) {
+        return suitOf(code) + "-" + rankOf(code);
+    }
+}
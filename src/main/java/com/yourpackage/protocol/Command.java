@@ -0,0 +1,208 @@
+package com.yourpackage.protocol;
+
+import java.util.List;
+
+/**
+ * A client-to-server command. {@link FrameDecoder} reuses a single instance per connection, so a
+ * decoded command is only valid until the next one is decoded. Clients build fresh ones with the
+ * static factories.
+ */
+public final class Command {
+    private int opcode;
+    private String room;
+    private String user;
+    private int value;
+    private int rating;
+    private String text;
+    private List<String> teamA;
+    private List<String> teamB;
+
+    Command() {
+    }
+
+    private static Command of(int opcode, String room, String user) {
+        Command command = new Command();
+        command.opcode = opcode;
+        command.room = room;
+        command.user = user;
+        return command;
+    }
+
+    public static Command createRoom(String creator, int maxPlayers) {
+        Command command = of(Opcode.CREATE_ROOM, creator, null);
+        command.value = maxPlayers;
+        return command;
+    }
+
+    public static Command joinRoom(String creator, String username) {
+        return of(Opcode.JOIN_ROOM, creator, username);
+    }
+
+    public static Command gameStarted(String creator, String username) {
+        return of(Opcode.GAME_STARTED, creator, username);
+    }
+
+    public static Command getRooms() {
+        return of(Opcode.GET_ROOMS, null, null);
+    }
+
+    public static Command subscribeLobby() {
+        return of(Opcode.SUBSCRIBE_LOBBY, null, null);
+    }
+
+    public static Command unsubscribeLobby() {
+        return of(Opcode.UNSUBSCRIBE_LOBBY, null, null);
+    }
+
+    /**
+     * The answer to a {@code PING}. Any command proves the client is alive; this one does nothing else.
+     */
+    public static Command pong() {
+        return of(Opcode.PONG, null, null);
+    }
+
+    /**
+     * Queues {@code username} for a table of {@code tableSize} players with others near
+     * {@code rating}, or anyone if the rating is 0.
+     */
+    public static Command quickPlay(String username, int tableSize, int rating) {
+        Command command = of(Opcode.QUICK_PLAY, null, username);
+        command.value = tableSize;
+        command.rating = rating;
+        return command;
+    }
+
+    public static Command cancelQuickPlay(String username) {
+        return of(Opcode.CANCEL_QUICK_PLAY, null, username);
+    }
+
+    /**
+     * Takes {@code username}'s seat back on this connection with the token from
+     * {@code SESSION_TOKEN}, asking for the game events after number {@code sequence}.
+     */
+    public static Command resume(String creator, String username, String token, int sequence) {
+        Command command = of(Opcode.RESUME, creator, username);
+        command.text = token;
+        command.value = sequence;
+        return command;
+    }
+
+    public static Command watchRoom(String creator) {
+        return of(Opcode.WATCH_ROOM, creator, null);
+    }
+
+    public static Command unwatchRoom(String creator) {
+        return of(Opcode.UNWATCH_ROOM, creator, null);
+    }
+
+    public static Command setHokm(String creator, String suit) {
+        Command command = of(Opcode.SET_HOKM, creator, null);
+        command.value = CardCodes.suitIndex(suit);
+        return command;
+    }
+
+    public static Command playCard(String creator, String player, int card) {
+        Command command = of(Opcode.PLAY_CARD, creator, player);
+        command.value = card;
+        return command;
+    }
+
+    public static Command startGame(String creator, String username, List<String> teamA, List<String> teamB) {
+        Command command = of(Opcode.START_GAME, creator, username);
+        command.teamA = List.copyOf(teamA);
+        command.teamB = List.copyOf(teamB);
+        return command;
+    }
+
+    public static Command playerList(String creator) {
+        return of(Opcode.PLAYER_LIST, creator, null);
+    }
+
+    public static Command chat(String creator, String username, String message) {
+        Command command = of(Opcode.CHAT, creator, username);
+        command.text = message;
+        return command;
+    }
+
+    public static Command kickUser(String creator, String userToKick) {
+        return of(Opcode.KICK_USER, creator, userToKick);
+    }
+
+    public static Command leaveRoom(String creator, String username) {
+        return of(Opcode.LEAVE_ROOM, creator, username);
+    }
+
+    void reset(int opcode) {
+        this.opcode = opcode;
+        this.room = null;
+        this.user = null;
+        this.value = 0;
+        this.rating = 0;
+        this.text = null;
+        this.teamA = null;
+        this.teamB = null;
+    }
+
+    void setRoom(String room) {
+        this.room = room;
+    }
+
+    void setUser(String user) {
+        this.user = user;
+    }
+
+    void setValue(int value) {
+        this.value = value;
+    }
+
+    void setRating(int rating) {
+        this.rating = rating;
+    }
+
+    void setText(String text) {
+        this.text = text;
+    }
+
+    void setTeams(List<String> teamA, List<String> teamB) {
+        this.teamA = teamA;
+        this.teamB = teamB;
+    }
+
+    public int getOpcode() {
+        return opcode;
+    }
+
+    /**
+     * The room the command addresses, identified by its creator.
+     */
+    public String getRoom() {
+        return room;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * Max players for {@code CREATE_ROOM}, suit index for {@code SET_HOKM}, card code for {@code PLAY_CARD}.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<String> getTeamA() {
+        return teamA;
+    }
+
+    public List<String> getTeamB() {
+        return teamB;
+    }
+}
@@ -0,0 +1,420 @@
+package com.yourpackage.protocol;
+
+import java.util.List;
+
+/**
+ * An immutable server-to-client event. The same instance is rendered either as the legacy
+ * {@code NAME:field:field} string or as a binary frame by {@link FrameCodec}.
+ */
+public final class Event {
+    public static final int TEAM_A = 0;
+    public static final int TEAM_B = 1;
+
+    private static final Event ROOM_CREATION_FAILED = new Event(Opcode.ROOM_CREATION_FAILED);
+    private static final Event ROOM_FULL = new Event(Opcode.ROOM_FULL);
+    private static final Event ROOM_CLOSED = new Event(Opcode.ROOM_CLOSED);
+    private static final Event START_GAME_FAILED = new Event(Opcode.START_GAME_FAILED);
+    private static final Event SELECT_HOKM = new Event(Opcode.SELECT_HOKM);
+    private static final Event GAME_OVER = new Event(Opcode.GAME_OVER);
+    private static final Event KICKED = new Event(Opcode.KICKED);
+    private static final Event PING = new Event(Opcode.PING);
+
+    private final int opcode;
+    private String name;
+    private String text;
+    private int first;
+    private int second;
+    private byte[] cards;
+    private List<String> teamA;
+    private List<String> teamB;
+    private List<RoomSummary> rooms;
+    private RoomSummary room;
+    private TableSnapshot snapshot;
+    private long roomId;
+    private boolean continued;
+    private String legacyText;
+
+    private Event(int opcode) {
+        this.opcode = opcode;
+    }
+
+    public static Event roomCreated(String creator) {
+        Event event = new Event(Opcode.ROOM_CREATED);
+        event.name = creator;
+        return event;
+    }
+
+    /**
+     * Tells a player queued with {@code QUICK_PLAY} which room they have been seated in. The
+     * room's own events follow.
+     */
+    public static Event matchFound(String creator) {
+        Event event = new Event(Opcode.MATCH_FOUND);
+        event.name = creator;
+        return event;
+    }
+
+    /**
+     * Sent to a player when they take a seat: the token that lets them {@code RESUME} it, and
+     * the number of the last game event before it.
+     */
+    public static Event sessionToken(String token, int sequence) {
+        Event event = new Event(Opcode.SESSION_TOKEN);
+        event.name = token;
+        event.first = sequence;
+        return event;
+    }
+
+    /**
+     * Answers {@code RESUME}: the game events that follow are numbered from {@code sequence} + 1.
+     */
+    public static Event resumed(int sequence) {
+        Event event = new Event(Opcode.RESUMED);
+        event.first = sequence;
+        return event;
+    }
+
+    public static Event roomCreationFailed() {
+        return ROOM_CREATION_FAILED;
+    }
+
+    public static Event roomFull() {
+        return ROOM_FULL;
+    }
+
+    public static Event roomList(List<RoomSummary> rooms) {
+        return roomList(rooms, false);
+    }
+
+    /**
+     * A room list as a client decodes it; {@code continued} is set when more frames of the same
+     * list follow.
+     */
+    public static Event roomList(List<RoomSummary> rooms, boolean continued) {
+        Event event = new Event(Opcode.ROOM_LIST);
+        event.rooms = List.copyOf(rooms);
+        event.continued = continued;
+        return event;
+    }
+
+    /**
+     * Pushed to lobby subscribers when a room appears or its summary changes.
+     */
+    public static Event lobbyRoom(RoomSummary room) {
+        Event event = new Event(Opcode.LOBBY_ROOM);
+        event.room = room;
+        return event;
+    }
+
+    public static Event lobbyRoomRemoved(long roomId) {
+        Event event = new Event(Opcode.LOBBY_ROOM_REMOVED);
+        event.roomId = roomId;
+        return event;
+    }
+
+    /**
+     * Sent to a new spectator before the table's live events.
+     */
+    public static Event tableSnapshot(TableSnapshot snapshot) {
+        Event event = new Event(Opcode.TABLE_SNAPSHOT);
+        event.snapshot = snapshot;
+        return event;
+    }
+
+    public static Event playerList(List<String> teamA, List<String> teamB) {
+        return teams(Opcode.PLAYER_LIST_UPDATE, teamA, teamB);
+    }
+
+    public static Event gameTeams(List<String> teamA, List<String> teamB) {
+        return teams(Opcode.GAME_TEAMS, teamA, teamB);
+    }
+
+    public static Event userList(List<String> teamA, List<String> teamB) {
+        return teams(Opcode.USER_LIST, teamA, teamB);
+    }
+
+    public static Event text(String text) {
+        Event event = new Event(Opcode.TEXT);
+        event.text = text;
+        return event;
+    }
+
+    public static Event roomClosed() {
+        return ROOM_CLOSED;
+    }
+
+    public static Event startGameFailed() {
+        return START_GAME_FAILED;
+    }
+
+    public static Event masterSelected(String player) {
+        Event event = new Event(Opcode.MASTER_SELECTED);
+        event.name = player;
+        return event;
+    }
+
+    public static Event selectHokm() {
+        return SELECT_HOKM;
+    }
+
+    public static Event hokmSelected(String suit) {
+        Event event = new Event(Opcode.HOKM_SELECTED);
+        event.name = suit;
+        return event;
+    }
+
+    public static Event dealCards(byte[] cards) {
+        Event event = new Event(Opcode.DEAL_CARDS);
+        event.cards = cards.clone();
+        return event;
+    }
+
+    public static Event roundStart(int round) {
+        Event event = new Event(Opcode.ROUND_START);
+        event.first = round;
+        return event;
+    }
+
+    public static Event playerTurn(String player) {
+        Event event = new Event(Opcode.PLAYER_TURN);
+        event.name = player;
+        return event;
+    }
+
+    public static Event cardPlayed(String player, int card) {
+        Event event = new Event(Opcode.CARD_PLAYED);
+        event.name = player;
+        event.first = card;
+        return event;
+    }
+
+    public static Event error(String message) {
+        Event event = new Event(Opcode.ERROR);
+        event.text = message;
+        return event;
+    }
+
+    public static Event turnWinner(int team) {
+        return team(Opcode.TURN_WINNER, team);
+    }
+
+    public static Event scoreUpdate(int teamAScore, int teamBScore) {
+        return pair(Opcode.SCORE_UPDATE, teamAScore, teamBScore);
+    }
+
+    public static Event roundWinsUpdate(int teamAWins, int teamBWins) {
+        return pair(Opcode.ROUND_WINS_UPDATE, teamAWins, teamBWins);
+    }
+
+    public static Event teamWinsRound(int team) {
+        return team(Opcode.TEAM_WINS_ROUND, team);
+    }
+
+    public static Event teamWinsGame(int team) {
+        return team(Opcode.TEAM_WINS_GAME, team);
+    }
+
+    public static Event gameOver() {
+        return GAME_OVER;
+    }
+
+    public static Event kicked() {
+        return KICKED;
+    }
+
+    /**
+     * Sent to a connection that has been quiet for a heartbeat interval; clients answer {@code PONG}.
+     */
+    public static Event ping() {
+        return PING;
+    }
+
+    private static Event teams(int opcode, List<String> teamA, List<String> teamB) {
+        Event event = new Event(opcode);
+        event.teamA = List.copyOf(teamA);
+        event.teamB = List.copyOf(teamB);
+        return event;
+    }
+
+    private static Event team(int opcode, int team) {
+        Event event = new Event(opcode);
+        event.first = team;
+        return event;
+    }
+
+    private static Event pair(int opcode, int first, int second) {
+        Event event = new Event(opcode);
+        event.first = first;
+        event.second = second;
+        return event;
+    }
+
+    public int getOpcode() {
+        return opcode;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getFirst() {
+        return first;
+    }
+
+    public int getSecond() {
+        return second;
+    }
+
+    public byte[] getCards() {
+        return cards;
+    }
+
+    public List<String> getTeamA() {
+        return teamA;
+    }
+
+    public List<String> getTeamB() {
+        return teamB;
+    }
+
+    public List<RoomSummary> getRooms() {
+        return rooms;
+    }
+
+    public boolean isContinued() {
+        return continued;
+    }
+
+    public RoomSummary getRoom() {
+        return room;
+    }
+
+    public long getRoomId() {
+        return roomId;
+    }
+
+    public TableSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * The message exactly as the string protocol has always sent it. Built once and cached,
+     * since a broadcast renders the same event for every recipient.
+     */
+    public String toLegacyText() {
+        String result = legacyText;
+        if (result == null) {
+            result = buildLegacyText();
+            legacyText = result;
+        }
+        return result;
+    }
+
+    private String buildLegacyText() {
+        switch (opcode) {
+            case Opcode.ROOM_CREATED:
+                return "ROOM_CREATED:" + name;
+            case Opcode.MATCH_FOUND:
+                return "MATCH_FOUND:" + name;
+            case Opcode.SESSION_TOKEN:
+                return "SESSION_TOKEN:" + name + ":" + first;
+            case Opcode.RESUMED:
+                return "RESUMED:" + first;
+            case Opcode.ROOM_CREATION_FAILED:
+                return "ROOM_CREATION_FAILED";
+            case Opcode.ROOM_FULL:
+                return "ROOM_FULL";
+            case Opcode.ROOM_LIST:
+                return "ROOM_LIST:" + roomsText();
+            case Opcode.LOBBY_ROOM:
+                return "LOBBY_ROOM:" + room.toLegacyText();
+            case Opcode.LOBBY_ROOM_REMOVED:
+                return "LOBBY_ROOM_REMOVED:" + roomId;
+            case Opcode.TABLE_SNAPSHOT:
+                return "TABLE_SNAPSHOT:" + snapshot.toLegacyText();
+            case Opcode.PLAYER_LIST_UPDATE:
+                return "PLAYER_LIST:Team A: " + String.join(",", teamA) + ": Team B: " + String.join(",", teamB);
+            case Opcode.GAME_TEAMS:
+                return "START_GAME:" + String.join(",", teamA) + ":" + String.join(",", teamB);
+            case Opcode.USER_LIST:
+                return "USER_LIST:" + String.join(",", teamA) + ":" + String.join(",", teamB);
+            case Opcode.TEXT:
+                return text;
+            case Opcode.ROOM_CLOSED:
+                return "ROOM_CLOSED";
+            case Opcode.START_GAME_FAILED:
+                return "START_GAME_FAILED";
+            case Opcode.MASTER_SELECTED:
+                return "MASTER_SELECTED:" + name;
+            case Opcode.SELECT_HOKM:
+                return "SELECT_HOKM";
+            case Opcode.HOKM_SELECTED:
+                return "HOKM_SELECTED:" + name;
+            case Opcode.DEAL_CARDS:
+                return "DEAL_CARDS:" + cardsText();
+            case Opcode.ROUND_START:
+                return "ROUND_START:" + first;
+            case Opcode.PLAYER_TURN:
+                return "PLAYER_TURN:" + name;
+            case Opcode.CARD_PLAYED:
+                return "CARD_PLAYED:" + name + ":" + CardCodes.toText(first);
+            case Opcode.ERROR:
+                return "ERROR:" + text;
+            case Opcode.TURN_WINNER:
+                return "TURN_WINNER:" + teamName(first);
+            case Opcode.SCORE_UPDATE:
+                return "SCORE_UPDATE:Team A:" + first + ":Team B:" + second;
+            case Opcode.ROUND_WINS_UPDATE:
+                return "ROUND_WINS_UPDATE:Team A:" + first + ":Team B:" + second;
+            case Opcode.TEAM_WINS_ROUND:
+                return "TEAM_WINS_ROUND:" + teamName(first);
+            case Opcode.TEAM_WINS_GAME:
+                return "TEAM_WINS_GAME:" + teamName(first);
+            case Opcode.GAME_OVER:
+                return "GAME_OVER";
+            case Opcode.KICKED:
+                return "KICKED";
+            case Opcode.PING:
+                return "PING";
+            default:
+                throw new IllegalStateException("No text form for opcode " + opcode);
+        }
+    }
+
+    // Same shape as List<Card>.toString(), which is what clients have always parsed
+    private String cardsText() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < cards.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(CardCodes.toText(cards[i]));
+        }
+        return builder.append(']').toString();
+    }
+
+    // Rooms separated by ';', only sent to string clients that subscribed to the lobby
+    private String roomsText() {
+        StringBuilder builder = new StringBuilder();
+        for (RoomSummary summary : rooms) {
+            if (builder.length() > 0) {
+                builder.append(';');
+            }
+            builder.append(summary.toLegacyText());
+        }
+        return builder.toString();
+    }
+
+    public static String teamName(int team) {
+        return team == TEAM_A ? "Team A" : "Team B";
+    }
+
+    @Override
+    public String toString() {
+        return toLegacyText();
+    }
+}
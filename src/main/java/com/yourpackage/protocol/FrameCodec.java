@@ -0,0 +1,440 @@
+package com.yourpackage.protocol;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary wire format, version {@value #VERSION}.
+ *
+ * <p>A binary client opens with the three bytes {@code 'H' 'K' version}. The server, which
+ * always starts a connection with the four-byte Java serialization stream header for the benefit
+ * of string clients, answers with a {@link Opcode#HELLO} frame carrying the version it speaks;
+ * binary clients skip the header.
+ *
+ * <p>Every frame is {@code opcode:u8 length:u16 payload}, big-endian. Strings are
+ * {@code length:u16} followed by UTF-8, cards and suits are single bytes (see {@link CardCodes}),
+ * teams are {@link Event#TEAM_A}/{@link Event#TEAM_B} and name lists are {@code count:u8} strings.
+ * A room summary is {@code id:u32 creator:string players:u8 maxPlayers:u8 started:u8}. A table
+ * snapshot is {@code teamA teamB started:u8 hokm:u8 round:u16 scoreA:u8 scoreB:u8 winsA:u8 winsB:u8
+ * turn:string count:u8} followed by {@code player:string card:u8} per card on the table, with
+ * {@code 0xFF} for no hokm.
+ */
+public final class FrameCodec {
+    public static final byte MAGIC_0 = 'H';
+    public static final byte MAGIC_1 = 'K';
+    public static final int VERSION = 1;
+    public static final int PREAMBLE_SIZE = 3;
+    public static final int HEADER_SIZE = 3;
+    public static final int MAX_PAYLOAD = 0xFFFF;
+
+    private FrameCodec() {
+    }
+
+    public static void writePreamble(ByteBuffer buffer) {
+        buffer.put(MAGIC_0).put(MAGIC_1).put((byte) VERSION);
+    }
+
+    /**
+     * Consumes the client preamble and returns the version it asks for, or -1 if more bytes are needed.
+     */
+    public static int readPreamble(ByteBuffer buffer) throws ProtocolException {
+        if (buffer.remaining() < PREAMBLE_SIZE) {
+            return -1;
+        }
+        if (buffer.get() != MAGIC_0 || buffer.get() != MAGIC_1) {
+            throw new ProtocolException("Bad preamble");
+        }
+        return Byte.toUnsignedInt(buffer.get());
+    }
+
+    /**
+     * Writes {@code event} as one frame, or several for a room list that exceeds one payload.
+     *
+     * @throws java.nio.BufferOverflowException if {@code buffer} is too small; callers grow and retry
+     */
+    public static void encodeEvent(Event event, ByteBuffer buffer) {
+        if (event.getOpcode() == Opcode.ROOM_LIST) {
+            encodeRoomList(event.getRooms(), buffer);
+            return;
+        }
+
+        int start = beginFrame(buffer, event.getOpcode());
+        switch (event.getOpcode()) {
+            case Opcode.ROOM_CREATED:
+            case Opcode.MATCH_FOUND:
+            case Opcode.MASTER_SELECTED:
+            case Opcode.PLAYER_TURN:
+                putString(buffer, event.getName());
+                break;
+            case Opcode.TEXT:
+            case Opcode.ERROR:
+                putString(buffer, event.getText());
+                break;
+            case Opcode.PLAYER_LIST_UPDATE:
+            case Opcode.GAME_TEAMS:
+            case Opcode.USER_LIST:
+                putStrings(buffer, event.getTeamA());
+                putStrings(buffer, event.getTeamB());
+                break;
+            case Opcode.HOKM_SELECTED:
+                buffer.put((byte) CardCodes.suitIndex(event.getName()));
+                break;
+            case Opcode.DEAL_CARDS:
+                buffer.put((byte) event.getCards().length).put(event.getCards());
+                break;
+            case Opcode.ROUND_START:
+                buffer.putShort((short) event.getFirst());
+                break;
+            case Opcode.CARD_PLAYED:
+                putString(buffer, event.getName());
+                buffer.put((byte) event.getFirst());
+                break;
+            case Opcode.TURN_WINNER:
+            case Opcode.TEAM_WINS_ROUND:
+            case Opcode.TEAM_WINS_GAME:
+                buffer.put((byte) event.getFirst());
+                break;
+            case Opcode.SCORE_UPDATE:
+            case Opcode.ROUND_WINS_UPDATE:
+                buffer.put((byte) event.getFirst()).put((byte) event.getSecond());
+                break;
+            case Opcode.LOBBY_ROOM:
+                putSummary(buffer, event.getRoom());
+                break;
+            case Opcode.LOBBY_ROOM_REMOVED:
+                buffer.putInt((int) event.getRoomId());
+                break;
+            case Opcode.SESSION_TOKEN:
+                putString(buffer, event.getName());
+                buffer.putInt(event.getFirst());
+                break;
+            case Opcode.RESUMED:
+                buffer.putInt(event.getFirst());
+                break;
+            case Opcode.TABLE_SNAPSHOT:
+                putSnapshot(buffer, event.getSnapshot());
+                break;
+            default:
+                // no payload
+                break;
+        }
+        endFrame(buffer, start);
+    }
+
+    public static void encodeHello(ByteBuffer buffer, int version) {
+        int start = beginFrame(buffer, Opcode.HELLO);
+        buffer.put((byte) version);
+        endFrame(buffer, start);
+    }
+
+    // Rooms are chunked so no frame exceeds MAX_PAYLOAD; payload is more:u8 count:u16 entries
+    private static void encodeRoomList(List<RoomSummary> rooms, ByteBuffer buffer) {
+        int index = 0;
+        do {
+            int start = beginFrame(buffer, Opcode.ROOM_LIST);
+            int moreAt = buffer.position();
+            buffer.put((byte) 0);
+            int countAt = buffer.position();
+            buffer.putShort((short) 0);
+            int count = 0;
+            while (index < rooms.size()) {
+                RoomSummary room = rooms.get(index);
+                int size = 4 + 2 + room.creator().getBytes(StandardCharsets.UTF_8).length + 3;
+                if (buffer.position() - start - HEADER_SIZE + size > MAX_PAYLOAD) {
+                    buffer.put(moreAt, (byte) 1);
+                    break;
+                }
+                putSummary(buffer, room);
+                count++;
+                index++;
+            }
+            buffer.putShort(countAt, (short) count);
+            endFrame(buffer, start);
+        } while (index < rooms.size());
+    }
+
+    public static void encodeCommand(Command command, ByteBuffer buffer) {
+        int start = beginFrame(buffer, command.getOpcode());
+        switch (command.getOpcode()) {
+            case Opcode.CREATE_ROOM:
+                putString(buffer, command.getRoom());
+                buffer.put((byte) command.getValue());
+                break;
+            case Opcode.SET_HOKM:
+            case Opcode.PLAY_CARD:
+                putString(buffer, command.getRoom());
+                if (command.getOpcode() == Opcode.PLAY_CARD) {
+                    putString(buffer, command.getUser());
+                }
+                buffer.put((byte) command.getValue());
+                break;
+            case Opcode.PLAYER_LIST:
+            case Opcode.WATCH_ROOM:
+            case Opcode.UNWATCH_ROOM:
+                putString(buffer, command.getRoom());
+                break;
+            case Opcode.START_GAME:
+                putString(buffer, command.getRoom());
+                putString(buffer, command.getUser());
+                putStrings(buffer, command.getTeamA());
+                putStrings(buffer, command.getTeamB());
+                break;
+            case Opcode.CHAT:
+                putString(buffer, command.getRoom());
+                putString(buffer, command.getUser());
+                putString(buffer, command.getText());
+                break;
+            case Opcode.QUICK_PLAY:
+                putString(buffer, command.getUser());
+                buffer.put((byte) command.getValue()).putShort((short) command.getRating());
+                break;
+            case Opcode.CANCEL_QUICK_PLAY:
+                putString(buffer, command.getUser());
+                break;
+            case Opcode.RESUME:
+                putString(buffer, command.getRoom());
+                putString(buffer, command.getUser());
+                putString(buffer, command.getText());
+                buffer.putInt(command.getValue());
+                break;
+            case Opcode.GET_ROOMS:
+            case Opcode.SUBSCRIBE_LOBBY:
+            case Opcode.UNSUBSCRIBE_LOBBY:
+            case Opcode.PONG:
+                break;
+            default:
+                putString(buffer, command.getRoom());
+                putString(buffer, command.getUser());
+                break;
+        }
+        endFrame(buffer, start);
+    }
+
+    /**
+     * Decodes one server frame for a client. Returns {@code null} if the frame is not complete yet,
+     * leaving the buffer position untouched. {@link Opcode#HELLO} frames come back as an
+     * {@link Opcode#TEXT} event holding the version number.
+     */
+    public static Event decodeEvent(ByteBuffer buffer) throws ProtocolException {
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int start = buffer.position();
+        int opcode = Byte.toUnsignedInt(buffer.get(start));
+        int length = Short.toUnsignedInt(buffer.getShort(start + 1));
+        if (buffer.remaining() < HEADER_SIZE + length) {
+            return null;
+        }
+        buffer.position(start + HEADER_SIZE);
+        int end = start + HEADER_SIZE + length;
+        Event event;
+        switch (opcode) {
+            case Opcode.HELLO:
+                event = Event.text(Integer.toString(Byte.toUnsignedInt(buffer.get())));
+                break;
+            case Opcode.ROOM_CREATED:
+                event = Event.roomCreated(getString(buffer));
+                break;
+            case Opcode.MATCH_FOUND:
+                event = Event.matchFound(getString(buffer));
+                break;
+            case Opcode.SESSION_TOKEN:
+                event = Event.sessionToken(getString(buffer), buffer.getInt());
+                break;
+            case Opcode.RESUMED:
+                event = Event.resumed(buffer.getInt());
+                break;
+            case Opcode.ROOM_CREATION_FAILED:
+                event = Event.roomCreationFailed();
+                break;
+            case Opcode.ROOM_FULL:
+                event = Event.roomFull();
+                break;
+            case Opcode.ROOM_LIST:
+                boolean more = buffer.get() != 0;
+                int count = Short.toUnsignedInt(buffer.getShort());
+                List<RoomSummary> rooms = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    rooms.add(getSummary(buffer));
+                }
+                event = Event.roomList(rooms, more);
+                break;
+            case Opcode.LOBBY_ROOM:
+                event = Event.lobbyRoom(getSummary(buffer));
+                break;
+            case Opcode.LOBBY_ROOM_REMOVED:
+                event = Event.lobbyRoomRemoved(Integer.toUnsignedLong(buffer.getInt()));
+                break;
+            case Opcode.TABLE_SNAPSHOT:
+                event = Event.tableSnapshot(getSnapshot(buffer));
+                break;
+            case Opcode.PLAYER_LIST_UPDATE:
+                event = Event.playerList(getStrings(buffer), getStrings(buffer));
+                break;
+            case Opcode.GAME_TEAMS:
+                event = Event.gameTeams(getStrings(buffer), getStrings(buffer));
+                break;
+            case Opcode.USER_LIST:
+                event = Event.userList(getStrings(buffer), getStrings(buffer));
+                break;
+            case Opcode.TEXT:
+                event = Event.text(getString(buffer));
+                break;
+            case Opcode.ERROR:
+                event = Event.error(getString(buffer));
+                break;
+            case Opcode.ROOM_CLOSED:
+                event = Event.roomClosed();
+                break;
+            case Opcode.START_GAME_FAILED:
+                event = Event.startGameFailed();
+                break;
+            case Opcode.MASTER_SELECTED:
+                event = Event.masterSelected(getString(buffer));
+                break;
+            case Opcode.SELECT_HOKM:
+                event = Event.selectHokm();
+                break;
+            case Opcode.HOKM_SELECTED:
+                event = Event.hokmSelected(CardCodes.SUITS[buffer.get()]);
+                break;
+            case Opcode.DEAL_CARDS:
+                byte[] cards = new byte[Byte.toUnsignedInt(buffer.get())];
+                buffer.get(cards);
+                event = Event.dealCards(cards);
+                break;
+            case Opcode.ROUND_START:
+                event = Event.roundStart(Short.toUnsignedInt(buffer.getShort()));
+                break;
+            case Opcode.PLAYER_TURN:
+                event = Event.playerTurn(getString(buffer));
+                break;
+            case Opcode.CARD_PLAYED:
+                String player = getString(buffer);
+                event = Event.cardPlayed(player, buffer.get());
+                break;
+            case Opcode.TURN_WINNER:
+                event = Event.turnWinner(buffer.get());
+                break;
+            case Opcode.SCORE_UPDATE:
+                event = Event.scoreUpdate(buffer.get(), buffer.get());
+                break;
+            case Opcode.ROUND_WINS_UPDATE:
+                event = Event.roundWinsUpdate(buffer.get(), buffer.get());
+                break;
+            case Opcode.TEAM_WINS_ROUND:
+                event = Event.teamWinsRound(buffer.get());
+                break;
+            case Opcode.TEAM_WINS_GAME:
+                event = Event.teamWinsGame(buffer.get());
+                break;
+            case Opcode.GAME_OVER:
+                event = Event.gameOver();
+                break;
+            case Opcode.KICKED:
+                event = Event.kicked();
+                break;
+            case Opcode.PING:
+                event = Event.ping();
+                break;
+            default:
+                throw new ProtocolException("Unknown event opcode " + opcode);
+        }
+        buffer.position(end);
+        return event;
+    }
+
+    static int beginFrame(ByteBuffer buffer, int opcode) {
+        int start = buffer.position();
+        buffer.put((byte) opcode).putShort((short) 0);
+        return start;
+    }
+
+    static void endFrame(ByteBuffer buffer, int start) {
+        int length = buffer.position() - start - HEADER_SIZE;
+        if (length > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Frame payload of " + length + " bytes exceeds " + MAX_PAYLOAD);
+        }
+        buffer.putShort(start + 1, (short) length);
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    static void putStrings(ByteBuffer buffer, List<String> values) {
+        buffer.put((byte) values.size());
+        for (String value : values) {
+            putString(buffer, value);
+        }
+    }
+
+    private static void putSummary(ByteBuffer buffer, RoomSummary room) {
+        buffer.putInt((int) room.id());
+        putString(buffer, room.creator());
+        buffer.put((byte) room.players()).put((byte) room.maxPlayers()).put((byte) (room.started() ? 1 : 0));
+    }
+
+    private static void putSnapshot(ByteBuffer buffer, TableSnapshot table) {
+        putStrings(buffer, table.teamA());
+        putStrings(buffer, table.teamB());
+        buffer.put((byte) (table.started() ? 1 : 0)).put((byte) table.hokmSuit()).putShort((short) table.round());
+        buffer.put((byte) table.teamAScore()).put((byte) table.teamBScore())
+                .put((byte) table.teamARoundWins()).put((byte) table.teamBRoundWins());
+        putString(buffer, table.turn());
+        byte[] cards = table.playedCards();
+        buffer.put((byte) cards.length);
+        for (int i = 0; i < cards.length; i++) {
+            putString(buffer, table.playedBy().get(i));
+            buffer.put(cards[i]);
+        }
+    }
+
+    private static TableSnapshot getSnapshot(ByteBuffer buffer) {
+        List<String> teamA = getStrings(buffer);
+        List<String> teamB = getStrings(buffer);
+        boolean started = buffer.get() != 0;
+        int hokmSuit = buffer.get();
+        int round = Short.toUnsignedInt(buffer.getShort());
+        int teamAScore = buffer.get();
+        int teamBScore = buffer.get();
+        int teamARoundWins = buffer.get();
+        int teamBRoundWins = buffer.get();
+        String turn = getString(buffer);
+        int count = Byte.toUnsignedInt(buffer.get());
+        List<String> playedBy = new ArrayList<>(count);
+        byte[] playedCards = new byte[count];
+        for (int i = 0; i < count; i++) {
+            playedBy.add(getString(buffer));
+            playedCards[i] = buffer.get();
+        }
+        return new TableSnapshot(teamA, teamB, started, hokmSuit, round, teamAScore, teamBScore,
+                teamARoundWins, teamBRoundWins, turn, playedBy, playedCards);
+    }
+
+    private static RoomSummary getSummary(ByteBuffer buffer) {
+        long id = Integer.toUnsignedLong(buffer.getInt());
+        String creator = getString(buffer);
+        return new RoomSummary(id, creator, buffer.get(), buffer.get(), buffer.get() != 0);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    static List<String> getStrings(ByteBuffer buffer) {
+        int count = Byte.toUnsignedInt(buffer.get());
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(getString(buffer));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,147 @@
+package com.yourpackage.protocol;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Server-side decoder for one connection's command frames. The returned {@link Command} is reused
+ * and strings are served from a small cache of recently seen names, so steady-state decoding of
+ * the commands a player repeats (room, own name) does not allocate.
+ */
+public final class FrameDecoder {
+    private static final int CACHE_SIZE = 16;
+    private static final int MAX_CACHED_LENGTH = 64;
+
+    private final int maxLength;
+    private final Command command = new Command();
+    private final byte[][] cachedBytes = new byte[CACHE_SIZE][];
+    private final String[] cachedStrings = new String[CACHE_SIZE];
+
+    public FrameDecoder() {
+        this(FrameCodec.MAX_PAYLOAD);
+    }
+
+    /**
+     * @param maxLength the longest frame payload accepted, checked as soon as a header arrives
+     */
+    public FrameDecoder(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Decodes the next complete frame in {@code buffer}, a heap buffer in read mode, or returns
+     * {@code null} without consuming anything if the frame is still incomplete.
+     */
+    public Command decode(ByteBuffer buffer) throws ProtocolException, MessageTooLargeException {
+        if (buffer.remaining() < FrameCodec.HEADER_SIZE) {
+            return null;
+        }
+        int start = buffer.position();
+        int opcode = Byte.toUnsignedInt(buffer.get(start));
+        int length = Short.toUnsignedInt(buffer.getShort(start + 1));
+        if (length > maxLength) {
+            throw new MessageTooLargeException(length, maxLength);
+        }
+        if (buffer.remaining() < FrameCodec.HEADER_SIZE + length) {
+            return null;
+        }
+        int end = start + FrameCodec.HEADER_SIZE + length;
+        buffer.position(start + FrameCodec.HEADER_SIZE);
+        try {
+            command.reset(opcode);
+            switch (opcode) {
+                case Opcode.CREATE_ROOM:
+                    command.setRoom(string(buffer));
+                    command.setValue(Byte.toUnsignedInt(buffer.get()));
+                    break;
+                case Opcode.SET_HOKM:
+                    command.setRoom(string(buffer));
+                    command.setValue(buffer.get());
+                    break;
+                case Opcode.PLAY_CARD:
+                    command.setRoom(string(buffer));
+                    command.setUser(string(buffer));
+                    command.setValue(buffer.get());
+                    break;
+                case Opcode.PLAYER_LIST:
+                case Opcode.WATCH_ROOM:
+                case Opcode.UNWATCH_ROOM:
+                    command.setRoom(string(buffer));
+                    break;
+                case Opcode.START_GAME:
+                    command.setRoom(string(buffer));
+                    command.setUser(string(buffer));
+                    command.setTeams(FrameCodec.getStrings(buffer), FrameCodec.getStrings(buffer));
+                    break;
+                case Opcode.CHAT:
+                    command.setRoom(string(buffer));
+                    command.setUser(string(buffer));
+                    command.setText(FrameCodec.getString(buffer));
+                    break;
+                case Opcode.QUICK_PLAY:
+                    command.setUser(string(buffer));
+                    command.setValue(Byte.toUnsignedInt(buffer.get()));
+                    command.setRating(Short.toUnsignedInt(buffer.getShort()));
+                    break;
+                case Opcode.CANCEL_QUICK_PLAY:
+                    command.setUser(string(buffer));
+                    break;
+                case Opcode.RESUME:
+                    command.setRoom(string(buffer));
+                    command.setUser(string(buffer));
+                    command.setText(FrameCodec.getString(buffer));
+                    command.setValue(buffer.getInt());
+                    break;
+                case Opcode.GET_ROOMS:
+                case Opcode.SUBSCRIBE_LOBBY:
+                case Opcode.UNSUBSCRIBE_LOBBY:
+                case Opcode.PONG:
+                    break;
+                case Opcode.JOIN_ROOM:
+                case Opcode.GAME_STARTED:
+                case Opcode.KICK_USER:
+                case Opcode.LEAVE_ROOM:
+                    command.setRoom(string(buffer));
+                    command.setUser(string(buffer));
+                    break;
+                default:
+                    throw new ProtocolException("Unknown command opcode " + opcode);
+            }
+            if (buffer.position() != end) {
+                throw new ProtocolException("Malformed frame for opcode " + opcode);
+            }
+        } catch (RuntimeException e) {
+            // Buffer underflow or a string running past the frame
+            throw new ProtocolException("Malformed frame for opcode " + opcode);
+        } finally {
+            buffer.position(end);
+        }
+        return command;
+    }
+
+    private String string(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        int offset = buffer.arrayOffset() + buffer.position();
+        byte[] array = buffer.array();
+        buffer.position(buffer.position() + length);
+        if (length > MAX_CACHED_LENGTH) {
+            return new String(array, offset, length, StandardCharsets.UTF_8);
+        }
+
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + array[offset + i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        byte[] cached = cachedBytes[slot];
+        if (cached != null && Arrays.equals(cached, 0, cached.length, array, offset, offset + length)) {
+            return cachedStrings[slot];
+        }
+        String value = new String(array, offset, length, StandardCharsets.UTF_8);
+        cachedBytes[slot] = Arrays.copyOfRange(array, offset, offset + length);
+        cachedStrings[slot] = value;
+        return value;
+    }
+}
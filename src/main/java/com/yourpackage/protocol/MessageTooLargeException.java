@@ -0,0 +1,16 @@
+package com.yourpackage.protocol;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a client announces a message longer than the server accepts. The length is checked
+ * as soon as it is read, before the message is buffered or decoded, and the connection is closed,
+ * since the rest of its stream can no longer be trusted.
+ */
+public class MessageTooLargeException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public MessageTooLargeException(long length, int maxLength) {
+        super("Message of " + length + " bytes exceeds the limit of " + maxLength);
+    }
+}
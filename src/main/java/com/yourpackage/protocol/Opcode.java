@@ -0,0 +1,89 @@
+package com.yourpackage.protocol;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Frame opcodes of the binary protocol. Commands sent by clients are below {@code 0x80},
+ * events sent by the server are {@code 0x80} and above.
+ */
+public final class Opcode {
+    public static final int CREATE_ROOM = 0x01;
+    public static final int JOIN_ROOM = 0x02;
+    public static final int GAME_STARTED = 0x03;
+    public static final int GET_ROOMS = 0x04;
+    public static final int SET_HOKM = 0x05;
+    public static final int PLAY_CARD = 0x06;
+    public static final int START_GAME = 0x07;
+    public static final int PLAYER_LIST = 0x08;
+    public static final int CHAT = 0x09;
+    public static final int KICK_USER = 0x0A;
+    public static final int LEAVE_ROOM = 0x0B;
+    public static final int SUBSCRIBE_LOBBY = 0x0C;
+    public static final int UNSUBSCRIBE_LOBBY = 0x0D;
+    public static final int WATCH_ROOM = 0x0E;
+    public static final int UNWATCH_ROOM = 0x0F;
+    public static final int PONG = 0x10;
+    public static final int QUICK_PLAY = 0x11;
+    public static final int CANCEL_QUICK_PLAY = 0x12;
+    public static final int RESUME = 0x13;
+
+    public static final int HELLO = 0x7F;
+
+    public static final int ROOM_CREATED = 0x80;
+    public static final int ROOM_CREATION_FAILED = 0x81;
+    public static final int ROOM_FULL = 0x82;
+    public static final int ROOM_LIST = 0x83;
+    public static final int PLAYER_LIST_UPDATE = 0x84;
+    public static final int GAME_TEAMS = 0x85;
+    public static final int TEXT = 0x86;
+    public static final int ROOM_CLOSED = 0x87;
+    public static final int START_GAME_FAILED = 0x88;
+    public static final int MASTER_SELECTED = 0x89;
+    public static final int SELECT_HOKM = 0x8A;
+    public static final int HOKM_SELECTED = 0x8B;
+    public static final int DEAL_CARDS = 0x8C;
+    public static final int ROUND_START = 0x8D;
+    public static final int PLAYER_TURN = 0x8E;
+    public static final int CARD_PLAYED = 0x8F;
+    public static final int ERROR = 0x90;
+    public static final int TURN_WINNER = 0x91;
+    public static final int SCORE_UPDATE = 0x92;
+    public static final int ROUND_WINS_UPDATE = 0x93;
+    public static final int TEAM_WINS_ROUND = 0x94;
+    public static final int TEAM_WINS_GAME = 0x95;
+    public static final int GAME_OVER = 0x96;
+    public static final int USER_LIST = 0x97;
+    public static final int KICKED = 0x98;
+    public static final int LOBBY_ROOM = 0x99;
+    public static final int LOBBY_ROOM_REMOVED = 0x9A;
+    public static final int TABLE_SNAPSHOT = 0x9B;
+    public static final int PING = 0x9C;
+    public static final int MATCH_FOUND = 0x9D;
+    public static final int SESSION_TOKEN = 0x9E;
+    public static final int RESUMED = 0x9F;
+
+    private static final String[] NAMES = new String[256];
+
+    static {
+        for (Field field : Opcode.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == int.class) {
+                try {
+                    NAMES[field.getInt(null)] = field.getName();
+                } catch (IllegalAccessException e) {
+                    throw new ExceptionInInitializerError(e);
+                }
+            }
+        }
+    }
+
+    private Opcode() {
+    }
+
+    /**
+     * The constant's name, e.g. {@code PLAY_CARD}, or null if {@code opcode} is unassigned.
+     */
+    public static String nameOf(int opcode) {
+        return opcode >= 0 && opcode < NAMES.length ? NAMES[opcode] : null;
+    }
+}
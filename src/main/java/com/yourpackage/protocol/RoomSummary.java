@@ -0,0 +1,12 @@
+package com.yourpackage.protocol;
+
+/**
+ * Lobby view of a room, as listed in {@link Opcode#ROOM_LIST} and {@link Opcode#LOBBY_ROOM} frames.
+ */
+public record RoomSummary(long id, String creator, int players, int maxPlayers, boolean started) {
+
+    // id:creator:players:maxPlayers:started, the entry format of ROOM_LIST and LOBBY_ROOM text
+    String toLegacyText() {
+        return id + ":" + creator + ":" + players + ":" + maxPlayers + ":" + started;
+    }
+}
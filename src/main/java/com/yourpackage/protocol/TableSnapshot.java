@@ -0,0 +1,40 @@
+package com.yourpackage.protocol;
+
+import java.util.List;
+
+/**
+ * The public state of a table, sent as {@link Opcode#TABLE_SNAPSHOT} to a spectator that starts
+ * watching mid-game. Hands are never included; {@code hokmSuit} is -1 until the hokm is chosen,
+ * {@code turn} is empty between turns and {@code playedBy}/{@code playedCards} are the cards on the
+ * table, in the order they were played.
+ */
+public record TableSnapshot(List<String> teamA, List<String> teamB, boolean started, int hokmSuit, int round,
+                            int teamAScore, int teamBScore, int teamARoundWins, int teamBRoundWins, String turn,
+                            List<String> playedBy, byte[] playedCards) {
+
+    public TableSnapshot {
+        teamA = List.copyOf(teamA);
+        teamB = List.copyOf(teamB);
+        playedBy = List.copyOf(playedBy);
+        playedCards = playedCards.clone();
+    }
+
+    // teamA:teamB:started:hokm:round:scoreA:scoreB:winsA:winsB:turn:player=CARD,..., '-' for no hokm
+    String toLegacyText() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.join(",", teamA)).append(':').append(String.join(",", teamB))
+                .append(':').append(started)
+                .append(':').append(hokmSuit < 0 ? "-" : CardCodes.SUITS[hokmSuit])
+                .append(':').append(round)
+                .append(':').append(teamAScore).append(':').append(teamBScore)
+                .append(':').append(teamARoundWins).append(':').append(teamBRoundWins)
+                .append(':').append(turn).append(':');
+        for (int i = 0; i < playedCards.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(playedBy.get(i)).append('=').append(CardCodes.toText(playedCards[i]));
+        }
+        return builder.toString();
+    }
+}
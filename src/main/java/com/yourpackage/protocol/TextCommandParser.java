@@ -0,0 +1,259 @@
+package com.yourpackage.protocol;
+
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses string-protocol requests such as {@code PLAY_CARD:creator:player:HEARTS-ACE} into the
+ * same {@link Command} the binary decoder produces. The command name is looked up in a small
+ * hash table and fields are scanned in place, so no regex split or intermediate array is made;
+ * like {@link FrameDecoder}, the command is reused and recurring names come from a cache.
+ */
+public final class TextCommandParser {
+    private static final int TABLE_SIZE = 32;
+    private static final String[] TABLE_NAMES = new String[TABLE_SIZE];
+    private static final int[] TABLE_OPCODES = new int[TABLE_SIZE];
+    private static final int CACHE_SIZE = 16;
+    private static final int MAX_CACHED_LENGTH = 64;
+
+    static {
+        register("CREATE_ROOM", Opcode.CREATE_ROOM);
+        register("JOIN_ROOM", Opcode.JOIN_ROOM);
+        register("GAME_STARTED", Opcode.GAME_STARTED);
+        register("GET_ROOMS", Opcode.GET_ROOMS);
+        register("SET_HOKM", Opcode.SET_HOKM);
+        register("PLAY_CARD", Opcode.PLAY_CARD);
+        register("START_GAME", Opcode.START_GAME);
+        register("PLAYER_LIST", Opcode.PLAYER_LIST);
+        register("CHAT", Opcode.CHAT);
+        register("KICK_USER", Opcode.KICK_USER);
+        register("LEAVE_ROOM", Opcode.LEAVE_ROOM);
+        register("SUBSCRIBE_LOBBY", Opcode.SUBSCRIBE_LOBBY);
+        register("UNSUBSCRIBE_LOBBY", Opcode.UNSUBSCRIBE_LOBBY);
+        register("WATCH_ROOM", Opcode.WATCH_ROOM);
+        register("UNWATCH_ROOM", Opcode.UNWATCH_ROOM);
+        register("PONG", Opcode.PONG);
+        register("QUICK_PLAY", Opcode.QUICK_PLAY);
+        register("CANCEL_QUICK_PLAY", Opcode.CANCEL_QUICK_PLAY);
+        register("RESUME", Opcode.RESUME);
+    }
+
+    private final Command command = new Command();
+    private final String[] cache = new String[CACHE_SIZE];
+    private String request;
+    private int position;
+
+    private static void register(String name, int opcode) {
+        int slot = slot(hash(name, 0, name.length()));
+        while (TABLE_NAMES[slot] != null) {
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        TABLE_NAMES[slot] = name;
+        TABLE_OPCODES[slot] = opcode;
+    }
+
+    /**
+     * Parses one request. The returned command is only valid until the next call.
+     */
+    public Command parse(String request) throws ProtocolException {
+        this.request = request;
+        int end = request.indexOf(':');
+        if (end < 0) {
+            end = request.length();
+        }
+        int opcode = lookup(request, end);
+        if (opcode < 0) {
+            throw new ProtocolException("Unknown command " + request.substring(0, end));
+        }
+        position = end;
+
+        command.reset(opcode);
+        try {
+            switch (opcode) {
+                case Opcode.CREATE_ROOM:
+                    command.setRoom(field());
+                    command.setValue(intField());
+                    break;
+                case Opcode.SET_HOKM:
+                    command.setRoom(field());
+                    command.setValue(suitField());
+                    break;
+                case Opcode.PLAY_CARD:
+                    command.setRoom(field());
+                    command.setUser(field());
+                    command.setValue(cardField());
+                    break;
+                case Opcode.START_GAME:
+                    command.setRoom(field());
+                    command.setUser(field());
+                    command.setTeams(listField(), listField());
+                    break;
+                case Opcode.PLAYER_LIST:
+                case Opcode.WATCH_ROOM:
+                case Opcode.UNWATCH_ROOM:
+                    command.setRoom(field());
+                    break;
+                case Opcode.CHAT:
+                    command.setRoom(field());
+                    command.setUser(field());
+                    command.setText(rest());
+                    break;
+                case Opcode.QUICK_PLAY:
+                    command.setUser(field());
+                    command.setValue(intField());
+                    // The rating is optional
+                    if (position < request.length()) {
+                        command.setRating(intField());
+                    }
+                    break;
+                case Opcode.CANCEL_QUICK_PLAY:
+                    command.setUser(field());
+                    break;
+                case Opcode.RESUME:
+                    command.setRoom(field());
+                    command.setUser(field());
+                    command.setText(field());
+                    command.setValue(intField());
+                    break;
+                case Opcode.GET_ROOMS:
+                case Opcode.SUBSCRIBE_LOBBY:
+                case Opcode.UNSUBSCRIBE_LOBBY:
+                case Opcode.PONG:
+                    break;
+                default:
+                    command.setRoom(field());
+                    command.setUser(field());
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            throw new ProtocolException("Malformed number in " + request);
+        }
+        return command;
+    }
+
+    private static int lookup(String request, int end) {
+        int slot = slot(hash(request, 0, end));
+        String name;
+        while ((name = TABLE_NAMES[slot]) != null) {
+            if (name.length() == end && request.startsWith(name)) {
+                return TABLE_OPCODES[slot];
+            }
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        return -1;
+    }
+
+    // Bounds of the next field: [position + 1, end)
+    private int fieldEnd() throws ProtocolException {
+        if (position >= request.length()) {
+            throw new ProtocolException("Missing field in " + request);
+        }
+        int end = request.indexOf(':', position + 1);
+        return end < 0 ? request.length() : end;
+    }
+
+    private String field() throws ProtocolException {
+        int end = fieldEnd();
+        String value = name(position + 1, end);
+        position = end;
+        return value;
+    }
+
+    private int intField() throws ProtocolException {
+        int end = fieldEnd();
+        int value = Integer.parseInt(request, position + 1, end, 10);
+        position = end;
+        return value;
+    }
+
+    private int suitField() throws ProtocolException {
+        int end = fieldEnd();
+        int start = position + 1;
+        position = end;
+        for (int i = 0; i < CardCodes.SUITS.length; i++) {
+            String suit = CardCodes.SUITS[i];
+            if (suit.length() == end - start && request.startsWith(suit, start)) {
+                return i;
+            }
+        }
+        throw new ProtocolException("Invalid suit " + request.substring(start, end));
+    }
+
+    private int cardField() throws ProtocolException {
+        int end = fieldEnd();
+        int start = position + 1;
+        position = end;
+        int dash = request.indexOf('-', start);
+        if (dash < 0 || dash >= end) {
+            throw new ProtocolException("Invalid card " + request.substring(start, end));
+        }
+        int suit = indexOf(CardCodes.SUITS, start, dash);
+        int rank = indexOf(CardCodes.RANKS, dash + 1, end);
+        if (suit < 0 || rank < 0) {
+            throw new ProtocolException("Invalid card " + request.substring(start, end));
+        }
+        return suit * CardCodes.RANKS.length + rank;
+    }
+
+    private int indexOf(String[] values, int start, int end) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].length() == end - start && request.startsWith(values[i], start)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Comma-separated names, as in the team fields of START_GAME
+    private List<String> listField() throws ProtocolException {
+        int end = fieldEnd();
+        List<String> values = new ArrayList<>(4);
+        int start = position + 1;
+        while (start < end) {
+            int comma = request.indexOf(',', start);
+            if (comma < 0 || comma > end) {
+                comma = end;
+            }
+            values.add(name(start, comma));
+            start = comma + 1;
+        }
+        position = end;
+        return values;
+    }
+
+    // Everything after the separator, so chat messages may contain ':'
+    private String rest() throws ProtocolException {
+        fieldEnd();
+        String value = request.substring(position + 1);
+        position = request.length();
+        return value;
+    }
+
+    private String name(int start, int end) {
+        int length = end - start;
+        if (length > MAX_CACHED_LENGTH) {
+            return request.substring(start, end);
+        }
+        int slot = slot(hash(request, start, end)) & (CACHE_SIZE - 1);
+        String cached = cache[slot];
+        if (cached != null && cached.length() == length && request.startsWith(cached, start)) {
+            return cached;
+        }
+        String value = request.substring(start, end);
+        cache[slot] = value;
+        return value;
+    }
+
+    private static int hash(String value, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + value.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & (TABLE_SIZE - 1);
+    }
+}
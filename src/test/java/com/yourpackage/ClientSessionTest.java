@@ -0,0 +1,112 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Command;
+import com.yourpackage.protocol.Event;
+import com.yourpackage.protocol.Opcode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ClientSessionTest {
+    private final Server server = new Server(ServerConfig.fromProperties(new Properties()));
+    private final RecordingConnection connection = new RecordingConnection();
+    private final ClientSession session = new ClientSession(server, connection, RequestLimits.NONE);
+
+    @Test
+    void createRoomRejectsNegativeTableSize() throws Exception {
+        assertRejected("-1");
+    }
+
+    @Test
+    void createRoomRejectsEmptyTable() throws Exception {
+        assertRejected("0");
+    }
+
+    @Test
+    void createRoomRejectsOddTableSize() throws Exception {
+        assertRejected("3");
+    }
+
+    @Test
+    void createRoomRejectsHugeTableSize() throws Exception {
+        assertRejected("2000000000");
+    }
+
+    @Test
+    void createRoomAcceptsFourSeats() throws Exception {
+        session.handleRequest("CREATE_ROOM:alice:4");
+        assertNotNull(server.getRoomByCreator("alice"));
+        assertEquals(Opcode.ROOM_CREATED, connection.last().getOpcode());
+    }
+
+    @Test
+    void joinRoomCannotTakeTheSeatOfADroppedPlayer() throws Exception {
+        RecordingConnection bobConnection = new RecordingConnection();
+        ClientSession bob = new ClientSession(server, bobConnection, RequestLimits.NONE);
+        session.handle(Command.createRoom("alice", 2));
+        session.handle(Command.joinRoom("alice", "alice"));
+        bob.handle(Command.joinRoom("alice", "bob"));
+        session.handle(Command.gameStarted("alice", "alice"));
+        bob.close();
+
+        RecordingConnection intruder = new RecordingConnection();
+        new ClientSession(server, intruder, RequestLimits.NONE).handle(Command.joinRoom("alice", "bob"));
+        assertEquals(Opcode.ROOM_FULL, intruder.last().getOpcode());
+        assertFalse(intruder.events.stream().anyMatch(e -> e.getOpcode() == Opcode.SESSION_TOKEN));
+    }
+
+    @Test
+    void playCardNamingAnotherSeatIsRefused() throws Exception {
+        RecordingConnection bobConnection = new RecordingConnection();
+        ClientSession bob = new ClientSession(server, bobConnection, RequestLimits.NONE);
+        session.handle(Command.createRoom("alice", 2));
+        session.handle(Command.joinRoom("alice", "alice"));
+        bob.handle(Command.joinRoom("alice", "bob"));
+        session.handle(Command.gameStarted("alice", "alice"));
+        Room room = server.getRoomByCreator("alice");
+        Player master = room.getMaster();
+        boolean aliceIsMaster = master.getName().equals("alice");
+        ClientSession masterSession = aliceIsMaster ? session : bob;
+        ClientSession otherSession = aliceIsMaster ? bob : session;
+        RecordingConnection otherConnection = aliceIsMaster ? bobConnection : connection;
+        masterSession.handle(Command.setHokm("alice", "HEARTS"));
+
+        otherSession.handle(Command.playCard("alice", master.getName(), master.getHand().toCodes()[0]));
+        assertEquals(Opcode.ERROR, otherConnection.last().getOpcode());
+        assertEquals(13, master.getHand().size());
+    }
+
+    private void assertRejected(String maxPlayers) throws Exception {
+        session.handleRequest("CREATE_ROOM:alice:" + maxPlayers);
+        assertNull(server.getRoomByCreator("alice"));
+        assertEquals(Opcode.ERROR, connection.last().getOpcode());
+    }
+
+    static class RecordingConnection implements ClientConnection {
+        final List<Event> events = new ArrayList<>();
+
+        @Override
+        public void send(Event event) {
+            events.add(event);
+        }
+
+        @Override
+        public void sendRooms(List<Room> rooms) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        Event last() {
+            return events.get(events.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Opcode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestLimitsTest {
+    private static RequestLimits limits(int commandsPerSecond, int commandsBurst, int chatPerSecond) {
+        Properties properties = new Properties();
+        properties.setProperty("hokm.rate.commandsPerSecond", String.valueOf(commandsPerSecond));
+        properties.setProperty("hokm.rate.commandsBurst", String.valueOf(commandsBurst));
+        properties.setProperty("hokm.rate.chatPerSecond", String.valueOf(chatPerSecond));
+        properties.setProperty("hokm.rate.chatBurst", "1");
+        return RequestLimits.of(ServerConfig.fromProperties(properties));
+    }
+
+    @Test
+    void chatRefusedByTheCommandLimitKeepsItsChatToken() {
+        RequestLimits limits = limits(10, 1, 1);
+        long now = System.nanoTime();
+        assertTrue(limits.admit(Opcode.PLAY_CARD, now));
+        assertFalse(limits.admit(Opcode.CHAT, now));
+        // Long enough for a command token, far too short for a new chat token
+        assertTrue(limits.admit(Opcode.CHAT, now + TimeUnit.MILLISECONDS.toNanos(150)));
+    }
+
+    @Test
+    void chatRefusedByTheChatLimitKeepsTheCommandToken() {
+        RequestLimits limits = limits(1, 2, 1);
+        long now = System.nanoTime();
+        assertTrue(limits.admit(Opcode.CHAT, now));
+        assertFalse(limits.admit(Opcode.CHAT, now));
+        assertTrue(limits.admit(Opcode.PLAY_CARD, now));
+        assertFalse(limits.admit(Opcode.PLAY_CARD, now));
+    }
+}
@@ -0,0 +1,56 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class RoomRecoveryTest {
+    private static final long ROOM = 1;
+    private static final long SEED = 42;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundCutOffBeforeTheNextDealIsDealtAgain() throws Exception {
+        // The hands the room deals from SEED: five cards each, then the rest once the hokm is set
+        Deck deck = new Deck(SEED);
+        Hand[] hands = {new Hand(), new Hand()};
+        for (Hand hand : hands) {
+            deck.deal(hand, 5);
+        }
+        for (Hand hand : hands) {
+            deck.deal(hand, 8);
+        }
+
+        try (MappedGameLog log = MappedGameLog.open(directory, 1 << 20, 10, GameLog.NONE)) {
+            log.roomCreated(ROOM, "alice", 2, 7);
+            log.playerJoined(ROOM, "alice");
+            log.playerJoined(ROOM, "bob");
+            log.cardsDealt(ROOM, SEED, 0);
+            log.hokmSelected(ROOM, 0);
+            // Seat 0 takes seven tricks, which wins the round; the crash comes before the next deal
+            for (int trick = 0; trick < 7; trick++) {
+                log.cardPlayed(ROOM, 0, hands[0].toCodes()[trick]);
+                log.cardPlayed(ROOM, 1, hands[1].toCodes()[trick]);
+                log.trickWon(ROOM, 0);
+            }
+            log.roundWon(ROOM, Event.TEAM_A);
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("hokm.gamelog.dir", directory.toString());
+        Server server = new Server(ServerConfig.fromProperties(properties));
+        Room room = server.getRoomByCreator("alice");
+        assertNotNull(room.getMaster());
+        for (Player player : room.getPlayers()) {
+            assertEquals(5, player.getHand().size());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.yourpackage;
+
+import com.yourpackage.protocol.Opcode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomTest {
+    private final TimerWheel scheduler = new TimerWheel(10, TimeUnit.MILLISECONDS, 64);
+    private final RecordingLog log = new RecordingLog();
+    private final Room room = new Room(1, "alice", 2, 7, scheduler, 0,
+            new LobbyFeed(new RoomRegistry(), scheduler, 0), Runnable::run, log,
+            new SpectatorFeed(scheduler, Runnable::run, 0), 0);
+    private final List<ClientSessionTest.RecordingConnection> connections = new ArrayList<>();
+    private final List<Player> players = new ArrayList<>();
+
+    RoomTest() {
+        for (String name : List.of("alice", "bob")) {
+            ClientSessionTest.RecordingConnection connection = new ClientSessionTest.RecordingConnection();
+            Player player = new Player(name, connection);
+            room.addPlayer(player);
+            connections.add(connection);
+            players.add(player);
+        }
+    }
+
+    @Test
+    void setHokmBeforeGameStartsIsRejected() {
+        room.setHokmSuit(players.get(0), "HEARTS");
+        assertEquals(Opcode.ERROR, connections.get(0).last().getOpcode());
+        assertEquals(0, log.hokms);
+    }
+
+    @Test
+    void setHokmFromAnyoneButTheMasterIsRejected() {
+        room.startGame();
+        Player other = players.get(0) == room.getMaster() ? players.get(1) : players.get(0);
+        room.setHokmSuit(other, "HEARTS");
+        assertEquals(0, log.hokms);
+        room.setHokmSuit(room.getMaster(), "HEARTS");
+        assertEquals(1, log.hokms);
+        assertTrue(players.stream().allMatch(p -> p.getHand().size() == 13));
+    }
+
+    @Test
+    void secondSetHokmIsRejected() {
+        room.startGame();
+        room.setHokmSuit(room.getMaster(), "HEARTS");
+        room.setHokmSuit(room.getMaster(), "SPADES");
+        assertEquals(1, log.hokms);
+    }
+
+    private static class RecordingLog implements GameLog {
+        int hokms;
+
+        @Override
+        public void hokmSelected(long roomId, int suit) {
+            hokms++;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.yourpackage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ServerConfigTest {
+    @Test
+    void nioRefusesRoomsOnTheEventLoop() {
+        Properties properties = new Properties();
+        properties.setProperty("hokm.transport", "NIO");
+        properties.setProperty("hokm.roomWorkers", "0");
+        assertThrows(IllegalArgumentException.class, () -> ServerConfig.fromProperties(properties));
+    }
+
+    @Test
+    void blockingAllowsRoomsOnTheClientThread() {
+        Properties properties = new Properties();
+        properties.setProperty("hokm.roomWorkers", "0");
+        assertEquals(0, ServerConfig.fromProperties(properties).getRoomWorkerThreads());
+    }
+}